@@ -0,0 +1,189 @@
+package movie_platform.benchmark;
+
+import com.github.javafaker.Faker;
+import movie_platform.enums.FinanceType;
+import movie_platform.enums.MovieGenre;
+import movie_platform.enums.MovieStatus;
+import movie_platform.model.Movie;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+
+// Детерминированная генерация данных для бенчмарков.
+// Один и тот же seed всегда даёт одни и те же файлы, поэтому результаты разных запусков сравнимы.
+// Faker заполняет небольшой пул строк, а записи собираются из пула через Random(seed):
+// так 10 млн записей генерируются за секунды, а не за минуты.
+public final class BenchmarkData {
+
+    public static final long SEED = 42L;
+    private static final int POOL_SIZE = 1024;
+    private static final String BACKUP_SUFFIX = ".bench-backup";
+
+    private static final DateTimeFormatter FINANCE_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter PREMIERE_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm z", Locale.ENGLISH);
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+    private static final ZoneId[] ZONES = {ZoneId.of("Europe/Berlin"), ZoneId.of("UTC")};
+
+    private BenchmarkData() {
+    }
+
+    // Пишет finance-CSV в формате FinanceRepository (построчно, без списка в памяти)
+    public static void writeFinanceCsv(Path file, int size) {
+        Random random = new Random(SEED);
+        List<String> descriptions = pool(faker -> faker.company().catchPhrase());
+        List<String> titles = pool(faker -> faker.book().title());
+        FinanceType[] types = FinanceType.values();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file.toFile(), StandardCharsets.UTF_8))) {
+            writer.write("ID, Тип, Сумма, Премьера, Описание, Дата");
+            writer.newLine();
+            for (int i = 0; i < size; i++) {
+                FinanceType type;
+                String description;
+                int kind = random.nextInt(10);
+                if (kind < 4) { // Примерно 40% записей — продажи билетов, как в рабочих данных
+                    type = FinanceType.INCOME;
+                    description = "Продажа билетов на премьеру " + titles.get(random.nextInt(POOL_SIZE));
+                } else if (kind == 4) {
+                    type = FinanceType.EXPENSE;
+                    description = "Возврат билетов на премьеру " + titles.get(random.nextInt(POOL_SIZE));
+                } else {
+                    type = types[random.nextInt(types.length)];
+                    description = descriptions.get(random.nextInt(POOL_SIZE));
+                }
+                double amount = (1 + random.nextInt(1_000_000)) / 100.0;
+                LocalDate date = START_DATE.plusDays(random.nextInt(1500));
+                writer.write(String.join(", ",
+                        "F" + i,
+                        type.name(),
+                        String.format(Locale.US, "%.2f", amount),
+                        description,
+                        date.format(FINANCE_DATE)));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сгенерировать " + file, e);
+        }
+    }
+
+    // Пишет premieres.txt в формате PremiereRepository
+    public static void writePremieres(Path file, int size) {
+        Random random = new Random(SEED);
+        List<String> titles = pool(faker -> faker.book().title());
+        List<String> locations = pool(faker -> faker.address().city());
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file.toFile(), StandardCharsets.UTF_8))) {
+            writer.write("ID, Название, Дата, Бюджет, Локация, Кол-во билетов, Продано билетов");
+            writer.newLine();
+            for (int i = 0; i < size; i++) {
+                ZonedDateTime date = START_DATE.plusDays(random.nextInt(1500))
+                        .atTime(10 + random.nextInt(12), 0)
+                        .atZone(ZONES[random.nextInt(ZONES.length)]);
+                int ticketCount = 50 + random.nextInt(950);
+                writer.write(String.join(", ",
+                        "P" + i,
+                        titles.get(random.nextInt(POOL_SIZE)),
+                        date.format(PREMIERE_DATE),
+                        String.valueOf((double) (10_000 + random.nextInt(1_000_000))),
+                        locations.get(random.nextInt(POOL_SIZE)),
+                        String.valueOf(ticketCount),
+                        String.valueOf(random.nextInt(ticketCount + 1))));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сгенерировать " + file, e);
+        }
+    }
+
+    public static List<Movie> movies(int size) {
+        Random random = new Random(SEED);
+        List<String> titles = pool(faker -> faker.book().title());
+        MovieGenre[] genres = MovieGenre.values();
+        MovieStatus[] statuses = MovieStatus.values();
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            movies.add(new Movie("M" + i,
+                    titles.get(random.nextInt(POOL_SIZE)),
+                    statuses[random.nextInt(statuses.length)],
+                    genres[random.nextInt(genres.length)]));
+        }
+        return movies;
+    }
+
+    // Фильмы с актёрами (3) и продюсером — для полнотекстового поиска
+    public static List<Movie> moviesWithCast(int size) {
+        Random random = new Random(SEED);
+        List<String> titles = pool(faker -> faker.book().title());
+        List<String> names = pool(faker -> faker.name().fullName());
+        MovieGenre[] genres = MovieGenre.values();
+        MovieStatus[] statuses = MovieStatus.values();
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<String> actors = new ArrayList<>(3);
+            for (int j = 0; j < 3; j++) {
+                actors.add(names.get(random.nextInt(POOL_SIZE)));
+            }
+            movies.add(new Movie("M" + i, titles.get(random.nextInt(POOL_SIZE)),
+                    genres[random.nextInt(genres.length)], null, null, statuses[random.nextInt(statuses.length)],
+                    1_000_000, new ArrayList<>(List.of(names.get(random.nextInt(POOL_SIZE)))), actors));
+        }
+        return movies;
+    }
+
+    // Пул строк из Faker; запятые убираются, потому что репозитории делят строки по ", "
+    private static List<String> pool(Function<Faker, String> generator) {
+        Faker faker = new Faker(new Locale("ru"), new Random(SEED));
+        List<String> values = new ArrayList<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            values.add(generator.apply(faker).replace(",", ""));
+        }
+        return values;
+    }
+
+    // Рабочие файлы приложения лежат в текущем каталоге: перед бенчмарком их откладываем в сторону,
+    // после — возвращаем обратно
+    public static void backup(String fileName) {
+        Path file = Paths.get(fileName);
+        try {
+            if (Files.exists(file)) {
+                Files.move(file, Paths.get(fileName + BACKUP_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить " + fileName, e);
+        }
+    }
+
+    public static void restore(String fileName) {
+        Path file = Paths.get(fileName);
+        Path backup = Paths.get(fileName + BACKUP_SUFFIX);
+        try {
+            Files.deleteIfExists(file);
+            if (Files.exists(backup)) {
+                Files.move(backup, file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить " + fileName, e);
+        }
+    }
+
+    // Менеджеры печатают каждое действие в консоль; в бенчмарке это измеряло бы скорость терминала
+    public static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
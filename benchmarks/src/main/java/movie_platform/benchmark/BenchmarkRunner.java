@@ -0,0 +1,23 @@
+package movie_platform.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Запуск всех бенчмарков с профилировщиком GC (скорость выделения памяти, gc.alloc.rate.norm).
+// Принимает обычные аргументы JMH, например:
+//   java -cp target/benchmarks.jar movie_platform.benchmark.BenchmarkRunner -p size=1000,100000 FinanceRepository
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
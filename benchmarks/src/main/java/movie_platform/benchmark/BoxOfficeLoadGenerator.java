@@ -0,0 +1,192 @@
+package movie_platform.benchmark;
+
+import movie_platform.manager.FinanceManager;
+import movie_platform.manager.PremiereManager;
+import movie_platform.model.Premiere;
+import movie_platform.service.BoxOfficeServer;
+import movie_platform.service.PersistenceService;
+import movie_platform.service.ReportService;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный генератор для HTTP-кассы (BoxOfficeServer).
+// Держит clients запросов в полёте одновременно (асинхронный HttpClient, без потока на клиента) и
+// отправляет всего requests запросов: 70% продаж, 20% просмотров премьеры, 5% возвратов, 5% отзывов.
+// Без --url поднимает сервер сам в тестовом режиме (test_* файлы, рабочие данные не трогаются):
+//   java -cp target/benchmarks.jar movie_platform.benchmark.BoxOfficeLoadGenerator --clients 2000 --requests 200000
+//   java -cp target/benchmarks.jar movie_platform.benchmark.BoxOfficeLoadGenerator --url http://localhost:8080 --premieres 1,2,3
+public class BoxOfficeLoadGenerator {
+
+    private static final String[] TEST_FILES = {"test_premieres.dat", "test_sales.txlog", "test_finance_records.csv",
+            "test_finance_records.bin", "test_finance_records.journal", "test_finance_report.pdf"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100000"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", "64"));
+        String url = options.get("url");
+
+        PrintStream console = System.out;
+        BenchmarkData.silenceConsole(); // Менеджеры печатают каждое действие
+        EmbeddedServer embedded = null;
+        String[] premiereIds;
+        if (url == null) {
+            int premieres = Integer.parseInt(options.getOrDefault("premieres", "16"));
+            embedded = new EmbeddedServer(premieres, workers);
+            url = "http://localhost:" + embedded.server.getPort();
+            premiereIds = embedded.premiereIds;
+        } else {
+            premiereIds = options.getOrDefault("premieres", "1").split(",");
+        }
+
+        try {
+            console.printf("Цель: %s, клиентов одновременно: %d, запросов: %d%n", url, clients, requests);
+            Result result = run(url, premiereIds, clients, requests);
+            result.print(console);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static Result run(String url, String[] premiereIds, int clients, int requests) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors())))
+                .build();
+        Semaphore inFlight = new Semaphore(clients);
+        CountDownLatch done = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        AtomicLong failures = new AtomicLong();
+        Random random = new Random(BenchmarkData.SEED);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            HttpRequest request = nextRequest(url, premiereIds[random.nextInt(premiereIds.length)], random.nextInt(100), i);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (error != null) {
+                    failures.incrementAndGet();
+                } else {
+                    statuses.computeIfAbsent(response.statusCode(), code -> new AtomicLong()).incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        return new Result(requests, System.nanoTime() - start, latencies, statuses, failures.get());
+    }
+
+    private static HttpRequest nextRequest(String url, String premiereId, int dice, int number) {
+        String premiere = url + "/premieres/" + premiereId;
+        if (dice < 70) {
+            return HttpRequest.newBuilder(URI.create(premiere + "/sell?count=1")).POST(HttpRequest.BodyPublishers.noBody()).build();
+        } else if (dice < 90) {
+            return HttpRequest.newBuilder(URI.create(premiere)).GET().build();
+        } else if (dice < 95) {
+            return HttpRequest.newBuilder(URI.create(premiere + "/refund?count=1")).POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return HttpRequest.newBuilder(URI.create(premiere + "/reviews"))
+                .POST(HttpRequest.BodyPublishers.ofString("Отзыв нагрузочного теста №" + number, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new ConcurrentHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Ожидался параметр вида --имя значение: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Result(int requests, long elapsedNanos, long[] latencies, Map<Integer, AtomicLong> statuses,
+                          long failures) {
+        void print(PrintStream out) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            out.printf("Время: %.2f с, пропускная способность: %.0f запросов/с%n", seconds, requests / seconds);
+            out.printf("Задержка, мс: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+            out.println("Коды ответов: " + statuses + ", ошибок соединения: " + failures);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+        }
+    }
+
+    // Сервер в том же процессе на тестовых файлах: премьеры с большим запасом билетов
+    private static final class EmbeddedServer implements AutoCloseable {
+        private final FinanceManager financeManager;
+        private final PersistenceService persistenceService;
+        private final ReportService reportService;
+        private final BoxOfficeServer server;
+        private final String[] premiereIds;
+
+        private EmbeddedServer(int premieres, int workers) throws IOException {
+            for (String file : TEST_FILES) {
+                BenchmarkData.backup(file);
+            }
+            PremiereManager premiereManager = new PremiereManager(true);
+            premiereManager.clearPremieres();
+            premiereIds = new String[premieres];
+            ZonedDateTime date = ZonedDateTime.of(2025, 6, 1, 19, 0, 0, 0, ZoneId.of("UTC"));
+            for (int i = 0; i < premieres; i++) {
+                premiereIds[i] = "load" + i;
+                premiereManager.addPremiere(new Premiere(premiereIds[i], "Нагрузка " + i, date, "Зал " + i, 10_000_000, 1000));
+            }
+            financeManager = new FinanceManager(true);
+            financeManager.clearData(false);
+            persistenceService = new PersistenceService(financeManager, premiereManager, 200);
+            reportService = new ReportService(financeManager, 16);
+            server = new BoxOfficeServer(premiereManager, financeManager, persistenceService, reportService,
+                    "localhost", 0, workers);
+            server.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            reportService.close();
+            persistenceService.close();
+            for (String id : premiereIds) {
+                Files.deleteIfExists(Paths.get(id + "_testReviews.log"));
+                Files.deleteIfExists(Paths.get(id + "_testReviews.idx"));
+            }
+            for (String file : TEST_FILES) {
+                BenchmarkData.restore(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package movie_platform.benchmark;
+
+import movie_platform.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Формат премьер "dd.MM.yyyy HH:mm z": форматтер на каждый вызов (как было), общий форматтер и быстрый путь
+// DateUtils; то же для разбора. Плюс зона по месту проведения: прежний switch с ZoneId.of против кэша.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateFormatBenchmark {
+
+    private static final int SIZE = 1024; // Степень двойки: индекс берётся маской
+    private static final String[] LOCATIONS = {"Берлин", " London ", "Токио", "Москва", "Нью-Йорк", "Kyiv"};
+    private static final String[] ZONES = {"Europe/Berlin", "Europe/London", "Asia/Tokyo", "Europe/Moscow",
+            "America/New_York", "Europe/Kyiv"};
+
+    private final ZonedDateTime[] dates = new ZonedDateTime[SIZE];
+    private final String[] texts = new String[SIZE];
+    private final StringBuilder builder = new StringBuilder(32);
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        for (int i = 0; i < SIZE; i++) {
+            LocalDateTime local = LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(random.nextInt(10 * 365 * 24 * 60));
+            dates[i] = ZonedDateTime.of(local, ZoneId.of(ZONES[i % ZONES.length]));
+            texts[i] = DateUtils.formatDateTimeZone(dates[i]);
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public String formatNewFormatter() {
+        return dates[next()].format(DateTimeFormatter.ofPattern(DateUtils.DATE_TIME_ZONE_PATTERN, Locale.ENGLISH));
+    }
+
+    @Benchmark
+    public String formatSharedFormatter() {
+        return dates[next()].format(DateUtils.DATE_TIME_ZONE);
+    }
+
+    // Дописывание в переиспользуемый буфер, как при выгрузке premieres.txt
+    @Benchmark
+    public int formatFastPath() {
+        builder.setLength(0);
+        return DateUtils.appendDateTimeZone(builder, dates[next()]).length();
+    }
+
+    @Benchmark
+    public ZonedDateTime parseNewFormatter() {
+        return ZonedDateTime.parse(texts[next()], DateTimeFormatter.ofPattern(DateUtils.DATE_TIME_ZONE_PATTERN, Locale.ENGLISH));
+    }
+
+    @Benchmark
+    public ZonedDateTime parseSharedFormatter() {
+        return ZonedDateTime.parse(texts[next()], DateUtils.DATE_TIME_ZONE);
+    }
+
+    @Benchmark
+    public ZonedDateTime parseFastPath() {
+        return DateUtils.parseDateTimeZone(texts[next()]);
+    }
+
+    // Прежний DateUtils.getZoneIdByLocation: нормализация и ZoneId.of на каждый вызов
+    @Benchmark
+    public ZoneId zoneBySwitch() {
+        return switch (LOCATIONS[next() % LOCATIONS.length].trim().toLowerCase()) {
+            case "лондон", "london" -> ZoneId.of("Europe/London");
+            case "нью-йорк", "new york" -> ZoneId.of("America/New_York");
+            case "токио", "tokyo" -> ZoneId.of("Asia/Tokyo");
+            case "берлин", "berlin" -> ZoneId.of("Europe/Berlin");
+            case "москва", "moscow" -> ZoneId.of("Europe/Moscow");
+            case "киев", "kiev", "kyiv" -> ZoneId.of("Europe/Kyiv");
+            default -> ZoneId.systemDefault();
+        };
+    }
+
+    @Benchmark
+    public ZoneId zoneByCache() {
+        return DateUtils.getZoneIdByLocation(LOCATIONS[next() % LOCATIONS.length]);
+    }
+}
@@ -0,0 +1,84 @@
+package movie_platform.benchmark;
+
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceColumnStore;
+import movie_platform.model.FinanceRecord;
+import movie_platform.repository.FinanceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Колоночное хранилище: загрузка снимка в колонки и сумма доходов по колонкам против прохода по объектам
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinanceColumnStoreBenchmark {
+
+    private static final String FILE_NAME = "test_finance_records.csv";
+    private static final String SNAPSHOT_FILE_NAME = "test_finance_records.bin";
+    private static final Set<FinanceType> INCOME_TYPES = EnumSet.of(FinanceType.INCOME, FinanceType.SPONSORSHIP, FinanceType.CREDIT);
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private final FinanceRepository repository = new FinanceRepository();
+    private List<FinanceRecord> records;
+    private FinanceColumnStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        BenchmarkData.backup(FILE_NAME);
+        BenchmarkData.backup(SNAPSHOT_FILE_NAME);
+        BenchmarkData.writeFinanceCsv(Paths.get(FILE_NAME), size);
+        records = repository.loadCsv(Paths.get(FILE_NAME));
+        repository.saveSnapshot(records, true);
+        store = FinanceColumnStore.of(records);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restore(FILE_NAME);
+        BenchmarkData.restore(SNAPSHOT_FILE_NAME);
+    }
+
+    @Benchmark
+    public FinanceColumnStore loadColumnStore() {
+        return repository.loadColumnStore(true);
+    }
+
+    @Benchmark
+    public long sumIncomeColumns() {
+        return store.sumCents(INCOME_TYPES);
+    }
+
+    @Benchmark
+    public long sumIncomeRecords() {
+        long sum = 0;
+        for (FinanceRecord record : records) {
+            if (INCOME_TYPES.contains(record.getType())) {
+                sum += Math.round(record.getAmount() * 100);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,67 @@
+package movie_platform.benchmark;
+
+import movie_platform.manager.FinanceManager;
+import movie_platform.model.FinanceReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Построение финансового отчёта: снимок в памяти (createReport) и полный отчёт с консолью и PDF
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinanceReportBenchmark {
+
+    private static final String CSV_FILE = "test_finance_records.csv";
+    private static final String SNAPSHOT_FILE = "test_finance_records.bin";
+    private static final String PDF_FILE = "test_finance_report.pdf";
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private FinanceManager financeManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        BenchmarkData.backup(CSV_FILE);
+        BenchmarkData.backup(SNAPSHOT_FILE);
+        BenchmarkData.backup(PDF_FILE);
+        BenchmarkData.writeFinanceCsv(Paths.get(CSV_FILE), size);
+        financeManager = new FinanceManager(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restore(CSV_FILE);
+        BenchmarkData.restore(SNAPSHOT_FILE);
+        BenchmarkData.restore(PDF_FILE);
+    }
+
+    @Benchmark
+    public FinanceReport createReport() {
+        return financeManager.createReport();
+    }
+
+    @Benchmark
+    public FinanceManager generateFinanceReport() {
+        financeManager.generateFinanceReport(true);
+        return financeManager;
+    }
+}
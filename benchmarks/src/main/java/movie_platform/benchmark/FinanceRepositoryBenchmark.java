@@ -0,0 +1,64 @@
+package movie_platform.benchmark;
+
+import movie_platform.model.FinanceRecord;
+import movie_platform.repository.FinanceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка финансовых записей: двоичный снимок (FinanceRepository.loadRecords) и CSV (loadCsv)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinanceRepositoryBenchmark {
+
+    private static final String FILE_NAME = "test_finance_records.csv";
+    private static final String SNAPSHOT_FILE_NAME = "test_finance_records.bin";
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private final FinanceRepository repository = new FinanceRepository();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        BenchmarkData.backup(FILE_NAME);
+        BenchmarkData.backup(SNAPSHOT_FILE_NAME);
+        BenchmarkData.writeFinanceCsv(Paths.get(FILE_NAME), size);
+        repository.saveSnapshot(repository.loadCsv(Paths.get(FILE_NAME)), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restore(FILE_NAME);
+        BenchmarkData.restore(SNAPSHOT_FILE_NAME);
+    }
+
+    @Benchmark
+    public List<FinanceRecord> loadRecords() {
+        return repository.loadRecords(true);
+    }
+
+    @Benchmark
+    public List<FinanceRecord> loadCsv() {
+        return repository.loadCsv(Paths.get(FILE_NAME));
+    }
+}
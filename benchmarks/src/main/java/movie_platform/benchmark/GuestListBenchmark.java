@@ -0,0 +1,93 @@
+package movie_platform.benchmark;
+
+import movie_platform.model.Premiere;
+import movie_platform.repository.PremiereRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Список гостей: двоичный формат GuestListFile против прежней сериализации Java
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuestListBenchmark {
+
+    private static final String PREMIERE_ID = "bench";
+    private static final Path LEGACY_FILE = Paths.get("bench_guests.ser");
+
+    @Param({"1000", "50000", "1000000"})
+    private int size;
+
+    private final PremiereRepository repository = new PremiereRepository();
+    private Premiere premiere;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.silenceConsole();
+        List<String> guests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            guests.add("Гость №" + i + " Иванов");
+        }
+        premiere = new Premiere(PREMIERE_ID, "Бенчмарк", ZonedDateTime.now(ZoneId.of("UTC")), "IMAX", 100, 1000);
+        premiere.setGuestList(guests);
+        repository.saveGuestsToFile(premiere, true);
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(LEGACY_FILE))) {
+            oos.writeObject(guests);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(PremiereRepository.guestPath(PREMIERE_ID, true));
+        Files.deleteIfExists(LEGACY_FILE);
+    }
+
+    @Benchmark
+    public Premiere saveGuests() {
+        repository.saveGuestsToFile(premiere, true);
+        return premiere;
+    }
+
+    @Benchmark
+    public List<String> loadGuests() {
+        repository.loadGuestsFromFile(premiere, true);
+        return premiere.getGuestList();
+    }
+
+    @Benchmark
+    public Object loadGuestsLegacySerialization() {
+        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(LEGACY_FILE))) {
+            return ois.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package movie_platform.benchmark;
+
+import movie_platform.manager.MovieManager;
+import movie_platform.model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Удаление фильма из MovieManager. Удалённый фильм сразу добавляется обратно,
+// чтобы размер каталога не менялся между вызовами.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private MovieManager movieManager;
+    private List<Movie> movies;
+    private int next; // Фильмы удаляются по кругу, чтобы задеть весь каталог
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        movies = BenchmarkData.movies(size);
+        movieManager = new MovieManager();
+        for (Movie movie : movies) {
+            movieManager.addMovie(movie);
+        }
+    }
+
+    @Benchmark
+    public MovieManager removeMovie() {
+        Movie movie = movies.get(next);
+        next = (next + 1) % movies.size();
+        movieManager.removeMovie(movie.getId());
+        movieManager.addMovie(movie);
+        return movieManager;
+    }
+}
@@ -0,0 +1,104 @@
+package movie_platform.benchmark;
+
+import movie_platform.manager.MovieManager;
+import movie_platform.model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Полнотекстовый поиск MovieManager по каталогу с актёрами и продюсерами: запросы из слов каталога
+// (частые и редкие слова, начало слова, имя актёра), подсказки и изменение фильма с переиндексацией.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class MovieSearchBenchmark {
+
+    private static final int QUERIES = 256;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private MovieManager movieManager;
+    private List<Movie> movies;
+    private final String[] wordQueries = new String[QUERIES];
+    private final String[] prefixQueries = new String[QUERIES];
+    private final String[] phraseQueries = new String[QUERIES];
+    private final String[] actorQueries = new String[QUERIES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        movies = BenchmarkData.moviesWithCast(size);
+        movieManager = new MovieManager();
+        for (Movie movie : movies) {
+            movieManager.addMovie(movie);
+        }
+        // Запросы строятся из случайных фильмов каталога, поэтому всегда что-то находят
+        for (int i = 0; i < QUERIES; i++) {
+            Movie movie = movies.get((int) ((long) i * 7919 % size));
+            String[] title = movie.getTitle().split(" ");
+            String word = title[title.length - 1];
+            wordQueries[i] = word + " ";
+            prefixQueries[i] = word.substring(0, Math.min(2, word.length())).toLowerCase(Locale.ROOT);
+            phraseQueries[i] = title.length > 1
+                    ? title[0] + " " + title[1].substring(0, Math.min(3, title[1].length())) : word;
+            actorQueries[i] = movie.getActors().get(0);
+        }
+    }
+
+    private int next() {
+        return next = (next + 1) & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public List<Movie> searchWord() {
+        return movieManager.searchMovies(wordQueries[next()], 10);
+    }
+
+    // Ввод по мере набора: два первых символа слова
+    @Benchmark
+    public List<Movie> searchShortPrefix() {
+        return movieManager.searchMovies(prefixQueries[next()], 10);
+    }
+
+    @Benchmark
+    public List<Movie> searchPhrase() {
+        return movieManager.searchMovies(phraseQueries[next()], 10);
+    }
+
+    @Benchmark
+    public List<Movie> searchActor() {
+        return movieManager.searchMovies(actorQueries[next()], 10);
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return movieManager.suggestWords(prefixQueries[next()], 10);
+    }
+
+    // Добавление и удаление актёра: фильм дважды переиндексируется
+    @Benchmark
+    public MovieManager updateCast() {
+        Movie movie = movies.get(next() * 31 % size);
+        movie.addActor("Актёр Бенчмарка");
+        movie.removeActor("Актёр Бенчмарка");
+        return movieManager;
+    }
+}
@@ -0,0 +1,56 @@
+package movie_platform.benchmark;
+
+import movie_platform.model.Premiere;
+import movie_platform.repository.PremiereRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка premieres.txt (PremiereRepository.loadPremiereFromFile)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PremiereRepositoryBenchmark {
+
+    // У загрузчика премьер нет тестового режима, поэтому рабочий файл временно откладывается
+    private static final String FILE_NAME = "premieres.txt";
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private final PremiereRepository repository = new PremiereRepository();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        BenchmarkData.backup(FILE_NAME);
+        BenchmarkData.writePremieres(Paths.get(FILE_NAME), size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.restore(FILE_NAME);
+    }
+
+    @Benchmark
+    public Map<String, Premiere> loadPremiereFromFile() {
+        return repository.loadPremiereFromFile();
+    }
+}
@@ -0,0 +1,107 @@
+package movie_platform.benchmark;
+
+import movie_platform.enums.FinanceAggregation;
+import movie_platform.manager.FinanceManager;
+import movie_platform.manager.PremiereManager;
+import movie_platform.model.Premiere;
+import movie_platform.model.TicketOrder;
+import movie_platform.model.TicketOrderResult;
+import movie_platform.service.PersistenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Пакетная продажа билетов (PersistenceService.sellTicketsBatch): один пакет — одна пачка журнала продаж
+// с одним fsync. Для сравнения — те же заказы отдельными транзакционными продажами (fsync на каждую).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketBatchBenchmark {
+
+    private static final String[] TEST_FILES = {"test_premieres.dat", "test_sales.txlog", "test_finance_records.csv",
+            "test_finance_records.bin", "test_finance_records.journal"};
+    private static final int PREMIERES = 64;
+
+    @Param({"1000", "100000"})
+    private int orders;
+
+    private PremiereManager premiereManager;
+    private PersistenceService persistenceService;
+    private List<TicketOrder> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceConsole();
+        for (String file : TEST_FILES) {
+            BenchmarkData.backup(file);
+        }
+        premiereManager = new PremiereManager(true);
+        premiereManager.clearPremieres();
+        ZonedDateTime date = ZonedDateTime.of(2025, 6, 1, 19, 0, 0, 0, ZoneId.of("UTC"));
+        for (int i = 0; i < PREMIERES; i++) {
+            premiereManager.addPremiere(new Premiere("batch" + i, "Пакет " + i, date, "Зал " + i, Integer.MAX_VALUE / 2, 1000));
+        }
+        FinanceManager financeManager = new FinanceManager(true);
+        financeManager.clearData(false);
+        persistenceService = new PersistenceService(financeManager, premiereManager, 200);
+        Random random = new Random(BenchmarkData.SEED);
+        batch = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            batch.add(new TicketOrder("batch" + random.nextInt(PREMIERES), 1 + random.nextInt(4)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        persistenceService.close();
+        for (String file : TEST_FILES) {
+            BenchmarkData.restore(file);
+        }
+    }
+
+    @Benchmark
+    public List<TicketOrderResult> batchPerPremiere() {
+        return persistenceService.sellTicketsBatch(batch, FinanceAggregation.PER_PREMIERE);
+    }
+
+    @Benchmark
+    public List<TicketOrderResult> batchPerOrder() {
+        return persistenceService.sellTicketsBatch(batch, FinanceAggregation.PER_ORDER);
+    }
+
+    // Только для небольших пакетов: каждая продажа ждёт свой fsync
+    @Benchmark
+    public int individualSales() {
+        if (orders > 1000) {
+            return 0;
+        }
+        int sold = 0;
+        for (TicketOrder order : batch) {
+            Premiere premiere = premiereManager.getPremiereMap().get(order.premiereId());
+            if (persistenceService.sellTickets(premiere, order.count()) != null) {
+                sold++;
+            }
+        }
+        return sold;
+    }
+}
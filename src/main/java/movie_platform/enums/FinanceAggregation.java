@@ -0,0 +1,15 @@
+package movie_platform.enums;
+
+import lombok.Getter;
+
+// Как пакетная продажа билетов создаёт финансовые записи
+@Getter
+public enum FinanceAggregation {
+    PER_ORDER("Запись на каждый заказ"),
+    PER_PREMIERE("Одна запись на премьеру");
+    private final String description;
+
+    FinanceAggregation(String description) {
+        this.description = description;
+    }
+}
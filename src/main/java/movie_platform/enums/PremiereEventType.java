@@ -0,0 +1,16 @@
+package movie_platform.enums;
+
+import lombok.Getter;
+
+// События жизненного цикла премьеры (см. PremiereScheduler); при одинаковом времени срабатывают в этом порядке
+@Getter
+public enum PremiereEventType {
+    CLOSE_SALES("Закрытие продаж"),
+    GENERATE_REPORT("Отчёт о премьере"),
+    ARCHIVE("Архивирование гостей и отзывов");
+    private final String description;
+
+    PremiereEventType(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,20 @@
+package movie_platform.enums;
+
+import lombok.Getter;
+
+// Результат одного заказа пакетной продажи билетов
+@Getter
+public enum TicketOrderStatus {
+    SOLD("Продано"),
+    PREMIERE_NOT_FOUND("Премьера не найдена"),
+    INVALID_COUNT("Количество билетов должно быть больше 0"),
+    INVALID_PRICE("Цена билета не задана"),
+    SALES_CLOSED("Продажа билетов закрыта"),
+    NOT_ENOUGH_TICKETS("Недостаточно билетов"),
+    FAILED("Продажа не записана");
+    private final String description;
+
+    TicketOrderStatus(String description) {
+        this.description = description;
+    }
+}
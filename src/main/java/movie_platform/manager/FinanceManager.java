@@ -1,35 +1,64 @@
 package movie_platform.manager;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceColumnStore;
 import movie_platform.model.FinanceRecord;
+import movie_platform.model.FinanceReport;
 import movie_platform.model.Premiere;
+import movie_platform.repository.FinanceJournal;
 import movie_platform.repository.FinanceRepository;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Getter
 public class FinanceManager {
 
+    // Без геттера: записи читаются копией (getAllFinanceRecords), изменения идут только через add/remove,
+    // иначе рассинхронизировались бы журнал и итоги
+    @Getter(AccessLevel.NONE)
     private final List<FinanceRecord> financeRecords;
+    private final FinanceTotals totals = new FinanceTotals(); // Итоги по типам, обновляются при add/remove
+    private final FinanceTimeIndex timeIndex = new FinanceTimeIndex(); // Итоги по дням и месяцам, обновляются при add/remove
     private final FinanceRepository repository = new FinanceRepository();
-    private static final String FILE_NAME = "finance_records.csv";
+    private static final String PDF_FILE_NAME = "finance_report.pdf";
+    private static final int COMPACTION_THRESHOLD = 1000; // После стольких изменений журнал сворачивается в снимок
     private final boolean testMode;
+    private final FinanceJournal journal;
+    private final Object compactionLock = new Object(); // Одновременно выполняется только одно сворачивание
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    // Фоновый поток, который сворачивает журнал в снимок finance_records.bin
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "finance-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public FinanceManager(boolean testMode) {
         this.financeRecords = new ArrayList<>();
         this.testMode = testMode;
-        loadFinanceRecordsFromFile();  // Загружаем данные из файла при создании объекта
+        this.journal = new FinanceJournal(testMode);
+        loadFinanceRecordsFromFile();  // Загружаем снимок и журнал при создании объекта
+        if (journal.hasPendingEntries()) {
+            saveFinanceRecordsToFile(); // Сворачиваем журнал, оставшийся с прошлого запуска
+        }
     }
 
     // Конструктор по умолчанию (обычный режим)
@@ -39,26 +68,53 @@ public class FinanceManager {
 
     // Метод для очистки данных (если нужно сбросить все записи используется в тестах)
     public void clearData(boolean deleteFile) {
-        financeRecords.clear();
+        synchronized (this) {
+            financeRecords.clear();
+            totals.clear();
+            timeIndex.clear();
+        }
         if (deleteFile) {
-            String fileName;
-            if (testMode) {
-                fileName = "test_finance_records.csv";
-            } else {
-                fileName = "finance_records.csv";
-            }
-            try {
-                Files.deleteIfExists(Paths.get(fileName));
-                log.info("Файл {} успешно удалён.", fileName);
-            } catch (IOException e) {
-                log.error("Ошибка при удалении файла{}: {}", fileName, e.getMessage());
+            journal.reset();
+            for (Path file : List.of(FinanceRepository.snapshotPath(testMode), FinanceRepository.csvPath(testMode))) {
+                try {
+                    Files.deleteIfExists(file);
+                    log.info("Файл {} успешно удалён.", file);
+                } catch (IOException e) {
+                    log.error("Ошибка при удалении файла{}: {}", file, e.getMessage());
+                }
             }
         }
         saveFinanceRecordsToFile();
     }
 
     // Метод для добавления финансовой записи
-    public void addFinanceRecord(FinanceRecord record) {
+    public synchronized void addFinanceRecord(FinanceRecord record) {
+        validate(record);
+        timeIndex.add(record); // Индекс первым: список и итоги меняются, только если он принял запись
+        financeRecords.add(record);
+        totals.add(record);
+        log.info("Финансовая запись добавлена: {} ", record);
+        journal.appendAdd(record); // Дописываем одну строку в журнал вместо перезаписи всего CSV
+        scheduleCompactionIfNeeded();
+    }
+
+    // Добавление многих записей за один захват блокировки (пакетная продажа билетов, восстановление).
+    // Сначала проверяются все записи: при ошибке не добавляется ни одна.
+    public synchronized void addFinanceRecords(Collection<FinanceRecord> records) {
+        for (FinanceRecord record : records) {
+            validate(record);
+        }
+        for (FinanceRecord record : records) {
+            timeIndex.add(record);
+            financeRecords.add(record);
+            totals.add(record);
+        }
+        journal.appendAdds(records);
+        log.info("Добавлено финансовых записей: {}", records.size());
+        scheduleCompactionIfNeeded();
+    }
+
+    private static void validate(FinanceRecord record) {
         Objects.requireNonNull(record, "Финансовая запись не может быть null");
         // Проверка на сумму
         if (record.getAmount() <= 0) {
@@ -81,30 +137,98 @@ public class FinanceManager {
             log.warn("Ошибка: описание не может быть пустым.");
             throw new IllegalArgumentException("Описание не может быть пустым.");
         }
-
-        financeRecords.add(record);
-        log.info("Финансовая запись добавлена: {} ", record);
-        saveFinanceRecordsToFile();
     }
 
+    // Сворачивает журнал в снимок синхронно: после вызова finance_records.bin содержит все записи
     public void saveFinanceRecordsToFile() {
-        repository.saveRecords(financeRecords, testMode);
+        compactJournal();
+    }
+
+    // Выгружает текущие записи в finance_records.csv (CSV остаётся форматом обмена, снимок хранится в .bin)
+    public boolean exportFinanceRecordsToCsv() {
+        return repository.exportCsv(getAllFinanceRecords(), FinanceRepository.csvPath(testMode));
+    }
+
+    // Режим отложенной записи журнала: add/remove только накапливают строки в памяти,
+    // на диск их пачкой записывает flushJournal() (см. PersistenceService)
+    public void setJournalWriteBehind(boolean writeBehind) {
+        journal.setWriteBehind(writeBehind);
+    }
+
+    // Записывает накопленные изменения журнала одной операцией; fsync = true — с гарантией на диске
+    public int flushJournal(boolean fsync) {
+        return journal.flush(fsync);
+    }
+
+    // Записывает журнал с fsync для контрольной точки журнала продаж; false, если записать не удалось
+    public boolean checkpointJournal() {
+        journal.flush(true);
+        return journal.getPendingCount() == 0;
+    }
+
+    // Запускает фоновое сворачивание, когда журнал стал достаточно длинным
+    private void scheduleCompactionIfNeeded() {
+        if (journal.getEntryCount() >= COMPACTION_THRESHOLD && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    compactJournal();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
     }
 
-    public void loadFinanceRecordsFromFile() {
+    private void compactJournal() {
+        synchronized (compactionLock) {
+            List<FinanceRecord> snapshot;
+            // Копия списка и ротация журнала делаются атомарно относительно add/remove
+            synchronized (this) {
+                snapshot = new ArrayList<>(financeRecords);
+                journal.rotate();
+            }
+            // Журнал удаляется только после того, как снимок и его переименование записаны на диск (fsync)
+            if (repository.saveSnapshot(snapshot, testMode)) {
+                journal.finishCompaction();
+            }
+        }
+    }
+
+    // Загружает снимок (finance_records.bin, для старых данных — CSV) и применяет к нему журнал изменений
+    public synchronized void loadFinanceRecordsFromFile() {
         financeRecords.clear();
-        financeRecords.addAll(repository.loadRecords(testMode));
+        financeRecords.addAll(loadSnapshotWithJournal());
+        rebuildTotals();
+    }
+
+    private void rebuildTotals() {
+        totals.clear();
+        timeIndex.clear();
+        for (FinanceRecord record : financeRecords) {
+            totals.add(record);
+            timeIndex.add(record);
+        }
+    }
+
+    private List<FinanceRecord> loadSnapshotWithJournal() {
+        List<FinanceRecord> records = repository.loadRecords(testMode);
+        int replayed = journal.replay(records);
+        if (replayed > 0) {
+            log.info("Из журнала применено изменений: {}", replayed);
+        }
+        return records;
     }
 
     // Метод для проверки наличия записей
-    public boolean hasRecords() {
+    public synchronized boolean hasRecords() {
         if (financeRecords.isEmpty()) {
-            financeRecords.addAll(repository.loadRecords(testMode)); //  Загружаем из файла при вызове
+            financeRecords.addAll(loadSnapshotWithJournal()); //  Загружаем из файла при вызове
+            rebuildTotals();
         }
         return !financeRecords.isEmpty();  // Возвращаем true, если список не пустой
     }
 
-    public void removeFinanceRecord(String recordId) {
+    public synchronized void removeFinanceRecord(String recordId) {
         // Ищем запись с указанным ID
         FinanceRecord recordToRemove = null;
         for (FinanceRecord record : financeRecords) {
@@ -116,8 +240,11 @@ public class FinanceManager {
         // Если запись найдена, удаляем её
         if (recordToRemove != null) {
             financeRecords.remove(recordToRemove);
+            totals.remove(recordToRemove);
+            timeIndex.remove(recordToRemove);
             log.info("Финансовая запись с ID {} удалена. ", recordId);
-            saveFinanceRecordsToFile();
+            journal.appendRemove(recordId); // В журнал пишется надгробие
+            scheduleCompactionIfNeeded();
         } else {
             log.warn("Ошибка: Запись с ID {} не найдена.", recordId);
             throw new IllegalArgumentException("Запись с таким ID не найдена.");
@@ -125,57 +252,69 @@ public class FinanceManager {
     }
 
     // Метод для получения всех записей
-    public List<FinanceRecord> getAllFinanceRecords() {
+    public synchronized List<FinanceRecord> getAllFinanceRecords() {
         return new ArrayList<>(financeRecords);// Возвращаем копию списка, чтобы сохранить инкапсуляцию
     }
 
-    // Метод для вычисления общих расходов
-    public double calculateTotalExpenses() {
-        EnumSet<FinanceType> expenseTypes = EnumSet.of(
-                FinanceType.EXPENSE,
-                FinanceType.ADVERTISING,
-                FinanceType.CAST,
-                FinanceType.OTHER
-        );
+    // Копия текущих записей (снимок + журнал) в колоночном виде для аналитики
+    public synchronized FinanceColumnStore createColumnStore() {
+        return FinanceColumnStore.of(financeRecords);
+    }
 
-        return financeRecords.stream()
-                .filter(record -> expenseTypes.contains(record.getType()))
-                .mapToDouble(FinanceRecord::getAmount)
-                .sum();
+    // То же прямо из файлов (снимок + журнал), без копирования списка объектов: для больших объёмов.
+    // Отложенные строки журнала сначала записываются, чтобы хранилище совпало с текущими записями.
+    public FinanceColumnStore loadColumnStore() {
+        journal.flush(false);
+        return repository.loadColumnStore(testMode, journal);
     }
 
-    // Метод для вычисления общего дохода
-    public double calculateTotalIncome() {
-        EnumSet<FinanceType> incomeTypes = EnumSet.of(
-                FinanceType.INCOME,
-                FinanceType.SPONSORSHIP,
-                FinanceType.CREDIT
-        );
+    // Метод для вычисления общих расходов (O(1), по накопительным итогам)
+    public synchronized double calculateTotalExpenses() {
+        return totals.getTotalExpenses();
+    }
 
-        return financeRecords.stream()
-                .filter(record -> incomeTypes.contains(record.getType()))
-                .mapToDouble(FinanceRecord::getAmount)
-                .sum();
+    // Метод для вычисления общего дохода
+    public synchronized double calculateTotalIncome() {
+        return totals.getTotalIncome();
     }
 
     // Метод для получения суммы продаж билетов
-    public double getTicketSales() {
-        return financeRecords.stream()
-                .filter(record -> record.getType() == FinanceType.INCOME && record.getDescription().contains("Продажа билетов"))
-                .mapToDouble(FinanceRecord::getAmount)
-                .sum();
+    public synchronized double getTicketSales() {
+        return totals.getTicketSales();
     }
 
     // Метод для получения суммы возвратов билетов
-    public double getTicketRefunds() {
-        return financeRecords.stream()
-                .filter(record -> record.getType() == FinanceType.EXPENSE && record.getDescription().contains("Возврат билетов"))
-                .mapToDouble(FinanceRecord::getAmount)
-                .sum();
+    public synchronized double getTicketRefunds() {
+        return totals.getTicketRefunds();
+    }
+
+    // Доход за период [from, to] включительно (O(log n), по дереву Фенвика)
+    public synchronized double calculateIncome(LocalDate from, LocalDate to) {
+        return timeIndex.getIncome(from, to);
+    }
+
+    // Расходы за период [from, to] включительно
+    public synchronized double calculateExpenses(LocalDate from, LocalDate to) {
+        return timeIndex.getExpenses(from, to);
+    }
+
+    // Сумма записей одного типа за период [from, to] включительно
+    public synchronized double calculateTotal(FinanceType type, LocalDate from, LocalDate to) {
+        return timeIndex.getTotal(List.of(type), from, to);
+    }
+
+    // Доход по месяцам за период (месяцы без записей не включаются)
+    public synchronized SortedMap<YearMonth, Double> getMonthlyIncome(YearMonth from, YearMonth to) {
+        return timeIndex.monthlyTotals(FinanceTotals.INCOME_TYPES, from, to);
+    }
+
+    // Расходы по месяцам за период (месяцы без записей не включаются)
+    public synchronized SortedMap<YearMonth, Double> getMonthlyExpenses(YearMonth from, YearMonth to) {
+        return timeIndex.monthlyTotals(FinanceTotals.EXPENSE_TYPES, from, to);
     }
 
     // Пока не используется. Резервный метод для добавления бюджета для премьеры
-    public void addPremiereBudget(Premiere premiere, double budgetToAdd) {
+    public synchronized void addPremiereBudget(Premiere premiere, double budgetToAdd) {
         if (budgetToAdd <= 0) {
             log.warn("Ошибка: бюджет должен быть больше 0.");
             System.out.println("Ошибка: бюджет должен быть больше 0.");
@@ -194,62 +333,80 @@ public class FinanceManager {
         );
 
         financeRecords.add(record); // Добавляем запись в список финансовых операций
+        totals.add(record);
+        timeIndex.add(record);
         System.out.println("Финансовая запись добавлена: " + record);
     }
 
 
-    // Генерация финансового отчета в формате CSV
+    // Снимок данных для отчёта: копия записей и итоги из памяти, без чтения и записи файлов
+    public synchronized FinanceReport createReport() {
+        return new FinanceReport(financeRecords,
+                totals.getTotalIncome(),
+                totals.getTotalExpenses(),
+                totals.getTicketSales(),
+                totals.getTicketRefunds(),
+                totals.getTicketsSold(),
+                totals.getTicketsRefunded(),
+                timeIndex.monthlyTotals(FinanceTotals.INCOME_TYPES),
+                timeIndex.monthlyTotals(FinanceTotals.EXPENSE_TYPES));
+    }
+
+    // Генерация финансового отчета (консоль и PDF) по снимку данных в памяти.
+    // Выполняется в вызывающем потоке; чтобы не задерживать продажи, используйте ReportService.
     public void generateFinanceReport(boolean printToConsole) {
-        if (!hasRecords()) {
+        FinanceReport report = createReport();
+        if (report.getRecords().isEmpty()) {
             System.out.println("Отчет не может быть сгенерирован, так как нет записей для анализа.");
             return;
         }
+        try {
+            renderReport(report, printToConsole, getReportPath());
+            System.out.println("PDF-отчёт успешно сгенерирован: " + getReportPath());
+        } catch (IOException e) {
+            log.error("Ошибка при генерации PDF-отчёта: {}", e.getMessage());
+        }
+    }
 
-        List<FinanceRecord> records = repository.loadRecords(false); // Загружаем из файла для отчета
-
-        double income = calculateTotalIncome();
-        double expense = calculateTotalExpenses();
-        double result = income - expense;
-
-        double ticketSales = getTicketSales();
-        double ticketRefunds = getTicketRefunds();
+    // Выводит готовый снимок в консоль (по желанию) и в PDF-файл target
+    public void renderReport(FinanceReport report, boolean printToConsole, Path target) throws IOException {
+        if (printToConsole) {
+            printFinanceReport(report);
+        }
+        repository.writePDFReport(report.getRecords().iterator(), target);
+    }
 
-        int ticketsSold = 0;
-        int ticketsRefunded = 0;
-        double averageTicketPrice = 10.0;
+    public Path getReportPath() {
+        return Paths.get(testMode ? "test_finance_report.pdf" : PDF_FILE_NAME);
+    }
 
-        for (FinanceRecord record : records) {
-            if (record.getType() == FinanceType.INCOME && record.getDescription().contains("Продажа билетов")) {
-                ticketsSold += (int) (record.getAmount() / averageTicketPrice);
-            }
-            if (record.getType() == FinanceType.EXPENSE && record.getDescription().contains("Возврат билетов")) {
-                ticketsRefunded += (int) (record.getAmount() / averageTicketPrice);
-            }
+    // Вывод отчёта в консоль
+    public void printFinanceReport(FinanceReport report) {
+        System.out.println("=====Финансовый отчет=====");
+        for (FinanceRecord record : report.getRecords()) {
+            System.out.println(record);
         }
 
-        saveFinanceRecordsToFile();
-        repository.generatePDFReport(records);
-
-        if (printToConsole) {
-            System.out.println("=====Финансовый отчет=====");
-            for (FinanceRecord record : records) {
-                System.out.println(record);
+        System.out.println("================================");
+        System.out.println("Общий доход: " + report.getTotalIncome());
+        System.out.println("Общие расходы: " + report.getTotalExpenses());
+        System.out.println("Итоговая прибыль: " + report.getResult());
+        System.out.println("Продано билетов на сумму: " + report.getTicketsSold() + " на сумму: " + report.getTicketSales());
+        System.out.println("Возвращено билетов на сумму: " + report.getTicketsRefunded() + " на сумму: " + report.getTicketRefunds());
+        if (!report.getMonthlyIncome().isEmpty() || !report.getMonthlyExpenses().isEmpty()) {
+            System.out.println("------По месяцам (доход / расходы)------");
+            for (YearMonth month : report.getMonths()) {
+                System.out.println(month + ": " + report.getMonthlyIncome().getOrDefault(month, 0.0)
+                        + " / " + report.getMonthlyExpenses().getOrDefault(month, 0.0));
             }
-
-            System.out.println("================================");
-            System.out.println("Общий доход: " + income);
-            System.out.println("Общие расходы: " + expense);
-            System.out.println("Итоговая прибыль: " + result);
-            System.out.println("Продано билетов на сумму: " + ticketsSold + " на сумму: " + ticketSales);
-            System.out.println("Возвращено билетов на сумму: " + ticketsRefunded + " на сумму: " + ticketRefunds);
-            System.out.println("================================");
         }
-
-        System.out.println("Финансовый отчет успешно сохранен в " + FILE_NAME);
+        System.out.println("================================");
     }
 
     // Метод только для тестов — очищает список, но не файл
-    public void clearRecordsInMemory() {
+    public synchronized void clearRecordsInMemory() {
         financeRecords.clear();
+        totals.clear();
+        timeIndex.clear();
     }
 }
@@ -0,0 +1,206 @@
+package movie_platform.manager;
+
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceRecord;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Итоги финансовых записей по времени: дневные и месячные корзины по каждому FinanceType
+// и дерево Фенвика по дням для сумм за произвольный период [from, to] за O(log n).
+// Деревья строятся только по дням, в которых есть записи (сжатые координаты), а не по всему
+// диапазону дат: опечатка в годе (01.01.0001 рядом с 2025) не раздувает их до сотен мегабайт.
+// Обновляется при добавлении и удалении записи так же, как FinanceTotals; суммы хранятся в центах.
+public class FinanceTimeIndex {
+
+    private static final FinanceType[] TYPES = FinanceType.values();
+
+    private final NavigableMap<Long, Bucket> days = new TreeMap<>();       // epoch day -> итоги дня
+    private final NavigableMap<YearMonth, Bucket> months = new TreeMap<>(); // месяц -> итоги месяца
+    private final FenwickTree[] trees = new FenwickTree[TYPES.length];     // Отдельное дерево на тип
+    private long[] treeDays = new long[0]; // Отсортированные epoch day; индекс в массиве — индекс в деревьях
+    // Появился день, которого нет в treeDays: деревья перестраиваются при следующем запросе суммы,
+    // поэтому загрузка многих записей с новыми датами не перестраивает их на каждую запись
+    private boolean stale;
+
+    // Итоги одного дня или месяца: сумма по каждому типу и число записей
+    private static final class Bucket {
+        private final long[] cents = new long[TYPES.length];
+        private int records;
+    }
+
+    public void add(FinanceRecord record) {
+        apply(record, 1);
+    }
+
+    public void remove(FinanceRecord record) {
+        apply(record, -1);
+    }
+
+    public void clear() {
+        days.clear();
+        months.clear();
+        treeDays = new long[0];
+        stale = false;
+    }
+
+    private void apply(FinanceRecord record, int sign) {
+        long cents = sign * FinanceTotals.toCents(record.getAmount());
+        int type = record.getType().ordinal();
+        LocalDate date = record.getDate();
+        long day = date.toEpochDay();
+        update(days, day, type, cents, sign);
+        update(months, YearMonth.from(date), type, cents, sign);
+
+        if (stale) {
+            return; // Корзина дня уже обновлена, перестроенные деревья включат и эту запись
+        }
+        int index = Arrays.binarySearch(treeDays, day);
+        if (index < 0) {
+            stale = true;
+        } else {
+            trees[type].add(index, cents);
+        }
+    }
+
+    private static <K> void update(Map<K, Bucket> buckets, K key, int type, long cents, int sign) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+        bucket.cents[type] += cents;
+        bucket.records += sign;
+        if (bucket.records <= 0) {
+            buckets.remove(key); // Пустые корзины не храним
+        }
+    }
+
+    // Перестраивает деревья по дням, в которых сейчас есть записи: O(d) по числу таких дней
+    private void rebuild() {
+        treeDays = new long[days.size()];
+        int i = 0;
+        for (long day : days.keySet()) {
+            treeDays[i++] = day;
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            long[] values = new long[treeDays.length];
+            i = 0;
+            for (Bucket bucket : days.values()) {
+                values[i++] = bucket.cents[type];
+            }
+            trees[type] = new FenwickTree(values);
+        }
+        stale = false;
+    }
+
+    // Сумма в центах по типу за период [from, to] включительно, O(log n)
+    public long sumCents(FinanceType type, LocalDate from, LocalDate to) {
+        if (stale) {
+            rebuild();
+        }
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        int start = lowerBound(from.toEpochDay());         // Первый день дерева >= from
+        int end = lowerBound(to.toEpochDay() + 1) - 1;     // Последний день дерева <= to
+        if (start > end) {
+            return 0;
+        }
+        FenwickTree tree = trees[type.ordinal()];
+        return tree.prefixSum(end) - (start == 0 ? 0 : tree.prefixSum(start - 1));
+    }
+
+    // Индекс первого дня в treeDays, не меньшего day (treeDays.length, если такого нет)
+    private int lowerBound(long day) {
+        int index = Arrays.binarySearch(treeDays, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public double getTotal(Collection<FinanceType> types, LocalDate from, LocalDate to) {
+        long sum = 0;
+        for (FinanceType type : types) {
+            sum += sumCents(type, from, to);
+        }
+        return sum / 100.0;
+    }
+
+    public double getIncome(LocalDate from, LocalDate to) {
+        return getTotal(FinanceTotals.INCOME_TYPES, from, to);
+    }
+
+    public double getExpenses(LocalDate from, LocalDate to) {
+        return getTotal(FinanceTotals.EXPENSE_TYPES, from, to);
+    }
+
+    // Итоги по дням для выбранных типов (только дни, в которых есть записи)
+    public SortedMap<LocalDate, Double> dailyTotals(Collection<FinanceType> types, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Double> result = new TreeMap<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        days.subMap(from.toEpochDay(), true, to.toEpochDay(), true)
+                .forEach((day, bucket) -> result.put(LocalDate.ofEpochDay(day), sum(bucket, types)));
+        return result;
+    }
+
+    // Итоги по месяцам для выбранных типов (только месяцы, в которых есть записи)
+    public SortedMap<YearMonth, Double> monthlyTotals(Collection<FinanceType> types, YearMonth from, YearMonth to) {
+        SortedMap<YearMonth, Double> result = new TreeMap<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        months.subMap(from, true, to, true).forEach((month, bucket) -> result.put(month, sum(bucket, types)));
+        return result;
+    }
+
+    // Итоги по всем месяцам, в которых есть записи
+    public SortedMap<YearMonth, Double> monthlyTotals(Collection<FinanceType> types) {
+        if (months.isEmpty()) {
+            return new TreeMap<>();
+        }
+        return monthlyTotals(types, months.firstKey(), months.lastKey());
+    }
+
+    private static double sum(Bucket bucket, Collection<FinanceType> types) {
+        long sum = 0;
+        for (FinanceType type : types) {
+            sum += bucket.cents[type.ordinal()];
+        }
+        return sum / 100.0;
+    }
+
+    // Дерево Фенвика (двоичное индексированное дерево): изменение и префиксная сумма за O(log n)
+    private static final class FenwickTree {
+        private final long[] tree;
+
+        // Построение за O(n) из значений по индексам
+        private FenwickTree(long[] values) {
+            tree = new long[values.length + 1];
+            for (int i = 1; i <= values.length; i++) {
+                tree[i] += values[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= values.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        private void add(int index, long delta) {
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // Сумма значений с индексами 0..index
+        private long prefixSum(int index) {
+            long sum = 0;
+            for (int i = index + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
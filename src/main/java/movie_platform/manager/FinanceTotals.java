@@ -0,0 +1,119 @@
+package movie_platform.manager;
+
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceRecord;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+// Накопительные итоги по финансовым записям, обновляются за O(1) при добавлении и удалении.
+// Суммы хранятся в центах (long, фиксированная точка), поэтому итоги не "плывут"
+// после миллионов операций добавления/удаления, как это было бы с double.
+public class FinanceTotals {
+
+    public static final double AVERAGE_TICKET_PRICE = 10.0; // Средняя цена билета для подсчёта количества
+    public static final String TICKET_SALE = "Продажа билетов";
+    public static final String TICKET_REFUND = "Возврат билетов";
+
+    static final EnumSet<FinanceType> INCOME_TYPES = EnumSet.of(
+            FinanceType.INCOME,
+            FinanceType.SPONSORSHIP,
+            FinanceType.CREDIT
+    );
+    static final EnumSet<FinanceType> EXPENSE_TYPES = EnumSet.of(
+            FinanceType.EXPENSE,
+            FinanceType.ADVERTISING,
+            FinanceType.CAST,
+            FinanceType.OTHER
+    );
+
+    private final long[] centsByType = new long[FinanceType.values().length]; // Сумма по каждому типу
+    private long ticketSalesCents;   // Сумма продаж билетов
+    private long ticketRefundsCents; // Сумма возвратов билетов
+    private long ticketsSold;        // Количество проданных билетов
+    private long ticketsRefunded;    // Количество возвращённых билетов
+
+    public void add(FinanceRecord record) {
+        apply(record, 1);
+    }
+
+    public void remove(FinanceRecord record) {
+        apply(record, -1);
+    }
+
+    public void clear() {
+        Arrays.fill(centsByType, 0);
+        ticketSalesCents = 0;
+        ticketRefundsCents = 0;
+        ticketsSold = 0;
+        ticketsRefunded = 0;
+    }
+
+    private void apply(FinanceRecord record, int sign) {
+        long cents = toCents(record.getAmount());
+        centsByType[record.getType().ordinal()] += sign * cents;
+        if (isTicketSale(record)) {
+            ticketSalesCents += sign * cents;
+            ticketsSold += sign * ticketCount(record);
+        } else if (isTicketRefund(record)) {
+            ticketRefundsCents += sign * cents;
+            ticketsRefunded += sign * ticketCount(record);
+        }
+    }
+
+    public static boolean isTicketSale(FinanceRecord record) {
+        return record.getType() == FinanceType.INCOME && record.getDescription().contains(TICKET_SALE);
+    }
+
+    public static boolean isTicketRefund(FinanceRecord record) {
+        return record.getType() == FinanceType.EXPENSE && record.getDescription().contains(TICKET_REFUND);
+    }
+
+    private static int ticketCount(FinanceRecord record) {
+        return (int) (record.getAmount() / AVERAGE_TICKET_PRICE);
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+
+    public double getTotal(FinanceType type) {
+        return fromCents(centsByType[type.ordinal()]);
+    }
+
+    public double getTotalIncome() {
+        return fromCents(sumCents(INCOME_TYPES));
+    }
+
+    public double getTotalExpenses() {
+        return fromCents(sumCents(EXPENSE_TYPES));
+    }
+
+    private long sumCents(EnumSet<FinanceType> types) {
+        long sum = 0;
+        for (FinanceType type : types) {
+            sum += centsByType[type.ordinal()];
+        }
+        return sum;
+    }
+
+    public double getTicketSales() {
+        return fromCents(ticketSalesCents);
+    }
+
+    public double getTicketRefunds() {
+        return fromCents(ticketRefundsCents);
+    }
+
+    public long getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public long getTicketsRefunded() {
+        return ticketsRefunded;
+    }
+}
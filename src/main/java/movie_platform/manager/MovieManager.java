@@ -1,25 +1,46 @@
 package movie_platform.manager;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import movie_platform.enums.MovieGenre;
 import movie_platform.enums.MovieStatus;
 import movie_platform.model.Movie;
+import movie_platform.repository.ParallelChunkLoader;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 @Getter
 @Setter
 @Slf4j
-public class MovieManager {
-    private List<Movie> movies;
+public class MovieManager implements Movie.IndexListener {
+    // Индекс фильмов по ID. LinkedHashMap сохраняет порядок добавления для getMovies() и printAllMovies()
+    private final Map<String, Movie> movies;
+    // Вторичные индексы: жанр/статус -> ID фильмов
+    @Getter(AccessLevel.NONE)
+    private final Map<MovieGenre, Set<String>> genreIndex = new EnumMap<>(MovieGenre.class);
+    @Getter(AccessLevel.NONE)
+    private final Map<MovieStatus, Set<String>> statusIndex = new EnumMap<>(MovieStatus.class);
+    // Полнотекстовый индекс по названиям, актёрам и продюсерам
+    @Getter(AccessLevel.NONE)
+    private final MovieSearchIndex searchIndex = new MovieSearchIndex();
     private static final String FILE_NAME = "movie.txt";
 
     // Конструктор инициализирует список фильмов
     public MovieManager() {
-        this.movies = new ArrayList<>();
+        this.movies = new LinkedHashMap<>();
     }
 
     // Метод для добавления фильма в список
@@ -29,7 +50,22 @@ public class MovieManager {
             log.warn("Попытка добавить null-фильм.");
             return;
         }
-        movies.add(movie);
+        if (movies.containsKey(movie.getId())) {
+            System.out.println("Фильм с ID " + movie.getId() + " уже существует.");
+            log.warn("Фильм с ID {} уже существует, добавление пропущено.", movie.getId());
+            return;
+        }
+        movies.put(movie.getId(), movie);
+        index(movie);
+        searchIndex.add(movie);
+    }
+
+    // Метод для поиска фильма по ID (O(1) по индексу)
+    public Movie findMovieById(String movieId) {
+        if (movieId == null) {
+            return null;
+        }
+        return movies.get(movieId);
     }
 
     // Метод для удаления фильма по ID
@@ -39,15 +75,10 @@ public class MovieManager {
             log.warn("Попытка удалить фильм с пустым ID.");
             return;
         }
-        Movie movieToRemove = null;
-        for (Movie movie : movies) {
-            if (movie.getId().equals(movieId)) {
-                movieToRemove = movie;
-                break;
-            }
-        }
+        Movie movieToRemove = movies.remove(movieId);
         if (movieToRemove != null) {
-            movies.remove(movieToRemove);
+            unindex(movieToRemove, movieToRemove.getGenre(), movieToRemove.getStatus());
+            searchIndex.remove(movieId);
             System.out.println("Фильм удалён: " + movieToRemove.getTitle());
             log.info("Фильм удалён: {}", movieToRemove.getTitle());
         } else {
@@ -64,13 +95,15 @@ public class MovieManager {
             log.warn("Попытка обновить null-фильм.");
             return;
         }
-        for (int i = 0; i < movies.size(); i++) {
-            if (movies.get(i).getId().equals(updatedMovie.getId())) {
-                movies.set(i, updatedMovie);
-                System.out.println("Фильм обновлён: " + updatedMovie.getTitle());
-                log.info("Фильм обновлён: {}", updatedMovie.getTitle());
-                return;
-            }
+        // replace() оставляет фильм на прежнем месте в порядке добавления
+        Movie previous = movies.replace(updatedMovie.getId(), updatedMovie);
+        if (previous != null) {
+            unindex(previous, previous.getGenre(), previous.getStatus());
+            index(updatedMovie);
+            searchIndex.add(updatedMovie); // Заменяет документ прежней версии фильма
+            System.out.println("Фильм обновлён: " + updatedMovie.getTitle());
+            log.info("Фильм обновлён: {}", updatedMovie.getTitle());
+            return;
         }
         System.out.println("Фильм с ID " + updatedMovie.getId() + " не найден.");
         log.warn("Фильм с ID {} для обновления не найден.", updatedMovie.getId());
@@ -81,7 +114,7 @@ public class MovieManager {
         if (movies.isEmpty()) {
             System.out.println("Список фильмов пуст.");
         } else {
-            for (Movie movie : movies) {
+            for (Movie movie : movies.values()) {
                 System.out.println("ID фильма: " + movie.getId());
                 System.out.println("Название: " + movie.getTitle());
                 System.out.println("Статус: " + movie.getStatus());
@@ -93,8 +126,8 @@ public class MovieManager {
     }
 
     public void saveMovies() {
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(FILE_NAME, false))) {// false - перезапись
-            for (Movie movie : movies) {
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(FILE_NAME, StandardCharsets.UTF_8, false))) {// false - перезапись
+            for (Movie movie : movies.values()) {
                 bufferedWriter.write(movie.getId() + ", " + movie.getTitle() + ", " + movie.getStatus() +", " + movie.getGenre());
                 bufferedWriter.newLine();
             }
@@ -106,38 +139,175 @@ public class MovieManager {
     }
 
     public void loadMovie() {
-        movies.clear(); // Очищаем список перед загрузкой
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(FILE_NAME))) {
-            String movieLine;
-            int lineNumber = 0;
-            while ((movieLine = bufferedReader.readLine()) != null) {
-                lineNumber++;
-                String[] parts = movieLine.split(", ");
-                if (parts.length >= 4){ // Если в строке минимум 4 элемента
-                    try {
-                        String id = parts[0].trim();
-                        String title = parts[1].trim();
-                        MovieStatus status = MovieStatus.valueOf(parts[2].trim());
-                        MovieGenre genre = MovieGenre.valueOf(parts[3].trim()); // Разбираем жанр
-
-                        Movie movie = new Movie(id, title, status, genre); // Вызываем правильный конструктор
-                        movies.add(movie);
-                    }catch (IllegalArgumentException exception){
-                        log.warn("Некорректный статус фильма: {} - {}", movieLine, lineNumber);
-                    }
-                }else {
-                    log.warn("Некорректная строка в файле: {} - {}", movieLine, lineNumber);
-                }
-            }
+        clearMovies(); // Очищаем список перед загрузкой
+        Path path = Paths.get(FILE_NAME);
+        if (!Files.exists(path)) {
+            log.error("Файл не найден: {}", FILE_NAME);
+            return;
+        }
+        try {
+            // Строки разбираются параллельно, фильмы добавляются в порядке файла
+            List<Movie> loaded = ParallelChunkLoader.loadLines(path, StandardCharsets.UTF_8, this::parseMovieLine);
+            loaded.forEach(this::addMovie);
             System.out.println("Фильмы успешно загружены.");
-        } catch (FileNotFoundException exception) {
-            log.error("Файл не найден: {}", exception.getMessage());
         } catch (IOException exception) {
             log.error("Ошибка чтения файла: {}", exception.getMessage());
         }
     }
 
+    // Разбор строки movie.txt; null, если строка некорректна
+    private Movie parseMovieLine(String movieLine, long lineNumber) {
+        String[] parts = movieLine.split(", ");
+        if (parts.length >= 4){ // Если в строке минимум 4 элемента
+            try {
+                String id = parts[0].trim();
+                String title = parts[1].trim();
+                MovieStatus status = MovieStatus.valueOf(parts[2].trim());
+                MovieGenre genre = MovieGenre.valueOf(parts[3].trim()); // Разбираем жанр
+
+                return new Movie(id, title, status, genre); // Вызываем правильный конструктор
+            }catch (IllegalArgumentException exception){
+                log.warn("Некорректный статус фильма: {} - {}", movieLine, lineNumber);
+            }
+        }else {
+            log.warn("Некорректная строка в файле: {} - {}", movieLine, lineNumber);
+        }
+        return null;
+    }
+
     public List<Movie> getMovies() {
-        return new ArrayList<>(movies);
+        return new ArrayList<>(movies.values());
+    }
+
+    // Заменяет все фильмы списком, перестраивая индекс
+    public void setMovies(List<Movie> movieList) {
+        clearMovies();
+        if (movieList != null) {
+            movieList.forEach(this::addMovie);
+        }
+    }
+
+    // Фильмы указанного жанра (по индексу, без просмотра всего списка)
+    public List<Movie> findMoviesByGenre(MovieGenre genre) {
+        return findMovies(genre == null ? Set.of() : Set.of(genre), null);
+    }
+
+    // Фильмы с указанным статусом
+    public List<Movie> findMoviesByStatus(MovieStatus status) {
+        return findMovies(null, status == null ? Set.of() : Set.of(status));
+    }
+
+    // Например, все IN_PROGRESS фильмы жанра DRAMA
+    public List<Movie> findMovies(MovieGenre genre, MovieStatus status) {
+        return findMovies(genre == null ? Set.of() : Set.of(genre), status == null ? Set.of() : Set.of(status));
+    }
+
+    // Поиск по нескольким условиям: внутри жанров и внутри статусов — ИЛИ, между ними — И.
+    // null означает "без ограничения". Наборы ID берутся из индексов и пересекаются,
+    // перебирается всегда меньший набор.
+    public List<Movie> findMovies(Collection<MovieGenre> genres, Collection<MovieStatus> statuses) {
+        Set<String> byGenre = genres == null ? null : union(genreIndex, genres);
+        Set<String> byStatus = statuses == null ? null : union(statusIndex, statuses);
+
+        Collection<String> ids;
+        if (byGenre == null && byStatus == null) {
+            ids = movies.keySet();
+        } else if (byGenre == null || byStatus == null) {
+            ids = byGenre != null ? byGenre : byStatus;
+        } else {
+            Set<String> smaller = byGenre.size() <= byStatus.size() ? byGenre : byStatus;
+            Set<String> larger = smaller == byGenre ? byStatus : byGenre;
+            ids = new ArrayList<>();
+            for (String id : smaller) {
+                if (larger.contains(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        List<Movie> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(movies.get(id));
+        }
+        return result;
+    }
+
+    // Полнотекстовый поиск по названию, актёрам и продюсерам: фильмы со всеми словами запроса,
+    // самые релевантные первыми. Регистр и диакритика не важны, последнее слово ищется по началу.
+    public List<Movie> searchMovies(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    // Подсказки для последнего слова запроса: слова из названий и имён с этим началом, частые первыми
+    public List<String> suggestWords(String prefix, int limit) {
+        return searchIndex.suggest(prefix, limit);
+    }
+
+    private static <K> Set<String> union(Map<K, Set<String>> index, Collection<K> keys) {
+        if (keys.size() == 1) {
+            K key = keys.iterator().next();
+            Set<String> ids = key == null ? null : index.get(key);
+            return ids != null ? ids : Set.of();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (K key : keys) {
+            Set<String> ids = key == null ? null : index.get(key);
+            if (ids != null) {
+                result.addAll(ids);
+            }
+        }
+        return result;
+    }
+
+    // Вызывается фильмом при изменении жанра или статуса (setGenre, setStatus, updateStatus)
+    @Override
+    public void onIndexedFieldChanged(Movie movie, MovieGenre oldGenre, MovieStatus oldStatus) {
+        if (movies.get(movie.getId()) != movie) {
+            return; // Фильм уже не принадлежит этому менеджеру
+        }
+        unindex(movie, oldGenre, oldStatus);
+        index(movie);
+    }
+
+    // Вызывается фильмом при изменении названия, актёров или продюсеров
+    @Override
+    public void onSearchFieldChanged(Movie movie) {
+        if (movies.get(movie.getId()) == movie) {
+            searchIndex.add(movie);
+        }
+    }
+
+    private void index(Movie movie) {
+        if (movie.getGenre() != null) {
+            genreIndex.computeIfAbsent(movie.getGenre(), key -> new LinkedHashSet<>()).add(movie.getId());
+        }
+        if (movie.getStatus() != null) {
+            statusIndex.computeIfAbsent(movie.getStatus(), key -> new LinkedHashSet<>()).add(movie.getId());
+        }
+        movie.setIndexListener(this);
+    }
+
+    private void unindex(Movie movie, MovieGenre genre, MovieStatus status) {
+        if (genre != null && genreIndex.containsKey(genre)) {
+            genreIndex.get(genre).remove(movie.getId());
+        }
+        if (status != null && statusIndex.containsKey(status)) {
+            statusIndex.get(status).remove(movie.getId());
+        }
+        if (movie.getIndexListener() == this) {
+            movie.setIndexListener(null);
+        }
+    }
+
+    private void clearMovies() {
+        for (Movie movie : movies.values()) {
+            if (movie.getIndexListener() == this) {
+                movie.setIndexListener(null);
+            }
+        }
+        movies.clear();
+        genreIndex.clear();
+        statusIndex.clear();
+        searchIndex.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,583 @@
+package movie_platform.manager;
+
+import movie_platform.model.Movie;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+// Полнотекстовый индекс фильмов MovieManager: названия, актёры и продюсеры.
+// Обратный индекс: слово -> номера документов (фильмов), где оно встречается. Прямой индекс: документ ->
+// его слова с полями; по нему считается релевантность найденного фильма и убираются его слова при изменении.
+// Слова приводятся к нижнему регистру без диакритики (é -> e, ё -> е), при этом й остаётся отдельной буквой.
+// Списки документов слова не упорядочены: документ удаляется обменом с последним, поэтому добавление,
+// изменение и удаление фильма не зависят от размера каталога.
+// Релевантность — сумма по словам запроса: вес поля (название 3, актёр 2, продюсер 1) * idf слова.
+// Недописанное последнее слово, совпавшее только по началу, весит вдвое меньше и получает idf всего
+// префикса: все его продолжения для пользователя равноценны. Слова индекса обходятся от дающих
+// наибольший вклад, и поиск останавливается, как только оставшиеся документы уже не могут попасть
+// в первые limit результатов.
+// Не потокобезопасен, как и MovieManager.
+final class MovieSearchIndex {
+
+    private static final int TITLE = 1;
+    private static final int ACTOR = 2;
+    private static final int PRODUCER = 4;
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final int SHORT_PREFIX = 2;     // Подсказки для префиксов до двух символов кэшируются
+    private static final int MAX_SUGGESTIONS = 20;
+
+    // Слово индекса и документы, в которых оно встречается
+    private static final class Term {
+        private final String text;    // Нормализованное слово
+        private final String display; // Слово в том виде, в каком встретилось впервые (для подсказок)
+        private int[] docs = new int[2];
+        private int size;
+        private int titleDocs; // Сколько документов содержат слово в названии и в именах актёров:
+        private int actorDocs; // по ним оценивается наибольший вес поля слова
+
+        private Term(String text, String display) {
+            this.text = text;
+            this.display = display;
+        }
+
+        // Добавляет документ и возвращает его позицию в списке
+        private int add(int doc, int fields) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            countFields(fields, 1);
+            docs[size] = doc;
+            return size++;
+        }
+
+        private void countFields(int fields, int delta) {
+            if ((fields & TITLE) != 0) {
+                titleDocs += delta;
+            }
+            if ((fields & ACTOR) != 0) {
+                actorDocs += delta;
+            }
+        }
+
+        private double maxFieldWeight() {
+            return titleDocs > 0 ? fieldWeight(TITLE) : actorDocs > 0 ? fieldWeight(ACTOR) : fieldWeight(PRODUCER);
+        }
+    }
+
+    private final TreeMap<String, Term> terms = new TreeMap<>(); // Упорядочен для поиска по началу слова
+    private final Map<String, Integer> docIds = new HashMap<>(); // ID фильма -> номер документа
+    private final Map<String, List<Term>> suggestionCache = new HashMap<>();
+    // Прямой индекс по номеру документа
+    private Movie[] movies = new Movie[16];
+    private Term[][] docTerms = new Term[16][];
+    private byte[][] docFields = new byte[16][];  // Поля, в которых встретилось слово (битовая маска)
+    private int[][] docPositions = new int[16][]; // Позиция документа в списке каждого своего слова
+    private int[] seen = new int[16];             // Номер запроса, в котором документ уже оценён
+    private int queryStamp;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int docCount;  // Выдано номеров документов
+    private int liveCount; // Фильмов в индексе
+
+    int size() {
+        return liveCount;
+    }
+
+    void add(Movie movie) {
+        if (docIds.containsKey(movie.getId())) {
+            remove(movie.getId());
+        }
+        Map<String, Token> tokens = new LinkedHashMap<>();
+        collect(tokens, movie.getTitle(), TITLE);
+        for (String actor : movie.getActors()) {
+            collect(tokens, actor, ACTOR);
+        }
+        for (String producer : movie.getProducer()) {
+            collect(tokens, producer, PRODUCER);
+        }
+
+        int doc = allocateDoc();
+        Term[] termsOfDoc = new Term[tokens.size()];
+        byte[] fields = new byte[tokens.size()];
+        int[] positions = new int[tokens.size()];
+        int i = 0;
+        for (Map.Entry<String, Token> entry : tokens.entrySet()) {
+            Term term = terms.computeIfAbsent(entry.getKey(), text -> new Term(text, entry.getValue().display));
+            termsOfDoc[i] = term;
+            fields[i] = (byte) entry.getValue().fields;
+            positions[i] = term.add(doc, fields[i]);
+            invalidateSuggestions(term.text);
+            i++;
+        }
+        movies[doc] = movie;
+        docTerms[doc] = termsOfDoc;
+        docFields[doc] = fields;
+        docPositions[doc] = positions;
+        docIds.put(movie.getId(), doc);
+        liveCount++;
+    }
+
+    void remove(String movieId) {
+        Integer doc = docIds.remove(movieId);
+        if (doc == null) {
+            return;
+        }
+        Term[] termsOfDoc = docTerms[doc];
+        int[] positions = docPositions[doc];
+        for (int i = 0; i < termsOfDoc.length; i++) {
+            removePosting(termsOfDoc[i], positions[i], docFields[doc][i]);
+        }
+        movies[doc] = null;
+        docTerms[doc] = null;
+        docFields[doc] = null;
+        docPositions[doc] = null;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+        liveCount--;
+    }
+
+    void clear() {
+        terms.clear();
+        docIds.clear();
+        suggestionCache.clear();
+        Arrays.fill(movies, null);
+        Arrays.fill(docTerms, null);
+        Arrays.fill(docFields, null);
+        Arrays.fill(docPositions, null);
+        freeCount = 0;
+        docCount = 0;
+        liveCount = 0;
+    }
+
+    // Фильмы, в которых встречаются все слова запроса, по убыванию релевантности. Последнее слово
+    // ищется и по началу ("звёздные во" найдёт "Звёздные войны"), если запрос не заканчивается пробелом.
+    List<Movie> search(String query, int limit) {
+        if (query == null || limit <= 0 || liveCount == 0) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        tokenize(query, (text, original) -> tokens.add(text));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        int count = tokens.size();
+        boolean lastIsPrefix = isWordChar(query.codePointBefore(query.length()));
+
+        // Для каждого слова запроса — подходящие слова индекса и их верхние оценки
+        Term[] exact = new Term[count];
+        Term[][] matches = new Term[count][];
+        double[] prefixIdf = new double[count]; // Для последнего слова, если оно ищется по началу
+        double[] maxBound = new double[count];
+        int driver = -1;
+        long driverCost = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            String token = tokens.get(i);
+            exact[i] = terms.get(token);
+            matches[i] = lastIsPrefix && i == count - 1 ? prefixTerms(token)
+                    : exact[i] == null ? new Term[0] : new Term[]{exact[i]};
+            if (matches[i].length == 0) {
+                return List.of();
+            }
+            long cost = 0;
+            for (Term term : matches[i]) {
+                cost += term.size;
+            }
+            if (lastIsPrefix && i == count - 1) {
+                prefixIdf[i] = idf(cost); // Сумма размеров списков — оценка числа документов сверху
+            }
+            for (Term term : matches[i]) {
+                maxBound[i] = Math.max(maxBound[i], bound(term, exact[i], prefixIdf[i]));
+            }
+            if (cost < driverCost) { // Кандидаты берутся из самого короткого списка
+                driver = i;
+                driverCost = cost;
+            }
+        }
+        double othersBound = 0;
+        for (int i = 0; i < count; i++) {
+            if (i != driver) {
+                othersBound += maxBound[i];
+            }
+        }
+
+        Term[] driverTerms = matches[driver];
+        double[] bounds = new double[driverTerms.length];
+        for (int i = 0; i < driverTerms.length; i++) {
+            bounds[i] = bound(driverTerms[i], exact[driver], prefixIdf[driver]);
+        }
+        IndexHeap order = new IndexHeap(bounds); // Слова с большей оценкой (редкие, точные) — первыми
+        TopDocs top = new TopDocs(Math.min(limit, liveCount));
+        int stamp = nextQueryStamp();
+        while (!order.isEmpty()) {
+            int next = order.poll();
+            double best = bounds[next] + othersBound;
+            // Сравнение строгое: при равной оценке в результат ещё может войти документ с меньшим номером
+            if (top.isFull() && best < top.minScore()) {
+                break; // Ни один ещё не оценённый документ не войдёт в результат
+            }
+            Term term = driverTerms[next];
+            for (int p = 0; p < term.size && !(top.isFull() && best < top.minScore()); p++) {
+                int doc = term.docs[p];
+                if (seen[doc] == stamp) {
+                    continue;
+                }
+                seen[doc] = stamp;
+                double score = score(doc, tokens, exact, prefixIdf);
+                if (score > 0) {
+                    top.offer(doc, score);
+                }
+            }
+        }
+        int[] docs = top.sortedDocs();
+        List<Movie> result = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            result.add(movies[doc]);
+        }
+        return result;
+    }
+
+    // Подсказки для последнего слова запроса: слова индекса с этим началом, самые частые первыми
+    List<String> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0 || !isWordChar(prefix.codePointBefore(prefix.length()))) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        tokenize(prefix, (text, original) -> tokens.add(text));
+        String token = tokens.get(tokens.size() - 1);
+        List<Term> top = token.length() <= SHORT_PREFIX
+                ? suggestionCache.computeIfAbsent(token, this::mostFrequent) : mostFrequent(token);
+        List<String> result = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && i < limit; i++) {
+            result.add(top.get(i).display);
+        }
+        return result;
+    }
+
+    // Приводит слово к виду индекса: нижний регистр, без диакритики, ё -> е, й сохраняется
+    static String fold(String word) {
+        boolean simple = true; // Латиница, кириллица без ё и цифры — достаточно нижнего регистра
+        for (int i = 0; i < word.length() && simple; i++) {
+            char c = word.charAt(i);
+            simple = c < 0x80 || (c >= 'А' && c <= 'я');
+        }
+        if (simple) {
+            return word.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Й раскладывается на и + кратку; в кириллице это отдельная буква, поэтому собираем обратно
+                int last = folded.length() - 1;
+                if (c == '\u0306' && last >= 0 && folded.charAt(last) == 'и') {
+                    folded.setCharAt(last, 'й');
+                }
+                continue;
+            }
+            folded.append(Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+
+    // Делит текст на слова (буквы и цифры) и передаёт нормализованное и исходное слово
+    static void tokenize(String text, BiConsumer<String, String> sink) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); ) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (isWordChar(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                String original = text.substring(start, i);
+                String folded = fold(original);
+                if (!folded.isEmpty()) {
+                    sink.accept(folded, original);
+                }
+                start = -1;
+            }
+            i += i < text.length() ? Character.charCount(codePoint) : 1;
+        }
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || Character.getType(codePoint) == Character.NON_SPACING_MARK;
+    }
+
+    // Слово и поля фильма, в которых оно встретилось
+    private static final class Token {
+        private final String display;
+        private int fields;
+
+        private Token(String display) {
+            this.display = display;
+        }
+    }
+
+    private static void collect(Map<String, Token> tokens, String text, int field) {
+        if (text != null) {
+            tokenize(text, (folded, original) -> tokens.computeIfAbsent(folded, key -> new Token(original)).fields |= field);
+        }
+    }
+
+    private Term[] prefixTerms(String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().toArray(new Term[0]);
+    }
+
+    private double idf(long documents) {
+        return Math.log(1 + (double) liveCount / documents);
+    }
+
+    // Вклад слова индекса в релевантность без учёта поля: точное совпадение или совпадение по началу
+    private double match(Term term, Term exact, double prefixIdf) {
+        return term == exact ? idf(term.size) : PREFIX_FACTOR * prefixIdf;
+    }
+
+    // Наибольший вклад слова индекса в релевантность — в самом весомом поле, где оно встречается
+    private double bound(Term term, Term exact, double prefixIdf) {
+        return term.maxFieldWeight() * match(term, exact, prefixIdf);
+    }
+
+    // Релевантность документа или 0, если в нём нет какого-то слова запроса
+    private double score(int doc, List<String> tokens, Term[] exact, double[] prefixIdf) {
+        Term[] termsOfDoc = docTerms[doc];
+        byte[] fields = docFields[doc];
+        double total = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = prefixIdf[i] > 0;
+            double best = 0;
+            for (int j = 0; j < termsOfDoc.length; j++) {
+                Term term = termsOfDoc[j];
+                if (term == exact[i] || (prefix && term.text.startsWith(tokens.get(i)))) {
+                    best = Math.max(best, fieldWeight(fields[j]) * match(term, exact[i], prefixIdf[i]));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static double fieldWeight(int fields) {
+        return (fields & TITLE) != 0 ? 3 : (fields & ACTOR) != 0 ? 2 : 1;
+    }
+
+    private List<Term> mostFrequent(String prefix) {
+        List<Term> top = new ArrayList<>(MAX_SUGGESTIONS + 1);
+        for (Term term : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (top.size() == MAX_SUGGESTIONS && term.size <= top.get(MAX_SUGGESTIONS - 1).size) {
+                continue;
+            }
+            int position = top.size();
+            while (position > 0 && top.get(position - 1).size < term.size) {
+                position--;
+            }
+            top.add(position, term);
+            if (top.size() > MAX_SUGGESTIONS) {
+                top.remove(MAX_SUGGESTIONS);
+            }
+        }
+        return top;
+    }
+
+    private void invalidateSuggestions(String text) {
+        if (!suggestionCache.isEmpty()) {
+            for (int length = 1; length <= SHORT_PREFIX && length <= text.length(); length++) {
+                suggestionCache.remove(text.substring(0, length));
+            }
+        }
+    }
+
+    private void removePosting(Term term, int position, int fields) {
+        term.countFields(fields, -1);
+        int last = --term.size;
+        if (position != last) {
+            int moved = term.docs[last];
+            term.docs[position] = moved;
+            Term[] termsOfMoved = docTerms[moved];
+            for (int i = 0; i < termsOfMoved.length; i++) {
+                if (termsOfMoved[i] == term) {
+                    docPositions[moved][i] = position;
+                    break;
+                }
+            }
+        }
+        if (term.size == 0) {
+            terms.remove(term.text);
+        }
+        invalidateSuggestions(term.text);
+    }
+
+    private int allocateDoc() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        if (docCount == movies.length) {
+            int capacity = docCount + (docCount >> 1);
+            movies = Arrays.copyOf(movies, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docFields = Arrays.copyOf(docFields, capacity);
+            docPositions = Arrays.copyOf(docPositions, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+        return docCount++;
+    }
+
+    private int nextQueryStamp() {
+        if (++queryStamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    // Двоичная куча номеров элементов по убыванию оценки
+    private static final class IndexHeap {
+        private final double[] keys;
+        private final int[] heap;
+        private int size;
+
+        private IndexHeap(double[] keys) {
+            this.keys = keys;
+            this.heap = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                heap[i] = i;
+            }
+            size = keys.length;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int poll() {
+            int top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            return top;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] > keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[heap[child]] <= keys[heap[i]]) {
+                    return;
+                }
+                int swap = heap[i];
+                heap[i] = heap[child];
+                heap[child] = swap;
+                i = child;
+            }
+        }
+    }
+
+    // Лучшие limit документов: куча с наименьшей оценкой в корне; при равной оценке выше меньший номер
+    private static final class TopDocs {
+        private final int[] docs;
+        private final double[] scores;
+        private int size;
+
+        private TopDocs(int limit) {
+            this.docs = new int[limit];
+            this.scores = new double[limit];
+        }
+
+        private boolean isFull() {
+            return size == docs.length;
+        }
+
+        private double minScore() {
+            return scores[0];
+        }
+
+        private void offer(int doc, double score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(docs[0], scores[0], doc, score)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        private int[] sortedDocs() {
+            int count = size;
+            while (size > 1) { // Пирамидальная сортировка: худший документ уходит в конец
+                int doc = docs[0];
+                double score = scores[0];
+                docs[0] = docs[--size];
+                scores[0] = scores[size];
+                docs[size] = doc;
+                scores[size] = score;
+                siftDown(0);
+            }
+            size = 0;
+            return Arrays.copyOf(docs, count);
+        }
+
+        private static boolean worse(int doc, double score, int otherDoc, double otherScore) {
+            return score < otherScore || (score == otherScore && doc > otherDoc);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(docs[i], scores[i], docs[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(docs[child + 1], scores[child + 1], docs[child], scores[child])) {
+                    child++;
+                }
+                if (!worse(docs[child], scores[child], docs[i], scores[i])) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -1,24 +1,53 @@
 package movie_platform.manager;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.TicketOrderStatus;
 import movie_platform.model.Premiere;
+import movie_platform.model.TicketOrder;
+import movie_platform.model.TicketOrderResult;
 import movie_platform.repository.PremiereRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+// Менеджер премьер для одновременной работы нескольких касс.
+// Поиск и обход премьер идут по ConcurrentHashMap без блокировок и никогда не ждут пишущих.
+// Продажа и возврат билетов атомарны внутри Premiere (CAS), а составные изменения одной премьеры
+// (гости, бюджет, несколько полей сразу) выполняются через updatePremiere под блокировкой её полосы:
+// разные премьеры почти всегда попадают в разные полосы и не мешают друг другу.
+// Наружу карта отдаётся только для чтения, а в файлы пишутся снимки премьер (Premiere.Snapshot),
+// взятые под той же блокировкой полосы, — составное изменение не попадёт в файл наполовину.
 @Slf4j
 @Getter
 public class PremiereManager {
+    private static final int LOCK_STRIPES = 64; // Степень двойки: номер полосы берётся маской от хеша ID
+
     // Карта, которая хранит премьеры, где ключ — это ID премьеры, а значение — сам объект Premiere
+    @Getter(AccessLevel.NONE)
     private final Map<String, Premiere> premiereMap;
     private final PremiereRepository repository = new PremiereRepository();
     private final boolean testMode;
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    // Сохранения выполняются по одному: снимок берётся под этой блокировкой, поэтому более позднее
+    // сохранение всегда пишет более поздний состав премьер и не может «удалить» только что добавленную
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock saveLock = new ReentrantLock();
 
     // Конструктор класса, который загружает данные о премьерах из файла при создании объекта
     public PremiereManager(boolean testMode) {
         this.testMode = testMode;
-        this.premiereMap = repository.loadPremiereFromFile();
+        this.premiereMap = new ConcurrentHashMap<>(repository.loadPremieres(testMode));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
     }
 
     // Конструктор по умолчанию (обычный режим)
@@ -26,6 +55,11 @@ public class PremiereManager {
         this(false);
     }
 
+    // Премьеры только для чтения; добавление и удаление — через addPremiere, removePremiereById, clearPremieres
+    public Map<String, Premiere> getPremiereMap() {
+        return Collections.unmodifiableMap(premiereMap);
+    }
+
     // Метод для добавления новой премьеры в список
     public void addPremiere(Premiere premiere) {
         if (premiere == null || premiere.getId() == null) {
@@ -37,8 +71,51 @@ public class PremiereManager {
         savePremieresToFile();
     }
 
-    public void savePremieresToFile() {
-        repository.savePremieresToFile(premiereMap, testMode);
+    // Сохраняет только новые и изменённые премьеры (см. Premiere.isDirty) и удаляет из файла
+    // отсутствующие в карте. Кассы во время сохранения продолжают работать: блокируется только
+    // следующее сохранение. Возвращает количество записанных премьер.
+    public int savePremieresToFile() {
+        saveLock.lock();
+        try {
+            return repository.savePremieres(new ArrayList<>(premiereMap.values()), this::snapshot, testMode);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    // Сохранение с fsync (контрольная точка журнала продаж); false, если записать не удалось
+    public boolean checkpointPremieres() {
+        saveLock.lock();
+        try {
+            return repository.checkpointPremieres(new ArrayList<>(premiereMap.values()), this::snapshot, testMode);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    // Полная выгрузка всех премьер в текстовый файл premieres.txt
+    public void exportPremieresToFile() {
+        saveLock.lock();
+        try {
+            List<Premiere.Snapshot> snapshots = new ArrayList<>(premiereMap.size());
+            for (Premiere premiere : premiereMap.values()) {
+                snapshots.add(snapshot(premiere));
+            }
+            repository.savePremieresToFile(snapshots, testMode);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    // Снимок сохраняемых полей премьеры под блокировкой её полосы
+    private Premiere.Snapshot snapshot(Premiere premiere) {
+        ReentrantLock lock = lockFor(premiere.getId());
+        lock.lock();
+        try {
+            return premiere.snapshot();
+        } finally {
+            lock.unlock();
+        }
     }
 
     //Метод для поиска премьеры по ID.
@@ -52,6 +129,64 @@ public class PremiereManager {
         return premiere;
     }
 
+    // Изменение премьеры под блокировкой её полосы. Возвращает результат action или null, если премьеры нет.
+    public <T> T updatePremiere(String id, Function<Premiere, T> action) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Premiere premiere = premiereMap.get(id);
+            return premiere == null ? null : action.apply(premiere);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Добавление гостя; false, если премьеры с таким ID нет
+    public boolean addGuest(String id, String guestName, boolean isGuestAge) {
+        Boolean found = updatePremiere(id, premiere -> {
+            premiere.addGuest(guestName, isGuestAge);
+            return true;
+        });
+        return found != null;
+    }
+
+    // Копия списка гостей: дальше её можно читать и сохранять без блокировки
+    public List<String> getGuestListSnapshot(String id) {
+        return updatePremiere(id, premiere -> new ArrayList<>(premiere.getGuestList()));
+    }
+
+    // Сохраняет копию списка гостей премьеры; файл пишется уже вне блокировки
+    public boolean saveGuestsToFile(String id) {
+        List<String> guests = getGuestListSnapshot(id);
+        if (guests == null) {
+            return false;
+        }
+        repository.saveGuestsToFile(id, guests, testMode);
+        return true;
+    }
+
+    // Пакетная проверка заказов: каждый заказ сверяется с остатком билетов в порядке списка, билеты
+    // успешных заказов списываются как ещё не записанные (см. Premiere.reserveTickets). Записывает их
+    // одной пачкой PersistenceService.sellTicketsBatch, он же отменяет списание, если запись не удалась.
+    public List<TicketOrderResult> reserveTickets(List<TicketOrder> orders) {
+        List<TicketOrderResult> results = new ArrayList<>(orders.size());
+        for (TicketOrder order : orders) {
+            Premiere premiere = order == null || order.premiereId() == null ? null : premiereMap.get(order.premiereId());
+            TicketOrderStatus status;
+            if (premiere == null) {
+                status = TicketOrderStatus.PREMIERE_NOT_FOUND;
+            } else if (order.count() <= 0) {
+                status = TicketOrderStatus.INVALID_COUNT;
+            } else if (premiere.getTicketPrice() <= 0) {
+                status = TicketOrderStatus.INVALID_PRICE;
+            } else {
+                status = premiere.reserveTickets(order.count()); // Без сообщений на каждый отклонённый заказ
+            }
+            results.add(new TicketOrderResult(order, status, premiere, null));
+        }
+        return results;
+    }
+
     //Метод для удаления премьеры по ID
     public void removePremiereById(String id) {
         Premiere premiere = premiereMap.remove(id);
@@ -64,6 +199,13 @@ public class PremiereManager {
         }
     }
 
+    // Удаляет все премьеры и сохраняет пустой список
+    public void clearPremieres() {
+        premiereMap.clear();
+        savePremieresToFile();
+        log.info("Все премьеры удалены.");
+    }
+
     // Метод для генерации отчета по всем премьерам
     public void generatePremiereReport() {
         if (premiereMap.isEmpty()) {
@@ -74,7 +216,11 @@ public class PremiereManager {
         log.info("Начало генерации отчетов для всех премьер.");
         for (Premiere premiere : premiereMap.values()) {
             try {
-                String report = premiere.generateReport();
+                // Отчёт читает список гостей, поэтому строится под блокировкой премьеры
+                String report = updatePremiere(premiere.getId(), Premiere::generateReport);
+                if (report == null) {
+                    continue; // Премьеру удалили во время построения отчёта
+                }
                 System.out.println(report); // Генерируем отчет для каждой премьеры
                 System.out.println("Отчет о премьере сгенерирован для: " + premiere.getMovieTitle());
                 log.info(report); // Логируем отчет о премьере
@@ -88,4 +234,9 @@ public class PremiereManager {
     public int getPremiereCount() {
         return premiereMap.size();
     }
-}
\ No newline at end of file
+
+    private ReentrantLock lockFor(String id) {
+        int hash = id == null ? 0 : id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,276 @@
+package movie_platform.model;
+
+import movie_platform.enums.FinanceType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Компактное хранение финансовых записей для аналитики: вместо объектов FinanceRecord —
+// параллельные массивы примитивов (тип, сумма в центах, день, код описания) и байты ID.
+// Около 27 байт на запись против 150+ у FinanceRecord, поэтому в несколько ГБ кучи помещаются
+// десятки миллионов записей. Суммы считаются простыми циклами по массивам без ветвлений.
+// Для поэлементного просмотра используется курсор (один объект на весь проход).
+// Класс не потокобезопасен.
+public class FinanceColumnStore {
+
+    private static final FinanceType[] TYPES = FinanceType.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types;
+    private long[] cents;
+    private int[] epochDays;
+    private int[] descriptionIds;
+    private int[] idOffsets;  // ID записи i — байты idBytes[idOffsets[i] .. idOffsets[i + 1])
+    private byte[] idBytes;   // ID в UTF-8 подряд
+    private int size;
+
+    private final List<String> dictionary;                 // Код описания -> описание
+    private final Map<String, Integer> dictionaryIndex;    // Описание -> код
+
+    public FinanceColumnStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public FinanceColumnStore(int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.types = new byte[initial];
+        this.cents = new long[initial];
+        this.epochDays = new int[initial];
+        this.descriptionIds = new int[initial];
+        this.idOffsets = new int[initial + 1];
+        this.idBytes = new byte[initial * 8];
+        this.dictionary = new ArrayList<>();
+        this.dictionaryIndex = new HashMap<>();
+    }
+
+    // Готовые колонки (например, прочитанные из finance_records.bin) используются без копирования
+    public static FinanceColumnStore ofColumns(byte[] types, long[] cents, int[] epochDays, int[] descriptionIds,
+                                               int[] idOffsets, byte[] idBytes, String[] dictionary) {
+        int count = types.length;
+        if (cents.length != count || epochDays.length != count || descriptionIds.length != count
+                || idOffsets.length != count + 1) {
+            throw new IllegalArgumentException("Колонки должны быть одинаковой длины.");
+        }
+        FinanceColumnStore store = new FinanceColumnStore(0);
+        store.types = types;
+        store.cents = cents;
+        store.epochDays = epochDays;
+        store.descriptionIds = descriptionIds;
+        store.idOffsets = idOffsets;
+        store.idBytes = idBytes;
+        store.size = count;
+        for (String description : dictionary) {
+            store.dictionaryIndex.put(description, store.dictionary.size());
+            store.dictionary.add(description);
+        }
+        return store;
+    }
+
+    public static FinanceColumnStore of(Collection<FinanceRecord> records) {
+        FinanceColumnStore store = new FinanceColumnStore(records.size());
+        records.forEach(store::add);
+        return store;
+    }
+
+    public void add(FinanceRecord record) {
+        byte[] id = record.getId().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(size + 1, idOffsets[size] + id.length);
+        types[size] = (byte) record.getType().ordinal();
+        cents[size] = Math.round(record.getAmount() * 100);
+        epochDays[size] = (int) record.getDate().toEpochDay();
+        descriptionIds[size] = dictionaryIndex.computeIfAbsent(record.getDescription(), description -> {
+            dictionary.add(description);
+            return dictionary.size() - 1;
+        });
+        System.arraycopy(id, 0, idBytes, idOffsets[size], id.length);
+        idOffsets[size + 1] = idOffsets[size] + id.length;
+        size++;
+    }
+
+    // Удаляет первую запись с указанным ID, сохраняя порядок остальных. O(n), как и удаление из списка.
+    public boolean remove(String recordId) {
+        int index = indexOf(recordId);
+        if (index < 0) {
+            return false;
+        }
+        int tail = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(cents, index + 1, cents, index, tail);
+        System.arraycopy(epochDays, index + 1, epochDays, index, tail);
+        System.arraycopy(descriptionIds, index + 1, descriptionIds, index, tail);
+
+        int idStart = idOffsets[index];
+        int idLength = idOffsets[index + 1] - idStart;
+        System.arraycopy(idBytes, idStart + idLength, idBytes, idStart, idOffsets[size] - idStart - idLength);
+        for (int i = index + 1; i <= size; i++) {
+            idOffsets[i - 1] = idOffsets[i] - idLength;
+        }
+        size--;
+        return true;
+    }
+
+    // Поиск по ID сравнением байтов, без создания строк
+    public int indexOf(String recordId) {
+        byte[] id = recordId.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < size; i++) {
+            int start = idOffsets[i];
+            if (idOffsets[i + 1] - start == id.length
+                    && Arrays.equals(idBytes, start, start + id.length, id, 0, id.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        dictionary.clear();
+        dictionaryIndex.clear();
+    }
+
+    // Сумма в центах по типам (ветвление заменено маской: запись другого типа даёт & 0)
+    public long sumCents(Collection<FinanceType> typesToSum) {
+        long[] typeMask = typeMask(typesToSum);
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += cents[i] & typeMask[types[i]];
+        }
+        return sum;
+    }
+
+    // Сумма в центах по типам и описаниям. Фильтр вызывается один раз на описание словаря, а не на запись.
+    public long sumCents(Collection<FinanceType> typesToSum, Predicate<String> descriptionFilter) {
+        long[] typeMask = typeMask(typesToSum);
+        long[] descriptionMask = new long[dictionary.size()];
+        for (int i = 0; i < descriptionMask.length; i++) {
+            descriptionMask[i] = descriptionFilter.test(dictionary.get(i)) ? -1L : 0L;
+        }
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += cents[i] & typeMask[types[i]] & descriptionMask[descriptionIds[i]];
+        }
+        return sum;
+    }
+
+    // Суммы по всем типам за один проход; индекс массива — FinanceType.ordinal()
+    public long[] sumCentsByType() {
+        long[] sums = new long[TYPES.length];
+        for (int i = 0; i < size; i++) {
+            sums[types[i]] += cents[i];
+        }
+        return sums;
+    }
+
+    public double getTotal(FinanceType type) {
+        return sumCents(List.of(type)) / 100.0;
+    }
+
+    private static long[] typeMask(Collection<FinanceType> typesToSum) {
+        long[] mask = new long[TYPES.length];
+        for (FinanceType type : typesToSum) {
+            mask[type.ordinal()] = -1L;
+        }
+        return mask;
+    }
+
+    public FinanceRecord get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне диапазона 0.." + (size - 1));
+        }
+        return new FinanceRecord(idAt(index), TYPES[types[index]], cents[index] / 100.0,
+                dictionary.get(descriptionIds[index]), LocalDate.ofEpochDay(epochDays[index]));
+    }
+
+    // Все записи в виде объектов FinanceRecord (для совместимости со старым API)
+    public List<FinanceRecord> toList() {
+        List<FinanceRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(get(i));
+        }
+        return records;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private String idAt(int index) {
+        int start = idOffsets[index];
+        return new String(idBytes, start, idOffsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int records, int idByteCount) {
+        if (records > types.length) {
+            int capacity = Math.max(records, types.length * 2);
+            types = Arrays.copyOf(types, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            descriptionIds = Arrays.copyOf(descriptionIds, capacity);
+            idOffsets = Arrays.copyOf(idOffsets, capacity + 1);
+        }
+        if (idByteCount > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, Math.max(idByteCount, idBytes.length * 2));
+        }
+    }
+
+    // Курсор-"приспособленец": один объект читает поля текущей строки прямо из колонок.
+    // Пример: Cursor c = store.cursor(); while (c.next()) { c.getAmountCents(); }
+    public final class Cursor {
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            return ++index < size;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getId() {
+            return idAt(index);
+        }
+
+        public FinanceType getType() {
+            return TYPES[types[index]];
+        }
+
+        public long getAmountCents() {
+            return cents[index];
+        }
+
+        public double getAmount() {
+            return cents[index] / 100.0;
+        }
+
+        public int getEpochDay() {
+            return epochDays[index];
+        }
+
+        public LocalDate getDate() {
+            return LocalDate.ofEpochDay(epochDays[index]);
+        }
+
+        public String getDescription() {
+            return dictionary.get(descriptionIds[index]);
+        }
+
+        // Полноценный объект для текущей строки (создаётся только по запросу)
+        public FinanceRecord toRecord() {
+            return get(index);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import movie_platform.enums.FinanceType;
+import movie_platform.utils.DateUtils;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -16,7 +17,7 @@ import java.time.format.DateTimeFormatter;
 public class FinanceRecord implements Serializable {
     @Serial//с Java 14, рекомендуется аннотировать его @Serial
     private static final long serialVersionUID = 1L; // Версия класса для сериализации
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter formatter = DateUtils.DATE;
 
     private String id;
     private FinanceType type; // тип записи доход/расход
@@ -0,0 +1,64 @@
+package movie_platform.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Неизменяемый снимок данных для финансового отчёта.
+// Создаётся из памяти FinanceManager без чтения файлов; дальше его можно спокойно
+// выводить в консоль или PDF, не блокируя продажи билетов.
+@Getter
+@ToString(exclude = "records")
+public class FinanceReport {
+
+    private final LocalDateTime createdAt;
+    private final List<FinanceRecord> records; // Копия записей на момент создания отчёта
+    private final double totalIncome;
+    private final double totalExpenses;
+    private final double ticketSales;
+    private final double ticketRefunds;
+    private final long ticketsSold;
+    private final long ticketsRefunded;
+    private final SortedMap<YearMonth, Double> monthlyIncome;   // Доход по месяцам (из FinanceTimeIndex)
+    private final SortedMap<YearMonth, Double> monthlyExpenses; // Расходы по месяцам
+
+    public FinanceReport(List<FinanceRecord> records, double totalIncome, double totalExpenses,
+                         double ticketSales, double ticketRefunds, long ticketsSold, long ticketsRefunded) {
+        this(records, totalIncome, totalExpenses, ticketSales, ticketRefunds, ticketsSold, ticketsRefunded,
+                new TreeMap<>(), new TreeMap<>());
+    }
+
+    public FinanceReport(List<FinanceRecord> records, double totalIncome, double totalExpenses,
+                         double ticketSales, double ticketRefunds, long ticketsSold, long ticketsRefunded,
+                         SortedMap<YearMonth, Double> monthlyIncome, SortedMap<YearMonth, Double> monthlyExpenses) {
+        this.createdAt = LocalDateTime.now();
+        this.records = List.copyOf(records);
+        this.totalIncome = totalIncome;
+        this.totalExpenses = totalExpenses;
+        this.ticketSales = ticketSales;
+        this.ticketRefunds = ticketRefunds;
+        this.ticketsSold = ticketsSold;
+        this.ticketsRefunded = ticketsRefunded;
+        this.monthlyIncome = Collections.unmodifiableSortedMap(new TreeMap<>(monthlyIncome));
+        this.monthlyExpenses = Collections.unmodifiableSortedMap(new TreeMap<>(monthlyExpenses));
+    }
+
+    // Все месяцы, в которых есть доходы или расходы, по порядку
+    public SortedSet<YearMonth> getMonths() {
+        SortedSet<YearMonth> months = new TreeSet<>(monthlyIncome.keySet());
+        months.addAll(monthlyExpenses.keySet());
+        return months;
+    }
+
+    public double getResult() {
+        return totalIncome - totalExpenses;
+    }
+}
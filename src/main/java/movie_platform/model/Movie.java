@@ -25,6 +25,17 @@ public class Movie {
     private double budget;                    // Бюджет фильма
     private List<String> producer;            // Список продюсеров фильма
     private List<String> actors;              // Список актёров фильма
+    @ToString.Exclude
+    private IndexListener indexListener;      // Уведомляется об изменении индексируемых полей (индексы MovieManager)
+
+    // Слушатель изменений полей, по которым MovieManager строит индексы
+    public interface IndexListener {
+        void onIndexedFieldChanged(Movie movie, MovieGenre oldGenre, MovieStatus oldStatus);
+
+        // Изменились название, актёры или продюсеры (полнотекстовый поиск).
+        // Списки, полученные через getActors()/getProducer() и изменённые напрямую, не отслеживаются.
+        void onSearchFieldChanged(Movie movie);
+    }
 
     // Конструктор с минимальным набором данных для создания фильма
     public Movie(String movieId, String title, MovieStatus movieStatus, MovieGenre genre) {
@@ -78,6 +89,7 @@ public class Movie {
             return;
         }
         this.title = title;
+        notifySearchListener();
     }
 
     public void setGenre(MovieGenre genre) {
@@ -85,7 +97,9 @@ public class Movie {
             System.out.println("Жанр не может быть пустым.");
             return;
         }
+        MovieGenre oldGenre = this.genre;
         this.genre = genre;
+        notifyIndexListener(oldGenre, status);
     }
 
     public void setStartDate(LocalDate startDate) {
@@ -111,7 +125,9 @@ public class Movie {
             System.out.println("Статус не может быть null.");
             return;
         }
+        MovieStatus oldStatus = this.status;
         this.status = status;
+        notifyIndexListener(genre, oldStatus);
     }
 
     public void setBudget(double budget) {
@@ -128,6 +144,7 @@ public class Movie {
             return;
         }
         this.producer = producer;
+        notifySearchListener();
     }
 
     public void setActors(List<String> actors) {
@@ -136,6 +153,7 @@ public class Movie {
             return;
         }
         this.actors = actors;
+        notifySearchListener();
     }
 
     // Методы для работы с продюсерами
@@ -150,6 +168,7 @@ public class Movie {
         }
         if (!producer.contains(producerName)) {
             producer.add(producerName);
+            notifySearchListener();
             System.out.println("Продюсер добавлен: " + producerName);
             log.info("Продюсер добавлен: {}", producerName);
         } else {
@@ -165,6 +184,7 @@ public class Movie {
             log.warn("Имя продюсера не может быть пустым.");
             return;
         }
+        notifySearchListener(); // Продюсер уже удалён проверкой выше
         if (producer.remove(producerName)) {
             System.out.println("Продюсер удалён: " + producerName);
             log.info("Продюсер удалён: {}", producerName);
@@ -187,6 +207,7 @@ public class Movie {
         }
         if (!actors.contains(actorName)) {
             actors.add(actorName);
+            notifySearchListener();
             System.out.println("Актёр добавлен: " + actorName);
             log.info("Актёр добавлен: {}", actorName);
         } else {
@@ -202,6 +223,7 @@ public class Movie {
             log.warn("Имя актёра не может быть пустым.");
             return;
         }
+        notifySearchListener(); // Актёр уже удалён проверкой выше
         if (actors.remove(actorName)) {
             System.out.println("Актёр удалён: " + actorName);
             log.info("Актёр удалён: {}", actorName);
@@ -223,8 +245,22 @@ public class Movie {
             log.info("Фильм уже имеет статус: " + newStatus);
             return;
         }
+        MovieStatus oldStatus = this.status;
         this.status = newStatus;
+        notifyIndexListener(genre, oldStatus);
         System.out.println("Статус фильма успешно обновлён на: " + newStatus);
         log.info("Статус фильма успешно обновлён на: " + newStatus);
     }
+
+    private void notifyIndexListener(MovieGenre oldGenre, MovieStatus oldStatus) {
+        if (indexListener != null && (oldGenre != genre || oldStatus != status)) {
+            indexListener.onIndexedFieldChanged(this, oldGenre, oldStatus);
+        }
+    }
+
+    private void notifySearchListener() {
+        if (indexListener != null) {
+            indexListener.onSearchFieldChanged(this);
+        }
+    }
 }
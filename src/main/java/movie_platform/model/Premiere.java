@@ -1,37 +1,80 @@
 package movie_platform.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.TicketOrderStatus;
+import movie_platform.utils.DateUtils;
 
-import java.io.Serial;
-import java.io.Serializable;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter
 @Setter
 @ToString
 @Slf4j
-public class Premiere implements Serializable {
-    @Serial//с Java 14, рекомендуется аннотировать @Serial
-    private static final long serialVersionUID = 1L; // Версия класса для сериализации
-    private static final String DATE_FORMAT = "dd.MM.yyyy HH:mm z";
+public class Premiere {
+    private static final String DATE_FORMAT = DateUtils.DATE_TIME_ZONE_PATTERN;
 
     private String id;
     private String movieTitle;
     private ZonedDateTime date;
     private String location;
-    private int ticketCount; // количество оставшихся билетов (вычисляется как initialTicketCount - ticketSold)
+    // Остаток и проданные билеты упакованы в одно 64-битное слово: старшие 32 бита — ticketSold,
+    // младшие — ticketCount (вычисляется как initialTicketCount - ticketSold). Продажа и возврат меняют
+    // оба значения одной CAS-операцией, поэтому параллельные кассы не могут продать лишние билеты.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final AtomicLong ticketState = new AtomicLong();
     private int initialTicketCount; // Исходное количество билетов
-    private int ticketSold;// кол-во проданных билетов
     private double budget;
     private List<String> guestList;// Список гостей
     private List<String> reviews;
     private double ticketPrice; // Стоимость билета
+    // Отслеживание изменений для частичного сохранения (см. PremiereRepository.savePremieres):
+    // каждое изменение увеличивает version, после записи на диск запоминается savedVersion.
+    // Два счётчика вместо флага: изменение во время записи не потеряется, премьера останется изменённой.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final AtomicLong version = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private volatile long savedVersion = -1; // Новая премьера ещё ни разу не сохранялась
+    // Сколько первых отзывов из reviews уже есть в журнале отзывов (см. PremiereRepository.saveReviewsToFile)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private int savedReviewCount;
+    // Продажи через журнал транзакций (см. PersistenceService.sellTickets): билеты уже списаны в ticketState,
+    // но транзакция ещё не записана на диск. Такие билеты не попадают в сохраняемое состояние премьеры.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private int pendingTickets;
+    // Возвраты, ещё не записанные в журнал: билеты остаются проданными до записи транзакции,
+    // чтобы их не продали повторно, если запись не удастся
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private int pendingRefunds;
+    // Номер последней транзакции продажи, учтённой в сохраняемом ticketSold; при восстановлении
+    // транзакции с меньшим или равным номером повторно не применяются
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long appliedSaleLsn;
+    // Продажи закрыты наступлением премьеры (см. PremiereScheduler); не сохраняется — при запуске
+    // планировщик закрывает продажи прошедших премьер заново
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private volatile boolean salesClosed;
 
 
     public Premiere(String id, String movieTitle, ZonedDateTime date, String location, int ticketCount,
@@ -41,18 +84,15 @@ public class Premiere implements Serializable {
         this.movieTitle = movieTitle;
         this.date = date;
         this.location = location;
-        this.ticketCount = ticketCount;
+        this.ticketState.set(packTickets(0, ticketCount));
         this.initialTicketCount = ticketCount;
-        this.ticketSold = 0;
         this.budget = budget;
         this.guestList = new ArrayList<>();
         this.reviews = new ArrayList<>();
         this.ticketPrice = 10;
 
-        // Вызов метода setDate для корректного парсинга даты
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
-        String formattedDate = date.format(formatter);
-        setDate(formattedDate);
+        // Вызов метода setDate для корректного парсинга даты (дата приводится к формату премьер)
+        setDate(DateUtils.formatDateTimeZone(date));
     }
 
     // Перегруженный конструктор для создания премьеры с передачей только основных параметров
@@ -65,20 +105,213 @@ public class Premiere implements Serializable {
             throw new IllegalArgumentException("Дата не может быть пустой или null.");
         }
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
-            this.date = ZonedDateTime.parse(date, formatter); // Используем ZonedDateTime для парсинга
+            this.date = DateUtils.parseDateTimeZone(date); // Общий кэшированный разбор формата премьер
+            markDirty();
         } catch (Exception e) {
             log.warn("Некорректный формат даты. Требуется: {} ", DATE_FORMAT);
             throw new IllegalArgumentException("Ошибка: Некорректный формат даты. Требуется: " + DATE_FORMAT);
         }
     }
 
+    // Номер текущего изменения; передаётся в markSaved после записи снимка премьеры
+    public long getVersion() {
+        return version.get();
+    }
+
+    // true, если премьера менялась после последнего сохранения (или ещё не сохранялась)
+    public boolean isDirty() {
+        return version.get() != savedVersion;
+    }
+
+    // Отмечает, что на диск записано состояние с номером savedVersion
+    public void markSaved(long savedVersion) {
+        this.savedVersion = savedVersion;
+    }
+
+    private void markDirty() {
+        version.incrementAndGet();
+    }
+
+    public void setMovieTitle(String movieTitle) {
+        this.movieTitle = movieTitle;
+        markDirty();
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+        markDirty();
+    }
+
+    public void setInitialTicketCount(int initialTicketCount) {
+        this.initialTicketCount = initialTicketCount;
+        markDirty();
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+        markDirty();
+    }
+
+    public void setTicketPrice(double ticketPrice) {
+        this.ticketPrice = ticketPrice;
+        markDirty();
+    }
+
+    public void setGuestList(List<String> guestList) {
+        this.guestList = guestList;
+        markDirty();
+    }
+
+    // Новый список отзывов считается несохранённым целиком
+    public void setReviews(List<String> reviews) {
+        this.reviews = reviews;
+        this.savedReviewCount = 0;
+    }
+
+    // Отзывы, добавленные в список после последнего сохранения
+    public List<String> getUnsavedReviews() {
+        int saved = Math.min(savedReviewCount, reviews.size());
+        return new ArrayList<>(reviews.subList(saved, reviews.size()));
+    }
+
+    public void markReviewsSaved(int count) {
+        this.savedReviewCount = count;
+    }
+
+    public void closeSales() {
+        this.salesClosed = true;
+    }
+
+    // Состояние билетов для записи на диск: без ещё не записанных в журнал транзакций
+    public record TicketSnapshot(int ticketSold, long appliedSaleLsn) {
+    }
+
+    public synchronized TicketSnapshot durableTicketState() {
+        return new TicketSnapshot(getTicketSold() - pendingTickets, appliedSaleLsn);
+    }
+
+    // Неизменяемый снимок сохраняемых полей премьеры (см. PremiereManager.savePremieresToFile).
+    // Берётся под блокировкой полосы премьеры, дальше кодируется в файл без блокировок.
+    public record Snapshot(String id, String movieTitle, ZonedDateTime date, String location, double budget,
+                           int initialTicketCount, double ticketPrice, TicketSnapshot tickets, long version) {
+    }
+
+    public Snapshot snapshot() {
+        long version = getVersion(); // До чтения полей: более позднее изменение останется несохранённым
+        return new Snapshot(id, movieTitle, date, getStoredLocation(), budget, initialTicketCount, ticketPrice,
+                durableTicketState(), version);
+    }
+
+    public synchronized long getAppliedSaleLsn() {
+        return appliedSaleLsn;
+    }
+
+    // Используется при чтении премьеры из файла
+    public synchronized void setAppliedSaleLsn(long appliedSaleLsn) {
+        this.appliedSaleLsn = appliedSaleLsn;
+    }
+
+    // Списывает билеты для транзакции, которая ещё не записана в журнал (tickets > 0 — продажа,
+    // tickets < 0 — возврат). Продажа возвращает статус без вывода сообщений; возврат возвращает SOLD
+    // или бросает исключение, если вернуть столько билетов нельзя.
+    // Возвращаемые билеты не поступают в продажу до записи транзакции (см. commitTickets); вернуть можно
+    // только билеты уже записанных продаж, за вычетом ожидающих возвратов.
+    public synchronized TicketOrderStatus reserveTickets(int tickets) {
+        if (tickets > 0) {
+            TicketOrderStatus status = trySellTickets(tickets);
+            if (status == TicketOrderStatus.SOLD) {
+                pendingTickets += tickets;
+            }
+            return status;
+        }
+        int toReturn = -tickets;
+        if (toReturn == 0) {
+            throw new IllegalArgumentException("Ошибка при возврате билетов: количество билетов должно быть положительным.");
+        }
+        if (toReturn > getTicketSold() - pendingTickets - pendingRefunds) {
+            throw new IllegalArgumentException("Ошибка при возврате билетов: Невозможно вернуть больше билетов, чем было продано.");
+        }
+        pendingRefunds += toReturn;
+        return TicketOrderStatus.SOLD;
+    }
+
+    // Транзакция записана в журнал: её билеты становятся частью сохраняемого состояния,
+    // возвращённые билеты поступают в продажу
+    public synchronized void commitTickets(long lsn, int tickets) {
+        if (tickets > 0) {
+            pendingTickets -= tickets;
+        } else {
+            pendingRefunds += tickets;
+            addSold(tickets);
+        }
+        appliedSaleLsn = Math.max(appliedSaleLsn, lsn);
+        markDirty();
+    }
+
+    // Транзакцию не удалось записать: списание проданных билетов отменяется,
+    // билеты несостоявшегося возврата просто остаются проданными
+    public synchronized void abortTickets(int tickets) {
+        if (tickets > 0) {
+            pendingTickets -= tickets;
+            addSold(-tickets);
+            markDirty();
+        } else {
+            pendingRefunds += tickets;
+        }
+    }
+
+    private void addSold(int tickets) {
+        ticketState.updateAndGet(state -> {
+            int sold = soldOf(state) + tickets;
+            return packTickets(sold, initialTicketCount - sold);
+        });
+    }
+
+    // Восстановление после сбоя: применяет транзакцию из журнала, если её ещё нет в состоянии премьеры
+    public synchronized boolean applyLoggedTickets(long lsn, int tickets) {
+        if (lsn <= appliedSaleLsn) {
+            return false;
+        }
+        addSold(tickets);
+        appliedSaleLsn = lsn;
+        markDirty();
+        return true;
+    }
+
+    private static long packTickets(int ticketSold, int ticketCount) {
+        return ((long) ticketSold << 32) | (ticketCount & 0xFFFFFFFFL);
+    }
+
+    private static int soldOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int countOf(long state) {
+        return (int) state;
+    }
+
+    @ToString.Include(name = "ticketCount")
+    public int getTicketCount() {
+        return countOf(ticketState.get());
+    }
+
+    @ToString.Include(name = "ticketSold")
+    public int getTicketSold() {
+        return soldOf(ticketState.get());
+    }
+
     // Метод для установки количества билетов
     public void setTicketCount(int ticketCount) {
         if (ticketCount < 0) {
             throw new IllegalArgumentException("Количество билетов не может быть отрицательным.");
         }
-        this.ticketCount = ticketCount;
+        ticketState.updateAndGet(state -> packTickets(soldOf(state), ticketCount));
+        markDirty();
+    }
+
+    public void setTicketSold(int ticketSold) {
+        ticketState.updateAndGet(state -> packTickets(ticketSold, countOf(state)));
+        markDirty();
     }
 
     public void setId(String id) {
@@ -91,6 +324,11 @@ public class Premiere implements Serializable {
         this.id = id;
     }
 
+    // Местоположение как есть (пустая строка, если не указано) — для сохранения в файл
+    public String getStoredLocation() {
+        return location == null ? "" : location;
+    }
+
     public String getLocation() {
         if (location == null || location.isEmpty()) {
             return "Местоположение не указано";
@@ -110,6 +348,7 @@ public class Premiere implements Serializable {
             return;
         }
         guestList.add(guestName); // Добавляем гостя в список
+        markDirty();
         System.out.println("Гость " + guestName + " добавлен в список.");
     }
 
@@ -119,7 +358,7 @@ public class Premiere implements Serializable {
             log.warn("Ошибка: Количество билетов не может быть отрицательным.");
             return false;
         }
-        int availableTickets = initialTicketCount - ticketSold;
+        int availableTickets = initialTicketCount - getTicketSold();
         // Проверяем, не продано ли больше билетов, чем есть в наличии
         if (count <= availableTickets) {
             return true; // Если количество проданных билетов и новые билеты не превышают доступных, возвращаем true
@@ -129,20 +368,48 @@ public class Premiere implements Serializable {
         }
     }
 
-    // Метод для продажи билетов
+    // Метод для продажи билетов с сообщениями об ошибках (для интерактивного меню)
     public boolean sellTickets(int count) {
-        // Проверяем, можем ли продать указанное количество билетов
-        if (canSellTickets(count)) {
-            // Если можем продать, то увеличиваем количество проданных билетов
-            ticketSold = ticketSold + count;
-            // Обновляем количество оставшихся билетов
-            ticketCount = initialTicketCount - ticketSold;
-            return true;  // Продажа успешна
-        } else {
-            // Если нет, выводим сообщение об ошибке
-            log.warn("Ошибка при продаже билетов: Недостаточно билетов.");
-            System.out.println("Ошибка: Недостаточно билетов для продажи.");
-            return false;  // Продажа не удалась
+        TicketOrderStatus status = trySellTickets(count);
+        switch (status) {
+            case INVALID_COUNT -> log.warn("Ошибка: Количество билетов не может быть отрицательным.");
+            case SALES_CLOSED -> {
+                log.warn("Продажа билетов на премьеру {} закрыта.", id);
+                System.out.println("Ошибка: Продажа билетов на премьеру закрыта.");
+            }
+            case NOT_ENOUGH_TICKETS -> {
+                log.warn("Ошибка при продаже билетов: Недостаточно билетов для продажи {}. Доступно {} билетов.",
+                        count, getTicketCount());
+                System.out.println("Ошибка: Недостаточно билетов для продажи.");
+            }
+            default -> {
+            }
+        }
+        return status == TicketOrderStatus.SOLD;
+    }
+
+    // Продажа без вывода сообщений (пакетная продажа, сервер касс): причина отказа возвращается статусом.
+    // Проверка остатка и резервирование выполняются одной CAS-операцией (без блокировок):
+    // при конкуренции проигравший поток перечитывает состояние и проверяет снова.
+    public TicketOrderStatus trySellTickets(int count) {
+        if (count <= 0) {
+            return TicketOrderStatus.INVALID_COUNT;
+        }
+        if (salesClosed) {
+            return TicketOrderStatus.SALES_CLOSED;
+        }
+        while (true) {
+            long state = ticketState.get();
+            int sold = soldOf(state);
+            if (count > initialTicketCount - sold) {
+                return TicketOrderStatus.NOT_ENOUGH_TICKETS;
+            }
+            int newSold = sold + count;
+            // Увеличиваем количество проданных и пересчитываем остаток в одном слове
+            if (ticketState.compareAndSet(state, packTickets(newSold, initialTicketCount - newSold))) {
+                markDirty();
+                return TicketOrderStatus.SOLD;
+            }
         }
     }
 
@@ -154,14 +421,23 @@ public class Premiere implements Serializable {
         if (ticketsToReturn > ticketsSold) {
             throw new IllegalArgumentException("Ошибка при возврате билетов: Невозможно вернуть больше билетов, чем было продано.");
         }
-        // Уменьшаем количество проданных билетов
-        ticketSold -= ticketsToReturn;
+        // Уменьшаем количество проданных билетов и возвращаем их в доступные для продажи (атомарно)
+        long state;
+        long newState;
+        do {
+            state = ticketState.get();
+            int sold = soldOf(state);
+            if (ticketsToReturn > sold) {
+                throw new IllegalArgumentException("Ошибка при возврате билетов: Невозможно вернуть больше билетов, чем было продано.");
+            }
+            int newSold = sold - ticketsToReturn;
+            newState = packTickets(newSold, initialTicketCount - newSold);
+        } while (!ticketState.compareAndSet(state, newState));
+        markDirty();
 
-        // Возвращаем билеты в доступные для продажи, но не превышаем начальное количество билетов
-        ticketCount = initialTicketCount - ticketSold;
         System.out.println("Проданные билеты: " + ticketsSold);
         System.out.println("Возвращено " + ticketsToReturn + " билетов.");
-        System.out.println("Оставшиеся билеты для продажи: " + ticketCount);
+        System.out.println("Оставшиеся билеты для продажи: " + countOf(newState));
     }
 
     // Пока не используется, но может пригодиться в расширении логики
@@ -180,6 +456,7 @@ public class Premiere implements Serializable {
             throw new IllegalArgumentException("Бюджет не может быть отрицательным или нулевым.");
         }
         this.budget += budgetToAdd;  // Добавляем к текущему бюджету
+        markDirty();
     }
 
     // Метод для добавления отзыва
@@ -195,9 +472,9 @@ public class Premiere implements Serializable {
 
     // Генерация отчета о премьере
     public String generateReport() {
+        int ticketSold = getTicketSold();
         double totalRevenue = ticketSold * ticketPrice; // Примерная стоимость билета $10
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        String formattedDate = date.format(formatter);  // Форматируем дату
+        String formattedDate = date.format(DateUtils.DATE);  // Форматируем дату
         return "Отчет о премьере: " + movieTitle + "\n" +
                 "Дата: " + formattedDate + "\n" +
                 "Место проведения: " + location + "\n" +
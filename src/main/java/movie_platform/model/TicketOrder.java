@@ -0,0 +1,5 @@
+package movie_platform.model;
+
+// Заказ пакетной продажи: сколько билетов продать на премьеру
+public record TicketOrder(String premiereId, int count) {
+}
@@ -0,0 +1,17 @@
+package movie_platform.model;
+
+import movie_platform.enums.TicketOrderStatus;
+
+// Результат заказа пакетной продажи. premiere — найденная премьера (null, если её нет),
+// financeRecord — запись о доходе, в которую вошёл заказ (при агрегации по премьере — общая для её заказов)
+public record TicketOrderResult(TicketOrder order, TicketOrderStatus status, Premiere premiere,
+                                FinanceRecord financeRecord) {
+
+    public boolean isSold() {
+        return status == TicketOrderStatus.SOLD;
+    }
+
+    public TicketOrderResult withFinanceRecord(FinanceRecord record) {
+        return new TicketOrderResult(order, status, premiere, record);
+    }
+}
@@ -0,0 +1,200 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceColumnStore;
+import movie_platform.model.FinanceRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Двоичный колоночный формат снимка финансовых записей (finance_records.bin).
+// Каждое поле хранится отдельной колонкой фиксированной ширины и читается/пишется одной
+// массовой операцией ByteBuffer:
+//   заголовок | тип (byte, ordinal) | сумма (long, центы) | дата (int, epoch day) |
+//   код описания (int) | смещения ID (int) | байты ID (UTF-8) | смещения словаря (int) | байты словаря (UTF-8)
+// Описания повторяются ("Продажа билетов на ..."), поэтому хранятся словарём: в колонке только код.
+@Slf4j
+final class FinanceColumnarFile {
+
+    private static final int MAGIC = 0x46524331; // "FRC1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;   // magic, version, count, dictionarySize, idBytes, dictionaryBytes
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final FinanceType[] TYPES = FinanceType.values();
+
+    private FinanceColumnarFile() {
+    }
+
+    static void write(List<FinanceRecord> records, Path path) throws IOException {
+        int count = records.size();
+        byte[] types = new byte[count];
+        long[] cents = new long[count];
+        int[] epochDays = new int[count];
+        int[] descriptionCodes = new int[count];
+        int[] idOffsets = new int[count + 1];
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> dictionaryValues = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            FinanceRecord record = records.get(i);
+            types[i] = (byte) record.getType().ordinal();
+            cents[i] = Math.round(record.getAmount() * 100); // Как и в CSV ("%.2f"), сумма хранится с точностью до цента
+            epochDays[i] = (int) record.getDate().toEpochDay();
+            descriptionCodes[i] = dictionary.computeIfAbsent(record.getDescription(), description -> {
+                dictionaryValues.add(description);
+                return dictionaryValues.size() - 1;
+            });
+            ids.writeBytes(record.getId().getBytes(StandardCharsets.UTF_8));
+            idOffsets[i + 1] = ids.size();
+        }
+
+        int[] dictionaryOffsets = new int[dictionaryValues.size() + 1];
+        ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+        for (int i = 0; i < dictionaryValues.size(); i++) {
+            dictionaryBytes.writeBytes(dictionaryValues.get(i).getBytes(StandardCharsets.UTF_8));
+            dictionaryOffsets[i + 1] = dictionaryBytes.size();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(count)
+                .putInt(dictionaryValues.size())
+                .putLong(ids.size())
+                .putLong(dictionaryBytes.size());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header.flip());
+            writeFully(channel, ByteBuffer.wrap(types));
+            writeFully(channel, longColumn(cents));
+            writeFully(channel, intColumn(epochDays));
+            writeFully(channel, intColumn(descriptionCodes));
+            writeFully(channel, intColumn(idOffsets));
+            writeFully(channel, ByteBuffer.wrap(ids.toByteArray()));
+            writeFully(channel, intColumn(dictionaryOffsets));
+            writeFully(channel, ByteBuffer.wrap(dictionaryBytes.toByteArray()));
+            channel.force(true); // Данные на диске до переименования снимка поверх старого
+        }
+    }
+
+    static List<FinanceRecord> read(Path path) throws IOException {
+        FinanceColumnStore store = readColumns(path);
+        List<FinanceRecord> records = new ArrayList<>(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            try {
+                records.add(store.get(i));
+            } catch (IllegalArgumentException e) {
+                log.warn("Некорректная запись {} в файле {} будет пропущена: {}", i, path, e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    // Колонки файла без создания объектов FinanceRecord (для аналитики по большим объёмам)
+    static FinanceColumnStore readColumns(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Файл " + path + " повреждён: нет заголовка");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Файл " + path + " не является снимком финансовых записей версии " + VERSION);
+            }
+            int count = header.getInt();
+            int dictionarySize = header.getInt();
+            long idBytesLength = header.getLong();
+            long dictionaryBytesLength = header.getLong();
+            long expectedSize = HEADER_SIZE + (long) count * (1 + 8 + 4 + 4 + 4) + 4
+                    + idBytesLength + (dictionarySize + 1L) * 4 + dictionaryBytesLength;
+            if (count < 0 || dictionarySize < 0 || idBytesLength > Integer.MAX_VALUE
+                    || dictionaryBytesLength > Integer.MAX_VALUE || channel.size() != expectedSize) {
+                throw new IOException("Файл " + path + " повреждён: размер не совпадает с заголовком");
+            }
+
+            long position = HEADER_SIZE;
+            byte[] types = new byte[count];
+            map(channel, position, count).get(types);
+            position += count;
+            long[] cents = new long[count];
+            map(channel, position, 8L * count).asLongBuffer().get(cents);
+            position += 8L * count;
+            int[] epochDays = readInts(channel, position, count);
+            position += 4L * count;
+            int[] descriptionCodes = readInts(channel, position, count);
+            position += 4L * count;
+            int[] idOffsets = readInts(channel, position, count + 1);
+            position += 4L * (count + 1);
+            byte[] ids = new byte[(int) idBytesLength];
+            map(channel, position, idBytesLength).get(ids);
+            position += idBytesLength;
+            int[] dictionaryOffsets = readInts(channel, position, dictionarySize + 1);
+            position += 4L * (dictionarySize + 1);
+            byte[] dictionaryBytes = new byte[(int) dictionaryBytesLength];
+            map(channel, position, dictionaryBytesLength).get(dictionaryBytes);
+
+            for (int i = 0; i < count; i++) {
+                if (types[i] < 0 || types[i] >= TYPES.length
+                        || descriptionCodes[i] < 0 || descriptionCodes[i] >= dictionarySize
+                        || idOffsets[i] < 0 || idOffsets[i] > idOffsets[i + 1] || idOffsets[i + 1] > idBytesLength) {
+                    throw new IOException("Файл " + path + " повреждён: некорректная запись " + i);
+                }
+            }
+
+            for (int i = 0; i < dictionarySize; i++) {
+                if (dictionaryOffsets[i] < 0 || dictionaryOffsets[i] > dictionaryOffsets[i + 1]
+                        || dictionaryOffsets[i + 1] > dictionaryBytesLength) {
+                    throw new IOException("Файл " + path + " повреждён: некорректное описание " + i);
+                }
+            }
+
+            // Каждое описание из словаря превращается в строку один раз и разделяется между записями
+            String[] dictionary = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary[i] = new String(dictionaryBytes, dictionaryOffsets[i],
+                        dictionaryOffsets[i + 1] - dictionaryOffsets[i], StandardCharsets.UTF_8);
+            }
+            return FinanceColumnStore.ofColumns(types, cents, epochDays, descriptionCodes, idOffsets, ids, dictionary);
+        }
+    }
+
+    private static ByteBuffer longColumn(long[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ORDER);
+        buffer.asLongBuffer().put(values);
+        return buffer;
+    }
+
+    private static ByteBuffer intColumn(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ORDER);
+        buffer.asIntBuffer().put(values);
+        return buffer;
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        int[] values = new int[count];
+        map(channel, position, 4L * count).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ORDER);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
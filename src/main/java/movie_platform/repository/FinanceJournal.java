@@ -0,0 +1,316 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.model.FinanceColumnStore;
+import movie_platform.model.FinanceRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Журнал изменений финансовых записей (append-only).
+// Добавление пишет одну строку "ADD, <запись CSV>", удаление — строку-надгробие "DEL, <ID>".
+// Снимок (finance_records.bin) + журнал вместе дают актуальное состояние. Кодировка — UTF-8, как у CSV.
+@Slf4j
+public class FinanceJournal {
+
+    private static final String ADD = "ADD";
+    private static final String REMOVE = "DEL";
+
+    private final Path journalPath;     // Текущий журнал, в который пишутся новые изменения
+    private final Path compactingPath;  // Журнал, который сейчас сворачивается в снимок
+    private int entryCount;             // Количество записей в текущем журнале (включая ещё не записанные)
+    private boolean writeBehind;        // true — строки копятся в памяти и пишутся пачкой через flush()
+    private final List<String> pending = new ArrayList<>(); // Строки, ожидающие записи на диск
+
+    // Куда применяются строки журнала: список записей или колоночное хранилище
+    private interface ReplayTarget {
+        // Есть ли уже точно такая запись (для свёрнутого журнала: его изменения могут уже быть в снимке)
+        boolean containsSame(FinanceRecord record);
+
+        void add(FinanceRecord record);
+
+        void remove(String recordId);
+    }
+
+    public FinanceJournal(boolean testMode) {
+        String fileName = testMode ? "test_finance_records.journal" : "finance_records.journal";
+        this.journalPath = Paths.get(fileName);
+        this.compactingPath = Paths.get(fileName + ".compacting");
+    }
+
+    // Дописывает в журнал добавление записи
+    public synchronized void appendAdd(FinanceRecord record) {
+        append(ADD + ", " + FinanceRepository.toCsvLine(record));
+    }
+
+    // Дописывает добавление нескольких записей за один захват блокировки
+    public synchronized void appendAdds(Collection<FinanceRecord> records) {
+        for (FinanceRecord record : records) {
+            append(ADD + ", " + FinanceRepository.toCsvLine(record));
+        }
+    }
+
+    // Дописывает в журнал надгробие (удаление записи по ID)
+    public synchronized void appendRemove(String recordId) {
+        append(REMOVE + ", " + recordId);
+    }
+
+    private void append(String line) {
+        if (writeBehind) {
+            pending.add(line);
+            entryCount++;
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(journalPath.toFile(), StandardCharsets.UTF_8, true))) {
+            writer.write(line);
+            writer.newLine();
+            entryCount++;
+        } catch (IOException e) {
+            log.error("Ошибка при записи в журнал {}: {}", journalPath, e.getMessage());
+        }
+    }
+
+    // Включает режим отложенной записи. При выключении накопленные строки сразу записываются.
+    public synchronized void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+        if (!writeBehind) {
+            flush(false);
+        }
+    }
+
+    // Групповая запись: все накопленные строки одним вызовом write, при fsync = true — с force()
+    public synchronized int flush(boolean fsync) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        StringBuilder batch = new StringBuilder();
+        for (String line : pending) {
+            batch.append(line).append(System.lineSeparator());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // Строки остаются в буфере и будут записаны при следующей попытке
+            log.error("Ошибка при групповой записи в журнал {}: {}", journalPath, e.getMessage());
+            return 0;
+        }
+        int written = pending.size();
+        pending.clear();
+        return written;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    // Есть ли изменения, ещё не свёрнутые в снимок (например, после аварийного завершения)
+    public synchronized boolean hasPendingEntries() {
+        return !pending.isEmpty() || Files.exists(journalPath) || Files.exists(compactingPath);
+    }
+
+    // Переносит текущий журнал в файл сворачивания. Новые изменения пойдут в новый журнал.
+    // Если предыдущее сворачивание не завершилось, текущий журнал дописывается в его конец.
+    public synchronized void rotate() {
+        flush(true); // Отложенные строки должны попасть в сворачиваемый журнал (и на диск: на него опирается контрольная точка продаж)
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        try {
+            if (Files.exists(compactingPath)) {
+                Files.write(compactingPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, compactingPath);
+            }
+            entryCount = 0;
+        } catch (IOException e) {
+            log.error("Ошибка при ротации журнала {}: {}", journalPath, e.getMessage());
+        }
+    }
+
+    // Вызывается после того, как снимок успешно записан: свёрнутый журнал больше не нужен
+    public synchronized void finishCompaction() {
+        try {
+            Files.deleteIfExists(compactingPath);
+        } catch (IOException e) {
+            log.error("Ошибка при удалении свёрнутого журнала {}: {}", compactingPath, e.getMessage());
+        }
+    }
+
+    // Применяет к снимку сначала незавершённый свёрнутый журнал, затем текущий.
+    // Повторное применение безопасно: уже существующая запись не добавляется второй раз,
+    // а надгробие для отсутствующей записи игнорируется.
+    public synchronized int replay(List<FinanceRecord> records) {
+        Set<String> snapshotIds = new HashSet<>();
+        if (Files.exists(compactingPath)) {
+            records.forEach(record -> snapshotIds.add(record.getId()));
+        }
+        ReplayTarget target = new ReplayTarget() {
+            @Override
+            public boolean containsSame(FinanceRecord record) {
+                return snapshotIds.contains(record.getId())
+                        && records.stream().anyMatch(existing -> sameRecord(existing, record));
+            }
+
+            @Override
+            public void add(FinanceRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void remove(String recordId) {
+                for (int i = 0; i < records.size(); i++) {
+                    if (records.get(i).getId().equals(recordId)) {
+                        records.remove(i);
+                        break;
+                    }
+                }
+            }
+        };
+        int applied = replayFile(compactingPath, target, true);
+        entryCount = replayFile(journalPath, target, false);
+        return applied + entryCount;
+    }
+
+    // То же для колоночного хранилища (FinanceRepository.loadColumnStore): объекты FinanceRecord
+    // создаются только для строк журнала. Учитываются строки, уже записанные на диск; счётчик
+    // изменений журнала не меняется.
+    public synchronized int replay(FinanceColumnStore store) {
+        Map<String, FinanceRecord> compacted = recordsAddedByCompactedJournal(store);
+        ReplayTarget target = new ReplayTarget() {
+            @Override
+            public boolean containsSame(FinanceRecord record) {
+                FinanceRecord existing = compacted.get(record.getId());
+                return existing != null && sameRecord(existing, record);
+            }
+
+            @Override
+            public void add(FinanceRecord record) {
+                store.add(record);
+            }
+
+            @Override
+            public void remove(String recordId) {
+                store.remove(recordId);
+            }
+        };
+        return replayFile(compactingPath, target, true) + replayFile(journalPath, target, false);
+    }
+
+    // Записи снимка с ID из строк ADD свёрнутого журнала (обычно его нет: он остаётся только после сбоя).
+    // Хранилище просматривается один раз, объекты создаются только для совпавших ID.
+    private Map<String, FinanceRecord> recordsAddedByCompactedJournal(FinanceColumnStore store) {
+        Map<String, FinanceRecord> found = new HashMap<>();
+        if (!Files.exists(compactingPath)) {
+            return found;
+        }
+        Set<String> ids = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(compactingPath.toFile(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] data = line.split(", ");
+                if (ADD.equals(data[0]) && data.length > 1) {
+                    ids.add(data[1]);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ошибка чтения журнала {}: {}", compactingPath, e.getMessage());
+            return found;
+        }
+        FinanceColumnStore.Cursor cursor = store.cursor();
+        while (cursor.next()) {
+            String id = cursor.getId();
+            if (ids.contains(id)) {
+                found.putIfAbsent(id, cursor.toRecord());
+            }
+        }
+        return found;
+    }
+
+    // deduplicate = true только для свёрнутого журнала: после сбоя его изменения могут уже быть в снимке
+    private int replayFile(Path path, ReplayTarget target, boolean deduplicate) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        int count = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path.toFile(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] data = line.split(", ");
+                if (ADD.equals(data[0])) {
+                    FinanceRecord record = FinanceRepository.fromCsvColumns(data, 1);
+                    if (record == null) {
+                        log.warn("Некорректная строка журнала {} ({}), пропущена: {}", path, lineNumber, line);
+                        continue;
+                    }
+                    if (!deduplicate || !target.containsSame(record)) {
+                        target.add(record);
+                    }
+                    count++;
+                } else if (REMOVE.equals(data[0]) && data.length == 2) {
+                    target.remove(data[1]);
+                    count++;
+                } else {
+                    log.warn("Некорректная строка журнала {} ({}), пропущена: {}", path, lineNumber, line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ошибка чтения журнала {}: {}", path, e.getMessage());
+        }
+        return count;
+    }
+
+    private static boolean sameRecord(FinanceRecord a, FinanceRecord b) {
+        return a.getId().equals(b.getId())
+                && a.getType() == b.getType()
+                && Double.compare(a.getAmount(), b.getAmount()) == 0
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getDate(), b.getDate());
+    }
+
+    // Удаляет оба файла журнала (используется при полной очистке данных)
+    public synchronized void reset() {
+        try {
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(compactingPath);
+            pending.clear();
+            entryCount = 0;
+        } catch (IOException e) {
+            log.error("Ошибка при удалении журнала {}: {}", journalPath, e.getMessage());
+        }
+    }
+}
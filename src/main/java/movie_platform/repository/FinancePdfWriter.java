@@ -0,0 +1,183 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceRecord;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+// Потоковая запись PDF-отчёта по финансовым записям.
+// Записи берутся из итератора по одной, страницы добавляются по мере заполнения, а содержимое
+// готовых страниц уходит во временный файл PDFBox (MemoryUsageSetting), поэтому память не растёт
+// с числом строк. Шрифт с кириллицей (DejaVu Sans) лежит в ресурсах и не зависит от ОС;
+// в документ встраивается только подмножество использованных символов.
+@Slf4j
+final class FinancePdfWriter {
+
+    private static final String FONT_RESOURCE = "/fonts/DejaVuSans.ttf";
+    private static final long MAX_MAIN_MEMORY = 16L << 20; // Сверх 16 МБ данные документа пишутся во временный файл
+    private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
+    private static final float MARGIN = 50;
+    private static final float TOP = 750;
+    private static final float BOTTOM = 50;
+    private static final float ROW_HEIGHT = 16;
+    private static final int MAX_CELL_LENGTH = 35;
+    private static final float[] COLUMN_WIDTHS = {70, 70, 70, 220, 100};
+    private static final String[] HEADERS = {"ID", "Тип", "Сумма", "Описание", "Дата"};
+
+    private static volatile byte[] fontBytes; // Файл шрифта читается из ресурсов один раз
+
+    private final PDDocument document;
+    private final PDType0Font font;
+    private PDPageContentStream contentStream;
+    private float yPosition;
+    private int pageNumber;
+
+    private FinancePdfWriter(PDDocument document) throws IOException {
+        this.document = document;
+        this.font = PDType0Font.load(document, new ByteArrayInputStream(fontBytes()), true);
+    }
+
+    // Записывает отчёт в файл target; возвращает количество строк в таблице
+    static long write(Iterator<FinanceRecord> records, Path target) throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY))) {
+            FinancePdfWriter writer = new FinancePdfWriter(document);
+            long rows = writer.writeTable(records);
+            document.save(target.toFile());
+            return rows;
+        }
+    }
+
+    private long writeTable(Iterator<FinanceRecord> records) throws IOException {
+        startPage();
+        // Заголовок отчёта (только на первой странице)
+        writeText(MARGIN, yPosition, 14, "Детализированный финансовый отчёт");
+        yPosition -= 25;
+        writeHeaderRow();
+
+        long rows = 0;
+        long incomeCents = 0;
+        long expenseCents = 0;
+        while (records.hasNext()) {
+            FinanceRecord record = records.next();
+            if (yPosition < BOTTOM) {
+                finishPage();
+                startPage();
+                writeHeaderRow(); // Заголовки таблицы повторяются на каждой странице
+            }
+            writeRow(10, record.getId(),
+                    record.getType().toString(),
+                    String.format("%.2f", record.getAmount()),
+                    record.getDescription(),
+                    record.getDate().toString());
+            if (record.getType() == FinanceType.INCOME) {
+                incomeCents += Math.round(record.getAmount() * 100);
+            } else if (record.getType() == FinanceType.EXPENSE) {
+                expenseCents += Math.round(record.getAmount() * 100);
+            }
+            rows++;
+        }
+
+        if (yPosition - 10 < BOTTOM) {
+            finishPage();
+            startPage();
+        }
+        yPosition -= 10;
+        writeText(MARGIN, yPosition, 12, String.format("Общий доход: %.2f, Расходы: %.2f, Итог: %.2f",
+                incomeCents / 100.0, expenseCents / 100.0, (incomeCents - expenseCents) / 100.0));
+        finishPage();
+        return rows;
+    }
+
+    private void startPage() throws IOException {
+        PDPage page = new PDPage(PAGE_SIZE);
+        document.addPage(page);
+        contentStream = new PDPageContentStream(document, page);
+        yPosition = TOP;
+        pageNumber++;
+    }
+
+    // Номер страницы внизу и закрытие потока содержимого: дальше страница не меняется
+    private void finishPage() throws IOException {
+        writeText(PAGE_SIZE.getWidth() - MARGIN - 60, BOTTOM - 25, 8, "Страница " + pageNumber);
+        contentStream.close();
+        contentStream = null;
+    }
+
+    private void writeHeaderRow() throws IOException {
+        writeRow(11, HEADERS);
+    }
+
+    private void writeRow(float fontSize, String... cells) throws IOException {
+        float nextX = MARGIN;
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i].length() > MAX_CELL_LENGTH ? cells[i].substring(0, MAX_CELL_LENGTH) + "..." : cells[i];
+            writeText(nextX + 2, yPosition, fontSize, cell);
+            nextX += COLUMN_WIDTHS[i];
+        }
+        // Горизонтальная линия под строкой
+        contentStream.moveTo(MARGIN, yPosition - 2);
+        contentStream.lineTo(PAGE_SIZE.getWidth() - MARGIN, yPosition - 2);
+        contentStream.stroke();
+        yPosition -= ROW_HEIGHT;
+    }
+
+    private void writeText(float x, float y, float fontSize, String text) throws IOException {
+        contentStream.beginText();
+        contentStream.setFont(font, fontSize);
+        contentStream.newLineAtOffset(x, y);
+        try {
+            contentStream.showText(text);
+        } catch (IllegalArgumentException e) {
+            // Текст кодируется целиком до записи, поэтому можно повторить с заменой символов
+            contentStream.showText(printable(text));
+        }
+        contentStream.endText();
+    }
+
+    // Символы, которых нет в шрифте, заменяются на '?', чтобы одна запись не ломала весь отчёт
+    private String printable(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        text.codePoints().forEach(codePoint -> result.append(hasGlyph(codePoint) ? Character.toString(codePoint) : "?"));
+        return result.toString();
+    }
+
+    private boolean hasGlyph(int codePoint) {
+        try {
+            font.encode(Character.toString(codePoint));
+            return true;
+        } catch (IllegalArgumentException | IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] fontBytes() throws IOException {
+        byte[] bytes = fontBytes;
+        if (bytes == null) {
+            synchronized (FinancePdfWriter.class) {
+                bytes = fontBytes;
+                if (bytes == null) {
+                    try (InputStream in = FinancePdfWriter.class.getResourceAsStream(FONT_RESOURCE)) {
+                        if (in == null) {
+                            throw new IOException("Шрифт " + FONT_RESOURCE + " не найден в ресурсах");
+                        }
+                        bytes = in.readAllBytes();
+                    }
+                    fontBytes = bytes;
+                    log.info("Шрифт для PDF-отчётов загружен из {}", FONT_RESOURCE);
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -2,292 +2,229 @@ package movie_platform.repository;
 
 import lombok.extern.slf4j.Slf4j;
 import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceColumnStore;
 import movie_platform.model.FinanceRecord;
+import movie_platform.utils.DateUtils;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.Stream;
 
 @Slf4j
 public class FinanceRepository {
 
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter formatter = DateUtils.DATE;
+    private static final String CSV_HEADER = "ID, Тип, Сумма, Премьера, Описание, Дата";
 
-    // Сохраняет список финансовых записей в CSV-файл.
+    // Сохраняет список финансовых записей в CSV-файл (выгрузка; основной снимок — finance_records.bin).
     public void saveRecords(List<FinanceRecord> records, boolean testMode) {
-        if (!testMode) {
-            String fileNameCSV = "finance_records.csv";
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileNameCSV))) {
-                // Заголовок CSV (5 колонок)
-                writer.write("ID, Тип, Сумма, Премьера, Описание, Дата");
-                writer.newLine();
-                // Для каждой записи пишем данные.
-                for (FinanceRecord record : records) {
-                    String line = String.join(", ",
-                            record.getId(),
-                            record.getType().name(),
-                            String.format(Locale.US, "%.2f", record.getAmount()), // Формат суммы с точкой
-                            record.getDescription(),
-                            record.getDate().format(formatter));
-                    writer.write(line);
-                    writer.newLine();
-                }
-                log.info("Финансовые записи успешно сохранены в файл {}", fileNameCSV);
-            } catch (IOException e) {
-                log.error("Ошибка при сохранении финансовых записей в файл: {}", e.getMessage());
-            }
-        } else {
-            String fileNameCSV = "test_finance_records.csv";
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileNameCSV))) {
-                // Заголовок CSV (5 колонок)
-                writer.write("ID, Тип, Сумма, Премьера, Описание, Дата");
-                writer.newLine();
-                // Для каждой записи пишем данные.
-                for (FinanceRecord record : records) {
-                    String line = String.join(", ",
-                            record.getId(),
-                            record.getType().name(),
-                            String.format(Locale.US, "%.2f", record.getAmount()), // Формат суммы с точкой
-                            record.getDescription(),
-                            record.getDate().format(formatter));
-                    writer.write(line);
-                    writer.newLine();
-                }
-                log.info("Финансовые записи успешно сохранены в тестовый файл {}", fileNameCSV);
-            } catch (IOException e) {
-                log.error("Ошибка при сохранении финансовых записей в тестовый файл: {}", e.getMessage());
-            }
-        }
+        exportCsv(records, csvPath(testMode));
     }
 
-    // Загружает финансовые записи из CSV-файла. Строки, не соответствующие формату, пропускаются.
-    public List<FinanceRecord> loadRecords(boolean testMode) {
-        List<FinanceRecord> records = new ArrayList<>();
+    // Атомарно сохраняет снимок записей в двоичном колоночном формате (см. FinanceColumnarFile):
+    // пишем во временный файл с fsync, переименовываем его поверх finance_records.bin и делаем fsync
+    // каталога, чтобы переименование пережило отключение питания.
+    // Возвращает false, если снимок записать не удалось (журнал в этом случае удалять нельзя).
+    public boolean saveSnapshot(List<FinanceRecord> records, boolean testMode) {
+        Path target = snapshotPath(testMode);
+        Path temp = Paths.get(target + ".tmp");
+        try {
+            FinanceColumnarFile.write(records, temp);
+        } catch (IOException e) {
+            log.error("Ошибка при записи снимка финансовых записей в файл {}: {}", temp, e.getMessage());
+            return false;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(target);
+            log.info("Снимок финансовых записей сохранён в файл {}. Количество записей: {}", target, records.size());
+            return true;
+        } catch (IOException e) {
+            log.error("Ошибка при замене файла {} снимком: {}", target, e.getMessage());
+            return false;
+        }
+    }
 
-        if (!testMode) {
-            String fileName = "finance_records.csv";
-            Path filePath = Paths.get(fileName);
-            if (!Files.exists(filePath)) {
-                log.info("Файл {} не найден. Начинаем с пустого списка записей.", fileName);
-                System.out.println("Файл не найден. Начинаем с пустого списка записей.");
-                return records;
-            }
-            try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-                reader.readLine(); // Пропускаем заголовок
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // фильтр спасает от ошибок при чтении CSV-данных и элементов отчёта вместе
-                    // (например, с System.out.println или writer.write(...) в generateFinanceReport)
-                    if (line.trim().isEmpty() || line.startsWith("Премьера:") ||
-                            line.startsWith("Поступление") || line.startsWith("Итог:") ||
-                            line.startsWith("======================================")) {
-                        continue;
-                    }
-                    String[] data = line.split(", ");
-                    if (data.length < 5) { // Ожидаем 5 колонок: ID, Тип, Сумма, Описание, Дата
-                        log.warn("Строка не соответствует формату и будет пропущена: {}", line);
-                        continue;
-                    }
-                    // Для простоты здесь премьера просто читается как строка, далее можно расширять
-                    // data[0] - название премьеры (не используется в FinanceRecord)
-                    String id = data[0];
-                    String typeString = data[1];// Тип (INCOME, EXPENSE и т.д.)
-                    double amount;
-                    try {
-                        amount = Double.parseDouble(data[2]);
-                    } catch (NumberFormatException e) {
-                        log.warn("Невозможно преобразовать сумму '{}'. Строка будет пропущена.", data[2]);
-                        continue;
-                    }
+    // fsync каталога файла. Там, где каталог нельзя открыть как файл (Windows), шаг пропускается:
+    // переименование там и так фиксируется журналом файловой системы.
+    private static void syncDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            log.debug("Каталог {} нельзя открыть для fsync: {}", directory, e.getMessage());
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
 
-                    String description = data[3]; // Описание транзакции
-                    LocalDate date;
-                    try {
-                        date = LocalDate.parse(data[4], formatter);
-                    } catch (DateTimeParseException e) {
-                        log.warn("Неверный формат даты '{}'. Строка будет пропущена.", data[4]);
-                        continue;
-                    }
-                    try {
-                        FinanceType type = FinanceType.valueOf(typeString);
-                        records.add(new FinanceRecord(id, type, amount, description, date));
-                    } catch (IllegalArgumentException e) {
-                        log.warn("Неизвестный тип записи '{}'. Запись будет пропущена.", typeString);
-                    }
-                }
-                log.info("Финансовые записи успешно загружены. Количество записей: {}", records.size());
-            } catch (IOException e) {
-                log.error("Ошибка чтения файла {}: {}", fileName, e.getMessage());
-            }
-            return records;
+    public static Path snapshotPath(boolean testMode) {
+        return Paths.get(testMode ? "test_finance_records.bin" : "finance_records.bin");
+    }
 
-        } else {
-            String fileName = "test_finance_records.csv";
-            Path filePath = Paths.get(fileName);
-            if (!Files.exists(filePath)) {
-                log.info("Тестовы Файл {} не найден. Начинаем с пустого списка записей.", fileName);
-                System.out.println("Файл не найден. Начинаем с пустого списка записей.");
-                return records;
-            }
-            try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-                reader.readLine(); // Пропускаем заголовок
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // фильтр спасает от ошибок при чтении CSV-данных и элементов отчёта вместе
-                    // (например, с System.out.println или writer.write(...) в generateFinanceReport)
-                    if (line.trim().isEmpty() || line.startsWith("Премьера:") ||
-                            line.startsWith("Поступление") || line.startsWith("Итог:") ||
-                            line.startsWith("======================================")) {
-                        continue;
-                    }
-                    String[] data = line.split(", ");
-                    if (data.length < 5) { // Ожидаем 5 колонок: ID, Тип, Сумма, Описание, Дата
-                        log.warn("Строка не соответствует формату в тесте и будет пропущена: {}", line);
-                        continue;
-                    }
-                    // Для простоты здесь премьера просто читается как строка, далее можно расширять
-                    // data[0] - название премьеры (не используется в FinanceRecord)
-                    String id = data[0];
-                    String typeString = data[1];// Тип (INCOME, EXPENSE и т.д.)
-                    double amount;
-                    try {
-                        amount = Double.parseDouble(data[2]);
-                    } catch (NumberFormatException e) {
-                        log.warn("Невозможно преобразовать сумму в тесте'{}'. Строка будет пропущена.", data[2]);
-                        continue;
-                    }
+    public static Path csvPath(boolean testMode) {
+        return Paths.get(testMode ? "test_finance_records.csv" : "finance_records.csv");
+    }
 
-                    String description = data[3]; // Описание транзакции
-                    LocalDate date;
-                    try {
-                        date = LocalDate.parse(data[4], formatter);
-                    } catch (DateTimeParseException e) {
-                        log.warn("Неверный формат даты в тесте'{}'. Строка будет пропущена.", data[4]);
-                        continue;
-                    }
-                    try {
-                        FinanceType type = FinanceType.valueOf(typeString);
-                        records.add(new FinanceRecord(id, type, amount, description, date));
-                    } catch (IllegalArgumentException e) {
-                        log.warn("Неизвестный тип записи в тесте'{}'. Запись будет пропущена.", typeString);
-                    }
-                }
-                log.info("Финансовые записи успешно загружены в тест. Количество записей: {}", records.size());
-            } catch (IOException e) {
-                log.error("Ошибка чтения тестового файла {}: {}", fileName, e.getMessage());
+    // Выгрузка записей в CSV (для просмотра и обмена с другими программами).
+    // Кодировка UTF-8, как у строк снимка, — выгрузка и снимок содержат одни и те же данные.
+    public boolean exportCsv(List<FinanceRecord> records, Path target) {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (FinanceRecord record : records) {
+                writer.write(toCsvLine(record));
+                writer.newLine();
             }
-            return records;
+            log.info("Финансовые записи выгружены в CSV-файл {}. Количество записей: {}", target, records.size());
+            return true;
+        } catch (IOException e) {
+            log.error("Ошибка при выгрузке финансовых записей в файл {}: {}", target, e.getMessage());
+            return false;
         }
     }
 
-    // Генерация PDF-отчёта с использованием Apache PDFBox.
-    public void generatePDFReport(List<FinanceRecord> records) {
-        String pdfFileName = "finance_report.pdf";
-        try (org.apache.pdfbox.pdmodel.PDDocument document = new org.apache.pdfbox.pdmodel.PDDocument()) {
-            org.apache.pdfbox.pdmodel.PDPage page = new org.apache.pdfbox.pdmodel.PDPage(org.apache.pdfbox.pdmodel.common.PDRectangle.A4);
-            document.addPage(page);
-
-            java.io.File fontFile = new java.io.File("/System/Library/Fonts/Supplemental/Arial.ttf");
-            org.apache.pdfbox.pdmodel.font.PDType0Font font = org.apache.pdfbox.pdmodel.font.PDType0Font.load(document, fontFile);
-
-            org.apache.pdfbox.pdmodel.PDPageContentStream contentStream = new org.apache.pdfbox.pdmodel.PDPageContentStream(document, page);
-
-            float yPosition = 750;
-            float margin = 50;
-            float rowHeight = 16;
-            float tableWidth = page.getMediaBox().getWidth() - 2 * margin;
-            float[] columnWidths = {70, 70, 70, 220, 100};
-            String[] headers = {"ID", "Тип", "Сумма", "Описание", "Дата"};
-
-            // Заголовок отчёта
-            contentStream.setFont(font, 14);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Детализированный финансовый отчёт");
-            contentStream.endText();
+    // Одна строка CSV для записи: ID, Тип, Сумма, Описание, Дата
+    static String toCsvLine(FinanceRecord record) {
+        return String.join(", ",
+                record.getId(),
+                record.getType().name(),
+                String.format(Locale.US, "%.2f", record.getAmount()), // Формат суммы с точкой
+                record.getDescription(),
+                record.getDate().format(formatter));
+    }
 
-            yPosition -= 25;
+    // Разбирает колонки строки CSV. Описание может содержать ", ", поэтому дата берётся из последней колонки.
+    // Возвращает null, если строка не соответствует формату.
+    static FinanceRecord fromCsvColumns(String[] data, int offset) {
+        if (data.length - offset < 5) {
+            return null;
+        }
+        int last = data.length - 1;
+        try {
+            FinanceType type = FinanceType.valueOf(data[offset + 1]);
+            double amount = Double.parseDouble(data[offset + 2]);
+            String description = String.join(", ", Arrays.copyOfRange(data, offset + 3, last));
+            LocalDate date = LocalDate.parse(data[last], formatter);
+            return new FinanceRecord(data[offset], type, amount, description, date);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
 
-            // Рисуем заголовки таблицы
-            float nextX = margin;
-            contentStream.setFont(font, 11);
-            for (int i = 0; i < headers.length; i++) {
-                contentStream.beginText();
-                contentStream.newLineAtOffset(nextX + 2, yPosition);
-                contentStream.showText(headers[i]);
-                contentStream.endText();
-                nextX += columnWidths[i];
+    // Загружает финансовые записи. Основной источник — двоичный снимок finance_records.bin;
+    // если его ещё нет (данные прежних версий), записи читаются из finance_records.csv,
+    // а при следующем сохранении снимка переходят в двоичный формат.
+    public List<FinanceRecord> loadRecords(boolean testMode) {
+        Path snapshot = snapshotPath(testMode);
+        if (Files.exists(snapshot)) {
+            try {
+                List<FinanceRecord> records = FinanceColumnarFile.read(snapshot);
+                log.info("Финансовые записи успешно загружены из {}. Количество записей: {}", snapshot, records.size());
+                return records;
+            } catch (IOException e) {
+                log.error("Ошибка чтения файла {}: {}", snapshot, e.getMessage());
+                return new ArrayList<>();
             }
+        }
+        return loadCsv(csvPath(testMode));
+    }
 
-            // Горизонтальная линия под заголовком
-            contentStream.moveTo(margin, yPosition - 2);
-            contentStream.lineTo(margin + tableWidth, yPosition - 2);
-            contentStream.stroke();
+    // Загружает снимок в колоночное хранилище, не создавая объектов FinanceRecord для его записей,
+    // и применяет журнал FinanceJournal — изменения после последнего снимка, уже записанные на диск.
+    // Изменения в режиме отложенной записи сначала сбрасывает FinanceManager.loadColumnStore().
+    public FinanceColumnStore loadColumnStore(boolean testMode) {
+        return loadColumnStore(testMode, new FinanceJournal(testMode));
+    }
 
-            yPosition -= rowHeight;
+    public FinanceColumnStore loadColumnStore(boolean testMode, FinanceJournal journal) {
+        FinanceColumnStore store = readColumnStore(testMode);
+        int replayed = journal.replay(store);
+        if (replayed > 0) {
+            log.info("Из журнала к колонкам применено изменений: {}", replayed);
+        }
+        return store;
+    }
 
-            contentStream.setFont(font, 10);
-            for (FinanceRecord record : records) {
-                if (yPosition < 50) {
-                    contentStream.close();
-                    page = new org.apache.pdfbox.pdmodel.PDPage(org.apache.pdfbox.pdmodel.common.PDRectangle.A4);
-                    document.addPage(page);
-                    contentStream = new org.apache.pdfbox.pdmodel.PDPageContentStream(document, page);
-                    yPosition = 750;
-                }
-                String[] data = {
-                        record.getId(),
-                        record.getType().toString(),
-                        String.format("%.2f", record.getAmount()),
-                        record.getDescription(),
-                        record.getDate().toString()
-                };
-                nextX = margin;
-                for (int i = 0; i < data.length; i++) {
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(nextX + 2, yPosition);
-                    contentStream.showText(data[i].length() > 35 ? data[i].substring(0, 35) + "..." : data[i]);
-                    contentStream.endText();
-                    nextX += columnWidths[i];
-                }
+    private FinanceColumnStore readColumnStore(boolean testMode) {
+        Path snapshot = snapshotPath(testMode);
+        if (!Files.exists(snapshot)) {
+            return FinanceColumnStore.of(loadCsv(csvPath(testMode)));
+        }
+        try {
+            FinanceColumnStore store = FinanceColumnarFile.readColumns(snapshot);
+            log.info("Колонки финансовых записей загружены из {}. Количество записей: {}", snapshot, store.size());
+            return store;
+        } catch (IOException e) {
+            log.error("Ошибка чтения файла {}: {}", snapshot, e.getMessage());
+            return new FinanceColumnStore();
+        }
+    }
 
-                // Горизонтальная линия
-                contentStream.moveTo(margin, yPosition - 2);
-                contentStream.lineTo(margin + tableWidth, yPosition - 2);
-                contentStream.stroke();
+    // Загружает финансовые записи из CSV-файла. Строки, не соответствующие формату, пропускаются.
+    // Файл читается через отображение в память (см. MappedFinanceCsvReader).
+    public List<FinanceRecord> loadCsv(Path filePath) {
+        if (!Files.exists(filePath)) {
+            log.info("Файл {} не найден. Начинаем с пустого списка записей.", filePath);
+            System.out.println("Файл не найден. Начинаем с пустого списка записей.");
+            return new ArrayList<>();
+        }
+        try {
+            List<FinanceRecord> records = MappedFinanceCsvReader.read(filePath);
+            log.info("Финансовые записи успешно загружены из {}. Количество записей: {}", filePath, records.size());
+            return records;
+        } catch (IOException e) {
+            log.error("Ошибка чтения файла {}: {}", filePath, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-                yPosition -= rowHeight;
-            }
+    // Генерация PDF-отчёта с использованием Apache PDFBox (см. FinancePdfWriter).
+    public void generatePDFReport(List<FinanceRecord> records) {
+        generatePDFReport(records, "finance_report.pdf");
+    }
 
-            yPosition -= 10;
-            double totalIncome = records.stream().filter(r -> r.getType() == FinanceType.INCOME).mapToDouble(FinanceRecord::getAmount).sum();
-            double totalExpense = records.stream().filter(r -> r.getType() == FinanceType.EXPENSE).mapToDouble(FinanceRecord::getAmount).sum();
-            double overallTotal = totalIncome - totalExpense;
+    public void generatePDFReport(List<FinanceRecord> records, String pdfFileName) {
+        generatePDFReport(records.iterator(), pdfFileName);
+    }
 
-            contentStream.beginText();
-            contentStream.setFont(font, 12);
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText(String.format("Общий доход: %.2f, Расходы: %.2f, Итог: %.2f", totalIncome, totalExpense, overallTotal));
-            contentStream.endText();
+    // Записи читаются из потока по одной: весь список в памяти для отчёта не нужен
+    public void generatePDFReport(Stream<FinanceRecord> records, String pdfFileName) {
+        try (records) {
+            generatePDFReport(records.iterator(), pdfFileName);
+        }
+    }
 
-            contentStream.close();
-            document.save(pdfFileName);
-            log.info("PDF-отчёт успешно сгенерирован: {}", pdfFileName);
+    public void generatePDFReport(Iterator<FinanceRecord> records, String pdfFileName) {
+        try {
+            writePDFReport(records, Paths.get(pdfFileName));
             System.out.println("PDF-отчёт успешно сгенерирован: " + pdfFileName);
-
         } catch (IOException e) {
             log.error("Ошибка при генерации PDF-отчёта: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // То же без перехвата ошибки: для вызывающих, которым нужен результат (например, ReportService)
+    public void writePDFReport(Iterator<FinanceRecord> records, Path target) throws IOException {
+        long rows = FinancePdfWriter.write(records, target);
+        log.info("PDF-отчёт успешно сгенерирован: {}. Строк: {}", target, rows);
+    }
+}
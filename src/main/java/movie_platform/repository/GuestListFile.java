@@ -0,0 +1,143 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Двоичный формат списка гостей премьеры (<id>_guests.dat).
+//   заголовок: magic (int) | версия (int) | число гостей (int) | резерв (int)
+//   гость: длина имени в байтах (int) | имя (UTF-8)
+// Файл пишется блоками через FileChannel во временный файл и затем заменяет старый, поэтому
+// оборванная запись не портит прежний список. Файлы прежних версий (сериализация Java,
+// начинаются с 0xACED) читаются один раз с фильтром классов и сразу переписываются в новом формате.
+@Slf4j
+final class GuestListFile {
+
+    private static final int MAGIC = 0x47535431; // "GST1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final short LEGACY_MAGIC = (short) 0xACED; // ObjectStreamConstants.STREAM_MAGIC
+
+    // Из старого файла допускается только список строк: любой другой класс отклоняется до создания объекта.
+    // Для массивов фильтр проверяет тип элемента, поэтому Object нужен для внутреннего массива ArrayList.
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=5;java.util.ArrayList;java.util.LinkedList;java.util.Arrays$ArrayList;java.util.CollSer;"
+                    + "java.lang.String;java.lang.Object;!*");
+
+    private GuestListFile() {
+    }
+
+    static void write(List<String> guests, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ORDER);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(guests.size()).putInt(0);
+            for (String guest : guests) {
+                byte[] bytes = (guest == null ? "" : guest).getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 4 + bytes.length) {
+                    writeFully(channel, buffer.flip());
+                    buffer.clear();
+                    if (buffer.remaining() < 4 + bytes.length) { // Имя длиннее буфера — отдельной записью
+                        writeFully(channel, ByteBuffer.allocate(4).order(ORDER).putInt(bytes.length).flip());
+                        writeFully(channel, ByteBuffer.wrap(bytes));
+                        continue;
+                    }
+                }
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            writeFully(channel, buffer.flip());
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<String> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Файл " + path + " слишком большой для списка гостей");
+            }
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            channel.read(magic, 0);
+            if (magic.position() < 2 || magic.getShort(0) != LEGACY_MAGIC) {
+                // Файл читается в массив целиком: строки создаются прямо из него, без промежуточных буферов
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                return decode(buffer.flip().order(ORDER), path);
+            }
+        }
+        List<String> guests = readLegacy(path);
+        write(guests, path);
+        log.info("Список гостей {} переведён из сериализации Java в новый формат ({} гостей)", path, guests.size());
+        return guests;
+    }
+
+    private static List<String> decode(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Файл " + path + " не является списком гостей версии " + VERSION);
+        }
+        int count = buffer.getInt();
+        buffer.getInt(); // Резерв
+        // Каждый гость занимает не меньше 4 байт: число из заголовка не может быть больше остатка файла
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new IOException("Файл " + path + " повреждён: некорректное число гостей " + count);
+        }
+        List<String> guests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Файл " + path + " повреждён: запись гостя " + i);
+            }
+            guests.add(new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+            buffer.position(buffer.position() + length);
+        }
+        return guests;
+    }
+
+    private static List<String> readLegacy(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path);
+             ObjectInputStream ois = new ObjectInputStream(in)) {
+            ois.setObjectInputFilter(LEGACY_FILTER);
+            Object obj = ois.readObject();
+            if (!(obj instanceof List<?> list)) {
+                throw new IOException("Файл " + path + " не содержит список гостей");
+            }
+            List<String> guests = new ArrayList<>(list.size());
+            for (Object item : list) {
+                if (item instanceof String guest) {
+                    guests.add(guest);
+                } else {
+                    log.warn("Найден неподходящий элемент в списке гостей: {} ", item);
+                }
+            }
+            return guests;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Файл " + path + " содержит неизвестный класс: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceRecord;
+import movie_platform.utils.DateUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение finance_records.csv через отображение файла в память (FileChannel.map, см. ParallelChunkLoader).
+// Байты просматриваются напрямую: разделители ", " ищутся без регулярных выражений,
+// сумма и дата dd.MM.yyyy разбираются прямо из байтов. Строками становятся только ID и описание.
+// Правила пропуска строк те же, что были у построчного чтения через BufferedReader.
+@Slf4j
+final class MappedFinanceCsvReader {
+
+    private static final int FIELDS = 5; // ID, Тип, Сумма, Описание, Дата
+    private static final DateTimeFormatter DATE_FORMATTER = DateUtils.DATE;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final int MAX_EXACT_DIGITS = 15; // До 15 цифр деление mantissa / 10^n даёт тот же double, что и parseDouble
+
+    private static final FinanceType[] TYPES = FinanceType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Charset charset = StandardCharsets.UTF_8; // Кодировка всех финансовых файлов (CSV, журнал, снимок)
+    // Строки отчёта, которые могли попасть в CSV (см. фильтр в loadRecords)
+    private final byte[][] reportPrefixes = {
+            "Премьера:".getBytes(charset),
+            "Поступление".getBytes(charset),
+            "Итог:".getBytes(charset),
+            "======================================".getBytes(charset)
+    };
+
+    private final List<FinanceRecord> records = new ArrayList<>();
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+    private byte[] scratch = new byte[256]; // Буфер для байтов ID и описания
+    private boolean headerSkipped;
+    private double amount; // Результат parseAmount
+    private LocalDate date; // Результат parseDate
+
+    private MappedFinanceCsvReader(boolean headerSkipped) {
+        this.headerSkipped = headerSkipped;
+    }
+
+    // Читает все записи файла. Некорректные строки пропускаются с предупреждением в логе.
+    // Большой файл разбирается по кускам параллельно (см. ParallelChunkLoader), у каждого куска свой разборщик.
+    static List<FinanceRecord> read(Path path) throws IOException {
+        return ParallelChunkLoader.load(path, (chunk, firstLineNumber) ->
+                new MappedFinanceCsvReader(firstLineNumber > 1).parseChunk(chunk));
+    }
+
+    // Разбирает все строки куска (кусок всегда заканчивается переводом строки или концом файла)
+    private List<FinanceRecord> parseChunk(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                // "\r\n" даёт дополнительную пустую строку, которая пропускается как пустая
+                parseLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < limit) {
+            parseLine(buffer, lineStart, limit); // Последняя строка без перевода строки
+        }
+        return records;
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        if (!headerSkipped) { // Пропускаем заголовок
+            headerSkipped = true;
+            return;
+        }
+        if (isBlank(buffer, start, end) || isReportLine(buffer, start, end)) {
+            return;
+        }
+        if (splitFields(buffer, start, end) < FIELDS) { // Ожидаем 5 колонок: ID, Тип, Сумма, Описание, Дата
+            log.warn("Строка не соответствует формату и будет пропущена: {}", text(buffer, start, end));
+            return;
+        }
+        if (!parseAmount(buffer, fieldStart[2], fieldEnd[2])) {
+            log.warn("Невозможно преобразовать сумму '{}'. Строка будет пропущена.", field(buffer, 2));
+            return;
+        }
+        if (!parseDate(buffer, fieldStart[4], fieldEnd[4])) {
+            log.warn("Неверный формат даты '{}'. Строка будет пропущена.", field(buffer, 4));
+            return;
+        }
+        FinanceType type = parseType(buffer, fieldStart[1], fieldEnd[1]);
+        if (type == null) {
+            log.warn("Неизвестный тип записи '{}'. Запись будет пропущена.", field(buffer, 1));
+            return;
+        }
+        try {
+            records.add(new FinanceRecord(field(buffer, 0), type, amount, field(buffer, 3), date));
+        } catch (IllegalArgumentException e) {
+            // Например, сумма не больше 0 — конструктор FinanceRecord такую запись не принимает
+            log.warn("Некорректная запись ({}). Строка будет пропущена: {}", e.getMessage(), text(buffer, start, end));
+        }
+    }
+
+    // Аналог line.trim().isEmpty()
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isReportLine(ByteBuffer buffer, int start, int end) {
+        for (byte[] prefix : reportPrefixes) {
+            if (startsWith(buffer, start, end, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Делит строку по ", " так же, как line.split(", "): первые 5 колонок запоминаются,
+    // пустые колонки в конце строки не считаются. Возвращает количество колонок.
+    private int splitFields(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        int nonEmptyCount = 0;
+        int fieldBegin = start;
+        for (int i = start; i <= end; i++) {
+            boolean separator = i < end - 1 && buffer.get(i) == ',' && buffer.get(i + 1) == ' ';
+            if (separator || i == end) {
+                if (count < FIELDS) {
+                    fieldStart[count] = fieldBegin;
+                    fieldEnd[count] = i;
+                }
+                count++;
+                if (i > fieldBegin) {
+                    nonEmptyCount = count;
+                }
+                fieldBegin = i + 2;
+                i++; // Пропускаем пробел после запятой
+            }
+        }
+        return nonEmptyCount;
+    }
+
+    // Сумма вида 1234.56 собирается из цифр без создания строки; всё остальное разбирает Double.parseDouble
+    private boolean parseAmount(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9' && digits < MAX_EXACT_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return parseAmountSlow(buffer, start, end);
+            }
+        }
+        if (digits == 0) {
+            return parseAmountSlow(buffer, start, end);
+        }
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : mantissa;
+        amount = negative ? -value : value;
+        return true;
+    }
+
+    private boolean parseAmountSlow(ByteBuffer buffer, int start, int end) {
+        try {
+            amount = Double.parseDouble(text(buffer, start, end));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Дата dd.MM.yyyy разбирается из байтов; день за пределами месяца сдвигается на последний день,
+    // как это делает DateTimeFormatter в режиме SMART. Нестандартные значения разбирает DateTimeFormatter.
+    private boolean parseDate(ByteBuffer buffer, int start, int end) {
+        if (end - start == 10 && buffer.get(start + 2) == '.' && buffer.get(start + 5) == '.') {
+            int day = twoDigits(buffer, start);
+            int month = twoDigits(buffer, start + 3);
+            int century = twoDigits(buffer, start + 6);
+            int yearOfCentury = twoDigits(buffer, start + 8);
+            int year = century * 100 + yearOfCentury;
+            if (day >= 1 && day <= 31 && month >= 1 && month <= 12
+                    && century >= 0 && yearOfCentury >= 0 && year >= 1) {
+                date = LocalDate.of(year, month, Math.min(day, YearMonth.of(year, month).lengthOfMonth()));
+                return true;
+            }
+        }
+        try {
+            date = LocalDate.parse(text(buffer, start, end), DATE_FORMATTER);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Две цифры в число; -1, если встретился не цифровой байт
+    private static int twoDigits(ByteBuffer buffer, int index) {
+        int high = buffer.get(index) - '0';
+        int low = buffer.get(index + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    // Тип сравнивается с именами констант FinanceType побайтово (как FinanceType.valueOf)
+    private static FinanceType parseType(ByteBuffer buffer, int start, int end) {
+        for (int t = 0; t < TYPE_NAMES.length; t++) {
+            byte[] name = TYPE_NAMES[t];
+            if (name.length == end - start && startsWith(buffer, start, end, name)) {
+                return TYPES[t];
+            }
+        }
+        return null;
+    }
+
+    private String field(ByteBuffer buffer, int index) {
+        return text(buffer, fieldStart[index], fieldEnd[index]);
+    }
+
+    private String text(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+}
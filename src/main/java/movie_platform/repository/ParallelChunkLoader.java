@@ -0,0 +1,175 @@
+package movie_platform.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Параллельная загрузка больших текстовых файлов (finance_records.csv, premieres.txt, movie.txt).
+// Файл делится на куски по границам строк, куски разбираются на ForkJoinPool, а результаты
+// склеиваются в порядке следования в файле. Номер первой строки каждого куска известен заранее,
+// поэтому предупреждения о пропущенных строках содержат те же номера, что и при чтении подряд.
+public final class ParallelChunkLoader {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;   // Меньше 1 МБ делить нет смысла
+    private static final long MAX_CHUNK_SIZE = 256L << 20; // Кусок отображается в память целиком
+    private static final int CHUNKS_PER_THREAD = 4;         // Несколько кусков на поток выравнивают нагрузку
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    // Разбор куска: chunk содержит только целые строки, firstLineNumber — номер первой строки в файле (с 1)
+    @FunctionalInterface
+    public interface ChunkParser<T> {
+        List<T> parse(ByteBuffer chunk, long firstLineNumber);
+    }
+
+    // Разбор одной строки; null — строка пропускается (о причине парсер пишет в лог сам)
+    @FunctionalInterface
+    public interface LineParser<T> {
+        T parse(String line, long lineNumber);
+    }
+
+    private ParallelChunkLoader() {
+    }
+
+    // Загружает файл построчно; строки делятся так же, как в BufferedReader.readLine ("\n", "\r", "\r\n")
+    public static <T> List<T> loadLines(Path path, Charset charset, LineParser<T> parser) throws IOException {
+        return load(path, (chunk, firstLineNumber) -> parseLines(chunk, firstLineNumber, charset, parser));
+    }
+
+    public static <T> List<T> load(Path path, ChunkParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> ranges = split(channel);
+            if (ranges.size() <= 1) { // Маленький файл разбирается в текущем потоке
+                return ranges.isEmpty() ? new ArrayList<>() : parser.parse(map(channel, ranges.get(0)), 1);
+            }
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            // Первый проход: количество строк в каждом куске, чтобы знать номер первой строки
+            List<ForkJoinTask<Long>> counts = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                counts.add(pool.submit(() -> countLines(map(channel, range))));
+            }
+            // Второй проход: разбор кусков
+            List<ForkJoinTask<List<T>>> parts = new ArrayList<>(ranges.size());
+            long firstLineNumber = 1;
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                long lineNumber = firstLineNumber;
+                parts.add(pool.submit(() -> parser.parse(map(channel, range), lineNumber)));
+                firstLineNumber += join(counts.get(i));
+            }
+
+            List<T> result = new ArrayList<>();
+            for (ForkJoinTask<List<T>> part : parts) {
+                result.addAll(join(part));
+            }
+            return result;
+        }
+    }
+
+    // Делит файл на куски; каждый кусок, кроме последнего, заканчивается сразу после '\n'
+    private static List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE,
+                Math.min(MAX_CHUNK_SIZE, size / ((long) threads * CHUNKS_PER_THREAD)));
+
+        List<long[]> ranges = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Строка длиннее " + Integer.MAX_VALUE + " байт, файл не может быть разобран");
+            }
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    // Позиция сразу после первого '\n', начиная с position (или конец файла)
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long[] range) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Количество строк в куске: "\r\n" считается одним переводом строки
+    private static long countLines(ByteBuffer chunk) {
+        int limit = chunk.limit();
+        long lines = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = chunk.get(i);
+            if (b == '\n' || (b == '\r' && (i + 1 == limit || chunk.get(i + 1) != '\n'))) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static <T> List<T> parseLines(ByteBuffer chunk, long firstLineNumber, Charset charset, LineParser<T> parser) {
+        // Куски выровнены по '\n', поэтому многобайтовые символы не разрезаются
+        CharBuffer text = charset.decode(chunk);
+        List<T> result = new ArrayList<>();
+        long lineNumber = firstLineNumber;
+        int lineStart = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.get(i);
+            if (c == '\n' || c == '\r') {
+                addParsed(result, parser.parse(text.subSequence(lineStart, i).toString(), lineNumber++));
+                if (c == '\r' && i + 1 < length && text.get(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < length) { // Последняя строка без перевода строки
+            addParsed(result, parser.parse(text.subSequence(lineStart, length).toString(), lineNumber));
+        }
+        return result;
+    }
+
+    private static <T> void addParsed(List<T> result, T value) {
+        if (value != null) {
+            result.add(value);
+        }
+    }
+
+    // Ошибки ввода-вывода из задач пробрасываются как IOException
+    private static <V> V join(ForkJoinTask<V> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
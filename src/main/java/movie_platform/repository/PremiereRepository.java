@@ -2,47 +2,117 @@ package movie_platform.repository;
 
 import lombok.extern.slf4j.Slf4j;
 import movie_platform.model.Premiere;
+import movie_platform.utils.DateUtils;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 
 @Slf4j
 public class PremiereRepository {
 
-    public void savePremieresToFile(Map<String, Premiere> premiereMap, boolean testModus) {
+    private PremiereSlotFile slotFile; // Основное хранилище премьер (premieres.dat), открывается при первом обращении
+    private final Map<String, ReviewLog> reviewLogs = new ConcurrentHashMap<>(); // Журналы отзывов по префиксу файла
+
+    public static Path slotPath(boolean testMode) {
+        return Paths.get(testMode ? "test_premieres.dat" : "premieres.dat");
+    }
+
+    // Загружает премьеры из premieres.dat; если его ещё нет (данные прежних версий) — из premieres.txt,
+    // и при первом сохранении они переносятся в premieres.dat.
+    public Map<String, Premiere> loadPremieres(boolean testMode) {
+        Path path = slotPath(testMode);
+        if (!Files.exists(path)) {
+            return loadPremiereFromFile(testMode ? "test_premieres.txt" : "premieres.txt");
+        }
+        try {
+            Map<String, Premiere> premiereMap = new LinkedHashMap<>();
+            for (Premiere premiere : slotFile(testMode).load()) {
+                premiereMap.put(premiere.getId(), premiere);
+            }
+            log.info("Премьеры загружены из {}. Количество: {}", path, premiereMap.size());
+            return premiereMap;
+        } catch (IOException e) {
+            log.error("Ошибка чтения файла премьер {}: {}", path, e.getMessage());
+            System.out.println("Ошибка чтения файла премьер: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    // Частичное сохранение: записываются только новые и изменённые премьеры (каждая — в свои блоки
+    // premieres.dat), блоки удалённых премьер освобождаются. Кодируются снимки, которые возвращает
+    // snapshots (см. PremiereManager). Возвращает количество записанных премьер.
+    public int savePremieres(Collection<Premiere> premieres, Function<Premiere, Premiere.Snapshot> snapshots,
+                             boolean testMode) {
+        try {
+            int written = slotFile(testMode).sync(premieres, snapshots, false);
+            if (written > 0) {
+                log.info("Сохранено изменённых премьер: {}", written);
+            }
+            return written;
+        } catch (IOException e) {
+            System.out.println("Ошибка при сохранении премьер: " + e.getMessage());
+            log.warn("Ошибка при сохранении премьер: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    // Сохранение с fsync для контрольной точки журнала продаж; false, если записать не удалось
+    public boolean checkpointPremieres(Collection<Premiere> premieres, Function<Premiere, Premiere.Snapshot> snapshots,
+                                       boolean testMode) {
+        try {
+            slotFile(testMode).sync(premieres, snapshots, true);
+            return true;
+        } catch (IOException e) {
+            log.warn("Ошибка при сохранении премьер для контрольной точки: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized PremiereSlotFile slotFile(boolean testMode) {
+        Path path = slotPath(testMode);
+        if (slotFile == null || !slotFile.getPath().equals(path)) {
+            slotFile = new PremiereSlotFile(path);
+        }
+        return slotFile;
+    }
+
+    // Полная выгрузка премьер в текстовый файл premieres.txt (для просмотра и обмена)
+    public void savePremieresToFile(Collection<Premiere.Snapshot> premieres, boolean testModus) {
         if (!testModus) {
             String fileName = "premieres.txt";
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
                 writer.write("ID, Название, Дата, Бюджет, Локация, Кол-во билетов, Продано билетов");
                 writer.newLine();
 
-                for (Premiere premiere : premiereMap.values()) {
-                    String premiereData = premiere.getId() + ", " +
-                            premiere.getMovieTitle() + ", " +
-                            premiere.getDate().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm z", Locale.ENGLISH)) + ", " +
-                            premiere.getBudget() + ", " +
-                            premiere.getLocation() + ", " +
-                            premiere.getTicketCount() + ", " +
-                            premiere.getTicketSold();
-                    writer.write(premiereData);
+                StringBuilder premiereData = new StringBuilder(128); // Один буфер на все строки файла
+                for (Premiere.Snapshot premiere : premieres) {
+                    int ticketSold = premiere.tickets().ticketSold();
+                    premiereData.setLength(0);
+                    premiereData.append(premiere.id()).append(", ")
+                            .append(premiere.movieTitle()).append(", ");
+                    DateUtils.appendDateTimeZone(premiereData, premiere.date()).append(", ")
+                            .append(premiere.budget()).append(", ")
+                            .append(premiere.location()).append(", ")
+                            .append(premiere.initialTicketCount() - ticketSold).append(", ")
+                            .append(ticketSold);
+                    writer.append(premiereData);
                     writer.newLine();
                 }
                 System.out.println("Все премьеры сохранены в файл." + fileName);
@@ -53,19 +123,22 @@ public class PremiereRepository {
             }
         } else {
             String fileName = "test_premieres.txt";
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8))) {
                 writer.write("ID, Название, Дата, Бюджет, Локация, Кол-во билетов, Продано билетов");
                 writer.newLine();
 
-                for (Premiere premiere : premiereMap.values()) {
-                    String premiereData = premiere.getId() + ", " +
-                            premiere.getMovieTitle() + ", " +
-                            premiere.getDate().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm z", Locale.ENGLISH)) + ", " +
-                            premiere.getBudget() + ", " +
-                            premiere.getLocation() + ", " +
-                            premiere.getTicketCount() + ", " +
-                            premiere.getTicketSold();
-                    writer.write(premiereData);
+                StringBuilder premiereData = new StringBuilder(128); // Один буфер на все строки файла
+                for (Premiere.Snapshot premiere : premieres) {
+                    int ticketSold = premiere.tickets().ticketSold();
+                    premiereData.setLength(0);
+                    premiereData.append(premiere.id()).append(", ")
+                            .append(premiere.movieTitle()).append(", ");
+                    DateUtils.appendDateTimeZone(premiereData, premiere.date()).append(", ")
+                            .append(premiere.budget()).append(", ")
+                            .append(premiere.location()).append(", ")
+                            .append(premiere.initialTicketCount() - ticketSold).append(", ")
+                            .append(ticketSold);
+                    writer.append(premiereData);
                     writer.newLine();
                 }
                 System.out.println("Все премьеры сохранены в тестовый файл." + fileName);
@@ -77,63 +150,159 @@ public class PremiereRepository {
         }
     }
 
-    // Метод для сохранения гостей в файл
+    // Файл списка гостей премьеры: <id>_guests.dat или <id>_testGuests.dat
+    public static Path guestPath(String premiereId, boolean testMode) {
+        return Paths.get(premiereId + (testMode ? "_testGuests.dat" : "_guests.dat"));
+    }
+
+    // Метод для сохранения гостей в файл (двоичный формат GuestListFile)
     public void saveGuestsToFile(Premiere premiere, boolean testMode) {
-        String id = premiere.getId();
-        List<String> guestList = premiere.getGuestList();
-        if (!testMode) {
-            String fileName = id + "_guests.dat"; // Используем ID премьеры для имени файла
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(Paths.get(fileName)))) {
-                oos.writeObject(guestList);
-                System.out.println("Список гостей для премьеры " + id + " сохранен в файл: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при сохранении гостей: " + id + ": " + e.getMessage());
-                log.warn("Ошибка при сохранении гостей в файл для премьеры {}: {}", id, e.getMessage());
+        saveGuestsToFile(premiere.getId(), premiere.getGuestList(), testMode);
+    }
+
+    // Сохранение готового списка гостей (например, копии, снятой под блокировкой премьеры)
+    public void saveGuestsToFile(String id, List<String> guests, boolean testMode) {
+        Path path = guestPath(id, testMode);
+        try {
+            GuestListFile.write(guests, path);
+            System.out.println("Список гостей для премьеры " + id + " сохранен в файл: " + path);
+        } catch (IOException e) {
+            System.out.println("Ошибка при сохранении гостей: " + id + ": " + e.getMessage());
+            log.warn("Ошибка при сохранении гостей в файл для премьеры {}: {}", id, e.getMessage());
+        }
+    }
+
+    // Журнал отзывов премьеры: <id>_reviews.log и индекс <id>_reviews.idx (в тестах — <id>_testReviews.*)
+    public static Path reviewLogPath(String premiereId, boolean testMode) {
+        return Paths.get(premiereId + (testMode ? "_testReviews.log" : "_reviews.log"));
+    }
+
+    private ReviewLog reviewLog(String premiereId, boolean testMode) {
+        String prefix = premiereId + (testMode ? "_testReviews" : "_reviews");
+        return reviewLogs.computeIfAbsent(prefix,
+                key -> new ReviewLog(Paths.get(key + ".log"), Paths.get(key + ".idx"), Paths.get(key + ".txt")));
+    }
+
+    // Отчёт о прошедшей премьере: <id>_report.txt или <id>_testReport.txt
+    public static Path reportPath(String premiereId, boolean testMode) {
+        return Paths.get(premiereId + (testMode ? "_testReport.txt" : "_report.txt"));
+    }
+
+    // Каталог архива гостей и отзывов прошедших премьер
+    public static Path archivePath(boolean testMode) {
+        return Paths.get(testMode ? "test_archive" : "archive");
+    }
+
+    public boolean savePremiereReport(String premiereId, String report, boolean testMode) {
+        Path path = reportPath(premiereId, testMode);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            // Отчёт появляется целиком: наличие файла означает, что он уже готов (см. PremiereScheduler)
+            Files.writeString(temp, report, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Отчёт о премьере {} сохранён в {}", premiereId, path);
+            return true;
+        } catch (IOException e) {
+            log.warn("Ошибка при сохранении отчёта о премьере {}: {}", premiereId, e.getMessage());
+            return false;
+        }
+    }
+
+    // Переносит список гостей и журнал отзывов премьеры в архив. Повторный вызов ничего не делает:
+    // уже заархивированные файлы не перезаписываются. Возвращает количество перенесённых файлов.
+    public int archivePremiereFiles(String premiereId, boolean testMode) {
+        Path directory = archivePath(testMode);
+        int moved = 0;
+        try {
+            Path guests = guestPath(premiereId, testMode);
+            Path target = directory.resolve(guests.getFileName());
+            if (Files.exists(guests) && !Files.exists(target)) {
+                Files.createDirectories(directory);
+                Files.move(guests, target);
+                moved++;
             }
-        } else {
-            String fileName = id + "_testGuests.dat"; // Используем ID премьеры для имени файла
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(Paths.get(fileName)))) {
-                oos.writeObject(guestList);
-                System.out.println("Список гостей для премьеры " + id + " сохранен в файл: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при сохранении гостей: " + id + ": " + e.getMessage());
-                log.warn("Ошибка при сохранении гостей из тестов в файл для премьеры {}: {}", id, e.getMessage());
+            moved += reviewLog(premiereId, testMode).archive(directory);
+            if (moved > 0) {
+                log.info("Файлы премьеры {} перенесены в архив {}: {}", premiereId, directory, moved);
             }
+        } catch (IOException e) {
+            log.warn("Ошибка при архивировании файлов премьеры {}: {}", premiereId, e.getMessage());
         }
+        return moved;
     }
 
-    // Метод для сохранения отзывов в текстовый файл
+    // Метод для сохранения отзывов: в журнал дописываются только отзывы, добавленные после прошлого сохранения
     public void saveReviewsToFile(Premiere premiere, boolean testProcess) {
         String id = premiere.getId();
-        List<String> reviews = premiere.getReviews();
-        if (!testProcess) {
-            String fileName = id + "_reviews.txt"; // Используем ID премьеры для имени файла
-            Path filePath = Paths.get(fileName);
-            try {
-                // Записываем все отзывы в файл (добавление строк)
-                Files.write(filePath, reviews, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                System.out.println("Отзывы для премьеры " + id + " сохранены в файл: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при сохранении отзывов для премьеры " + id + ": " + e.getMessage());
-                log.warn("Ошибка при сохранении отзывов в файл для премьеры {}: {}", id, e.getMessage());
-            }
-        } else {
-            String fileName = id + "_testReviews.txt"; // Используем ID премьеры для имени файла
-            Path filePath = Paths.get(fileName);
-            try {
-                // Записываем все отзывы в файл (добавление строк)
-                Files.write(filePath, reviews, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                System.out.println("Отзывы для премьеры " + id + " сохранены в файл: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при сохранении отзывов для премьеры " + id + ": " + e.getMessage());
-                log.warn("Ошибка при сохранении отзывов из тестов в файл для премьеры {}: {} ", id, e.getMessage());
-            }
+        List<String> unsaved = premiere.getUnsavedReviews();
+        ReviewLog reviewLog = reviewLog(id, testProcess);
+        try {
+            reviewLog.append(unsaved);
+            premiere.markReviewsSaved(premiere.getReviews().size());
+            System.out.println("Отзывы для премьеры " + id + " сохранены в файл: " + reviewLog.getLogPath());
+        } catch (IOException e) {
+            System.out.println("Ошибка при сохранении отзывов для премьеры " + id + ": " + e.getMessage());
+            log.warn("Ошибка при сохранении отзывов в файл для премьеры {}: {}", id, e.getMessage());
+        }
+    }
+
+    // Добавляет один отзыв к премьере и дописывает в журнал только его
+    public boolean addReview(Premiere premiere, String review, boolean testMode) {
+        if (review == null || review.trim().isEmpty()) {
+            log.warn("Ошибка при добавлении отзыва: отзыв не может быть пустым.");
+            System.out.println("Ошибка при добавлении отзыва: отзыв не может быть пустым.");
+            return false;
+        }
+        premiere.getReviews().add(review);
+        saveReviewsToFile(premiere, testMode);
+        return true;
+    }
+
+    // Количество отзывов в журнале (без чтения самих отзывов)
+    public int countReviews(String premiereId, boolean testMode) {
+        try {
+            return reviewLog(premiereId, testMode).count();
+        } catch (IOException e) {
+            log.warn("Ошибка при чтении журнала отзывов для премьеры {}: {}", premiereId, e.getMessage());
+            return 0;
+        }
+    }
+
+    // Последние count отзывов в порядке добавления
+    public List<String> loadLatestReviews(String premiereId, int count, boolean testMode) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Количество отзывов не может быть отрицательным.");
+        }
+        ReviewLog reviewLog = reviewLog(premiereId, testMode);
+        try {
+            int total = reviewLog.count();
+            return reviewLog.read(Math.max(0, total - count), count);
+        } catch (IOException e) {
+            log.warn("Ошибка при чтении журнала отзывов для премьеры {}: {}", premiereId, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Страница отзывов (нумерация с 1) в порядке добавления
+    public List<String> loadReviewsPage(String premiereId, int page, int pageSize, boolean testMode) {
+        if (page < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("Номер и размер страницы должны быть больше 0.");
+        }
+        try {
+            return reviewLog(premiereId, testMode).read((int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * pageSize), pageSize);
+        } catch (IOException e) {
+            log.warn("Ошибка при чтении журнала отзывов для премьеры {}: {}", premiereId, e.getMessage());
+            return new ArrayList<>();
         }
     }
 
     public Map<String, Premiere> loadPremiereFromFile() {
+        return loadPremiereFromFile("premieres.txt");
+    }
+
+    // Загрузка из текстового файла (формат прежних версий)
+    public Map<String, Premiere> loadPremiereFromFile(String fileName) {
         Map<String, Premiere> premiereMap = new HashMap<>();
-        String fileName = "premieres.txt";
 
         File file = new File(fileName);
         if (!file.exists()) {
@@ -141,22 +310,21 @@ public class PremiereRepository {
             return new HashMap<>();
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            boolean firstLine = true; // Добавляем флаг для заголовка
-
-            while ((line = reader.readLine()) != null) {
-                if (firstLine) { // Пропускаем заголовок
-                    firstLine = false;
-                    continue;
-                }
-                String[] data = line.split(", ");
-                if (data.length >= 7) {  // Убедимся, что у нас есть все данные
-                    Premiere premiere = createPremiere(data);  // Создаем объект Premiere
-                    if (premiere != null) {
-                        premiereMap.put(premiere.getId(), premiere);  // Добавляем премьеру в карту
-                    }
-                }
+        try {
+            // Строки разбираются параллельно (см. ParallelChunkLoader), премьеры приходят в порядке файла
+            List<Premiere> premieres = ParallelChunkLoader.loadLines(file.toPath(), StandardCharsets.UTF_8,
+                    (line, lineNumber) -> {
+                        if (lineNumber == 1) { // Пропускаем заголовок
+                            return null;
+                        }
+                        String[] data = line.split(", ");
+                        if (data.length >= 7) {  // Убедимся, что у нас есть все данные
+                            return createPremiere(data);  // Создаем объект Premiere (null при ошибке)
+                        }
+                        return null;
+                    });
+            for (Premiere premiere : premieres) {
+                premiereMap.put(premiere.getId(), premiere);  // Добавляем премьеру в карту
             }
             // Проверка на наличие данных
             if (premiereMap.isEmpty()) {
@@ -179,8 +347,7 @@ public class PremiereRepository {
         try {
             String id = data[0];  // ID премьеры
             String movieTitle = data[1];  // Название фильма
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm z", Locale.ENGLISH);
-            ZonedDateTime dateTime = ZonedDateTime.parse(data[2], formatter);  // Преобразуем строку в ZonedDateTime
+            ZonedDateTime dateTime = DateUtils.parseDateTimeZone(data[2]);  // Преобразуем строку в ZonedDateTime
 
             double budget = Double.parseDouble(data[3]);  // Бюджет
             String location = data[4];  // Местоположение
@@ -195,100 +362,37 @@ public class PremiereRepository {
         }
     }
 
-    // Метод для загрузки гостей из файла
+    // Метод для загрузки гостей из файла. Файл в старом формате (сериализация Java) переводится в новый при первом чтении.
     public void loadGuestsFromFile(Premiere premiere, boolean testMode) {
         String id = premiere.getId();
-        if (!testMode) {
-            String fileName = id + "_guests.dat"; // Используем ID премьеры для имени файла
-            Path path = Paths.get(fileName);
-            System.out.println("Месторасположение файла: " + path.toAbsolutePath());
-            if (!Files.exists(path)) {
-                log.warn("Файл не найден: {} Создаю новый список гостей.", fileName);
-                premiere.setGuestList(new ArrayList<>()); // Создаем пустой список гостей
-                return; // Прерываем выполнение метода, если файла нет
-            }
-            try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(path))) {
-                Object obj = ois.readObject();
-                if (obj instanceof List<?>) { // Проверяем, что obj — это List
-                    List<String> guests = new ArrayList<>();
-                    for (Object item : (List<?>) obj) { // Приводим элементы списка к String
-                        if (item instanceof String) {
-                            guests.add((String) item);
-                        } else {
-                            log.warn("Найден неподходящий элемент в списке гостей: {} ", item);
-                        }
-                    }
-                    premiere.setGuestList(guests);
-                    System.out.println("Список гостей для премьеры " + id + " загружен из файла: " + fileName);
-                } else {
-                    log.warn("Файл не содержит корректный список гостей.");
-                    premiere.setGuestList(new ArrayList<>()); // Создаем пустой список, если формат неверный
-                }
-            } catch (IOException | ClassNotFoundException e) {
-                log.warn("Ошибка при загрузке гостей из файла для премьеры {}: {}", id, e.getMessage());
-                System.out.println("Ошибка при загрузке гостей из файла для премьеры " + id + ": " + e.getMessage());
-            }
-        } else {
-            String fileName = id + "_testGuests.dat"; // Используем ID премьеры для имени файла
-            Path path = Paths.get(fileName);
-            System.out.println("Месторасположение файла: " + path.toAbsolutePath());
-            if (!Files.exists(path)) {
-                log.warn("Файл тестовый не найден: {} Создаю новый список гостей.", fileName);
-                premiere.setGuestList(new ArrayList<>()); // Создаем пустой список гостей
-                return; // Прерываем выполнение метода, если файла нет
-            }
-            try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(path))) {
-                Object obj = ois.readObject();
-                if (obj instanceof List<?>) { // Проверяем, что obj — это List
-                    List<String> guests = new ArrayList<>();
-                    for (Object item : (List<?>) obj) { // Приводим элементы списка к String
-                        if (item instanceof String) {
-                            guests.add((String) item);
-                        } else {
-                            log.warn("Найден неподходящий элемент в списке гостей для теста: {} ", item);
-                        }
-                    }
-                    premiere.setGuestList(guests);
-                    System.out.println("Список гостей для премьеры " + id + " загружен из тестового файла: " + fileName);
-                } else {
-                    log.warn("Файл не содержит корректный список гостей для теста.");
-                    premiere.setGuestList(new ArrayList<>()); // Создаем пустой список, если формат неверный
-                }
-            } catch (IOException | ClassNotFoundException e) {
-                log.warn("Ошибка при загрузке гостей из тестового файла для премьеры {}: {}", id, e.getMessage());
-                System.out.println("Ошибка при загрузке гостей из тестового файла для премьеры " + id + ": " + e.getMessage());
-            }
+        Path path = guestPath(id, testMode);
+        System.out.println("Месторасположение файла: " + path.toAbsolutePath());
+        if (!Files.exists(path)) {
+            log.warn("Файл не найден: {} Создаю новый список гостей.", path);
+            premiere.setGuestList(new ArrayList<>()); // Создаем пустой список гостей
+            return; // Прерываем выполнение метода, если файла нет
+        }
+        try {
+            premiere.setGuestList(GuestListFile.read(path));
+            System.out.println("Список гостей для премьеры " + id + " загружен из файла: " + path);
+        } catch (IOException e) {
+            log.warn("Ошибка при загрузке гостей из файла для премьеры {}: {}", id, e.getMessage());
+            System.out.println("Ошибка при загрузке гостей из файла для премьеры " + id + ": " + e.getMessage());
         }
     }
 
-    // Метод для загрузки отзывов из текстового файла
+    // Метод для загрузки всех отзывов из журнала. Для больших журналов — loadLatestReviews / loadReviewsPage.
     public void loadReviewsFromFile(Premiere premiere, boolean testMode) {
         String id = premiere.getId();
-        if (!testMode) {
-            String fileName = id + "_reviews.txt"; // Используем ID премьеры для имени файла
-            Path filePath = Paths.get(fileName);
-            try {
-                List<String> reviews = Files.readAllLines(filePath); // Читаем все строки в список
-                premiere.setReviews(new ArrayList<>(reviews));
-                System.out.println("Отзывы для премьеры " + id + " загружены из файла: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при загрузке отзывов для премьеры " + id + ": " + e.getMessage());
-                log.warn("Ошибка при загрузке отзывов из файла для премьеры {}: {}", id, e.getMessage());
-            }
-            if (!Files.exists(filePath)) {
-                System.out.println("Файл с отзывами не найден для премьеры " + id);
-            }
-        } else {
-            String fileName = id + "_testReviews.txt"; // Используем ID премьеры для имени файла
-            Path filePath = Paths.get(fileName);
-            try {
-                List<String> reviews = Files.readAllLines(filePath); // Читаем все строки в список
-                premiere.setReviews(new ArrayList<>(reviews));
-                System.out.println("Отзывы для премьеры " + id + " загружены из файла: " + fileName);
-            } catch (IOException e) {
-                System.out.println("Ошибка при загрузке отзывов для премьеры " + id + ": " + e.getMessage());
-                log.warn("Ошибка при загрузке отзывов из тестового файла для премьеры {}: {}", id, e.getMessage());
-            }
+        ReviewLog reviewLog = reviewLog(id, testMode);
+        try {
+            List<String> reviews = reviewLog.read(0, Integer.MAX_VALUE);
+            premiere.setReviews(reviews);
+            premiere.markReviewsSaved(reviews.size());
+            System.out.println("Отзывы для премьеры " + id + " загружены из файла: " + reviewLog.getLogPath());
+        } catch (IOException e) {
+            System.out.println("Ошибка при загрузке отзывов для премьеры " + id + ": " + e.getMessage());
+            log.warn("Ошибка при загрузке отзывов из файла для премьеры {}: {}", id, e.getMessage());
         }
     }
 }
@@ -0,0 +1,364 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.model.Premiere;
+import movie_platform.utils.DateUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Файл премьер с записями в блоках фиксированного размера (premieres.dat).
+// Каждая премьера занимает один или несколько подряд идущих блоков по BLOCK_SIZE байт, поэтому
+// изменённую премьеру можно перезаписать на месте одной позиционной записью, не трогая остальные.
+// Если запись перестала помещаться в свои блоки, она сначала пишется в свободные блоки или в конец файла
+// и только потом старые блоки помечаются свободными: при сбое между этими шагами в файле остаются
+// обе копии, но премьера не теряется. Каждая запись получает следующий номер (sequence), и при чтении
+// действует копия с наибольшим номером: новая копия может оказаться в блоках перед старой.
+// Удаление — запись одного байта статуса.
+//   заголовок файла | блок записи: статус (byte) | число блоков (short) | длина данных (int) | номер (long) | данные
+// В файлах версии 1 номера записи нет: повторы разрешаются по порядку блоков, при первом сохранении
+// файл переписывается в версии 2.
+// Запись записи меньше страницы диска (4 КБ) на практике атомарна; fsync делается только при
+// контрольной точке журнала продаж (sync с force = true).
+@Slf4j
+final class PremiereSlotFile {
+
+    static final int BLOCK_SIZE = 256;
+    private static final int MAGIC = 0x50524D31; // "PRM1"
+    private static final int VERSION = 2;
+    private static final int LEGACY_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 16; // magic, version, размер блока, резерв
+    private static final int RECORD_HEADER_SIZE = 15;
+    private static final int LEGACY_RECORD_HEADER_SIZE = 7;
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final Path path;
+    private final Map<String, Slot> slots = new HashMap<>();      // ID премьеры -> её блоки
+    private final TreeMap<Long, Integer> freeRuns = new TreeMap<>(); // Первый блок -> число свободных блоков
+    private long blockCount;
+    private long nextSequence = 1;
+    private boolean indexed;
+    private boolean legacy; // Прочитан файл версии 1
+
+    private record Slot(long firstBlock, int blocks, long sequence) {
+    }
+
+    PremiereSlotFile(Path path) {
+        this.path = path;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Читает все премьеры в порядке расположения в файле и строит индекс блоков
+    synchronized List<Premiere> load() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return scan(channel);
+        }
+    }
+
+    // Записывает новые и изменённые премьеры, освобождает блоки премьер, которых больше нет.
+    // Снимок (snapshots) берётся только у записываемых премьер. Возвращает количество записанных премьер.
+    synchronized int sync(Collection<Premiere> premieres, Function<Premiere, Premiere.Snapshot> snapshots,
+                          boolean force) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (!indexed || channel.size() == 0) { // Файл удалён извне — индекс устарел
+                scan(channel);
+            }
+            if (legacy) {
+                channel.close();
+                return migrate(premieres, snapshots);
+            }
+            int written = 0;
+            Set<String> present = new HashSet<>();
+            for (Premiere premiere : premieres) {
+                present.add(premiere.getId());
+                if (premiere.isDirty() || !slots.containsKey(premiere.getId())) {
+                    Premiere.Snapshot snapshot = snapshots.apply(premiere);
+                    write(channel, snapshot.id(), encode(snapshot), force);
+                    premiere.markSaved(snapshot.version()); // Более позднее изменение останется несохранённым
+                    written++;
+                }
+            }
+            Iterator<Map.Entry<String, Slot>> iterator = slots.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Slot> entry = iterator.next();
+                if (!present.contains(entry.getKey())) {
+                    release(channel, entry.getValue());
+                    iterator.remove();
+                }
+            }
+            if (force) {
+                channel.force(false);
+            }
+            return written;
+        }
+    }
+
+    // Переписывает файл версии 1 в текущую версию: все премьеры пишутся во временный файл,
+    // который после fsync заменяет старый, так что при сбое остаётся один из двух целых файлов
+    private int migrate(Collection<Premiere> premieres, Function<Premiere, Premiere.Snapshot> snapshots)
+            throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        slots.clear();
+        freeRuns.clear();
+        blockCount = 0;
+        nextSequence = 1;
+        List<Runnable> saved = new ArrayList<>(premieres.size());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeFileHeader(channel);
+            for (Premiere premiere : premieres) {
+                Premiere.Snapshot snapshot = snapshots.apply(premiere);
+                write(channel, snapshot.id(), encode(snapshot), false);
+                saved.add(() -> premiere.markSaved(snapshot.version()));
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            indexed = false; // Индекс описывает недописанный временный файл
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        legacy = false;
+        saved.forEach(Runnable::run);
+        log.info("Файл премьер {} переписан в версии {}", path, VERSION);
+        return saved.size();
+    }
+
+    private List<Premiere> scan(FileChannel channel) throws IOException {
+        slots.clear();
+        freeRuns.clear();
+        blockCount = 0;
+        nextSequence = 1;
+        legacy = false;
+        List<Premiere> premieres = new ArrayList<>();
+        long size = channel.size();
+        if (size == 0) {
+            writeFileHeader(channel);
+            indexed = true;
+            return premieres;
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ORDER);
+        int version = size < FILE_HEADER_SIZE ? 0 : buffer.getInt(4);
+        if (size < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC || (version != VERSION && version != LEGACY_VERSION)
+                || buffer.getInt(8) != BLOCK_SIZE) {
+            throw new IOException("Файл " + path + " не является файлом премьер версии " + VERSION);
+        }
+        legacy = version == LEGACY_VERSION;
+        int headerSize = legacy ? LEGACY_RECORD_HEADER_SIZE : RECORD_HEADER_SIZE;
+
+        long totalBlocks = (size - FILE_HEADER_SIZE) / BLOCK_SIZE;
+        Map<String, Integer> positions = new HashMap<>(); // ID -> индекс в списке (на случай повторов)
+        long block = 0;
+        while (block < totalBlocks) {
+            int offset = (int) (FILE_HEADER_SIZE + block * BLOCK_SIZE);
+            byte status = buffer.get(offset);
+            int blocks = buffer.getShort(offset + 1);
+            int length = buffer.getInt(offset + 3);
+            if (blocks <= 0 || block + blocks > totalBlocks
+                    || (status == USED && (length < 0 || length > blocks * BLOCK_SIZE - headerSize))) {
+                // Хвост после повреждённого блока не читается; следующие записи пойдут поверх него
+                log.warn("Файл {} повреждён начиная с блока {}, остаток файла пропущен", path, block);
+                break;
+            }
+            if (status == USED) {
+                long sequence = legacy ? 0 : buffer.getLong(offset + 7);
+                Premiere premiere = decode(buffer.slice(offset + headerSize, length).order(ORDER), block);
+                if (premiere != null) {
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                    Slot slot = new Slot(block, blocks, sequence);
+                    Slot previous = slots.get(premiere.getId());
+                    if (previous == null) {
+                        slots.put(premiere.getId(), slot);
+                        positions.put(premiere.getId(), premieres.size());
+                        premieres.add(premiere);
+                    } else if (sequence >= previous.sequence()) { // Повтор ID: действует копия с большим номером
+                        slots.put(premiere.getId(), slot);
+                        freeRuns.put(previous.firstBlock(), previous.blocks());
+                        premieres.set(positions.get(premiere.getId()), premiere);
+                    } else {
+                        freeRuns.put(block, blocks);
+                    }
+                } else {
+                    freeRuns.put(block, blocks);
+                }
+            } else {
+                freeRuns.put(block, blocks);
+            }
+            block += blocks;
+        }
+        blockCount = block;
+        indexed = true;
+        return premieres;
+    }
+
+    private void write(FileChannel channel, String id, byte[] payload, boolean force) throws IOException {
+        int needed = blocksFor(payload.length);
+        Slot slot = slots.get(id);
+        long sequence = nextSequence++;
+        if (slot != null && slot.blocks() >= needed) {
+            // Перезапись на месте: только заголовок и данные, без хвоста блоков
+            writeFully(channel, record(USED, slot.blocks(), sequence, payload, false), position(slot.firstBlock()));
+            slots.put(id, new Slot(slot.firstBlock(), slot.blocks(), sequence));
+            return;
+        }
+        // Новая копия пишется до освобождения старой; старые блоки ещё не в freeRuns и не будут заняты
+        long firstBlock = allocate(channel, needed);
+        writeFully(channel, record(USED, needed, sequence, payload, true), position(firstBlock));
+        slots.put(id, new Slot(firstBlock, needed, sequence));
+        if (slot != null) {
+            if (force) {
+                channel.force(false); // Новая копия на диске раньше, чем старая помечена свободной
+            }
+            release(channel, slot);
+        }
+    }
+
+    // Первый подходящий свободный участок; остаток участка остаётся свободным. Иначе — конец файла.
+    private long allocate(FileChannel channel, int needed) throws IOException {
+        for (Map.Entry<Long, Integer> run : freeRuns.entrySet()) {
+            if (run.getValue() >= needed) {
+                long firstBlock = run.getKey();
+                int remainder = run.getValue() - needed;
+                freeRuns.remove(firstBlock);
+                if (remainder > 0) {
+                    freeRuns.put(firstBlock + needed, remainder);
+                    writeFully(channel, record(FREE, remainder, 0, new byte[0], false), position(firstBlock + needed));
+                }
+                return firstBlock;
+            }
+        }
+        long firstBlock = blockCount;
+        blockCount += needed;
+        return firstBlock;
+    }
+
+    private void release(FileChannel channel, Slot slot) throws IOException {
+        writeFully(channel, ByteBuffer.wrap(new byte[]{FREE}), position(slot.firstBlock()));
+        freeRuns.put(slot.firstBlock(), slot.blocks());
+    }
+
+    private static int blocksFor(int payloadLength) {
+        int blocks = (payloadLength + RECORD_HEADER_SIZE + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (blocks > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Запись премьеры слишком большая: " + payloadLength + " байт");
+        }
+        return blocks;
+    }
+
+    // fullBlocks = true — буфер дополняется нулями до границы блоков (новая запись в конце файла)
+    private static ByteBuffer record(byte status, int blocks, long sequence, byte[] payload, boolean fullBlocks) {
+        int size = fullBlocks ? blocks * BLOCK_SIZE : RECORD_HEADER_SIZE + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ORDER);
+        buffer.put(status).putShort((short) blocks).putInt(payload.length).putLong(sequence).put(payload);
+        return buffer.clear();
+    }
+
+    private void writeFileHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ORDER)
+                .putInt(MAGIC).putInt(VERSION).putInt(BLOCK_SIZE).putInt(0);
+        writeFully(channel, header.flip(), 0);
+    }
+
+    private static long position(long block) {
+        return FILE_HEADER_SIZE + block * BLOCK_SIZE;
+    }
+
+    private static byte[] encode(Premiere.Snapshot premiere) {
+        byte[] id = utf8(premiere.id());
+        byte[] title = utf8(premiere.movieTitle());
+        byte[] location = utf8(premiere.location()); // Без подписи "не указано" для пустого места
+        byte[] zone = utf8(premiere.date().getZone().getId());
+        Premiere.TicketSnapshot tickets = premiere.tickets();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 2 + id.length + title.length + location.length + zone.length
+                + 8 + 8 + 4 + 4 + 8 + 8).order(ORDER);
+        putString(buffer, id);
+        putString(buffer, title);
+        putString(buffer, location);
+        putString(buffer, zone);
+        buffer.putLong(premiere.date().toEpochSecond());
+        buffer.putDouble(premiere.budget());
+        buffer.putInt(premiere.initialTicketCount());
+        buffer.putInt(tickets.ticketSold());
+        buffer.putDouble(premiere.ticketPrice());
+        buffer.putLong(tickets.appliedSaleLsn()); // Добавлено позже: в старых записях поля нет
+        return buffer.array();
+    }
+
+    private Premiere decode(ByteBuffer buffer, long block) {
+        try {
+            String id = getString(buffer);
+            String title = getString(buffer);
+            String location = getString(buffer);
+            ZoneId zone = DateUtils.zoneOf(getString(buffer)); // Зоны тысяч премьер — из общего кэша
+            ZonedDateTime date = ZonedDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong()), zone);
+            double budget = buffer.getDouble();
+            int initialTicketCount = buffer.getInt();
+            int ticketSold = buffer.getInt();
+            double ticketPrice = buffer.getDouble();
+            long appliedSaleLsn = buffer.remaining() >= 8 ? buffer.getLong() : 0;
+
+            Premiere premiere = new Premiere(id, title, date, location, initialTicketCount, budget);
+            premiere.setTicketSold(ticketSold);
+            premiere.setTicketCount(initialTicketCount - ticketSold);
+            premiere.setTicketPrice(ticketPrice);
+            premiere.setAppliedSaleLsn(appliedSaleLsn);
+            premiere.markSaved(premiere.getVersion()); // Только что прочитана: совпадает с диском
+            return premiere;
+        } catch (RuntimeException e) {
+            log.warn("Некорректная запись премьеры в блоке {} файла {} будет пропущена: {}", block, path, e.getMessage());
+            return null;
+        }
+    }
+
+    // Строки хранятся с длиной в 2 байта (до 65535 байт UTF-8)
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Строка длиннее 65535 байт не может быть сохранена");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Журнал отзывов одной премьеры: только дозапись, рядом — индекс смещений.
+//   <id>_reviews.log: отзыв = длина в байтах (int) | текст (UTF-8)
+//   <id>_reviews.idx: смещение начала каждого отзыва в .log (long)
+// Отзыв с номером i находится по смещению из индекса, поэтому страница или последние N отзывов
+// читаются одной позиционной записью без чтения всего файла. Сначала дописывается .log, потом .idx:
+// если запись оборвалась между ними, индекс при следующем открытии восстанавливается по журналу.
+@Slf4j
+final class ReviewLog {
+
+    private static final int LENGTH_SIZE = 4;
+    private static final int OFFSET_SIZE = 8;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final Path legacyPath; // Прежний <id>_reviews.txt, импортируется один раз
+
+    ReviewLog(Path logPath, Path indexPath, Path legacyPath) {
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.legacyPath = legacyPath;
+    }
+
+    Path getLogPath() {
+        return logPath;
+    }
+
+    // Дописывает отзывы в конец журнала; возвращает общее количество отзывов
+    synchronized int append(Collection<String> reviews) throws IOException {
+        try (FileChannel logChannel = openLog(true);
+             FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int count = checkIndex(logChannel, indexChannel);
+            if (reviews.isEmpty()) {
+                return count;
+            }
+            long position = logChannel.size();
+            ByteBuffer offsets = ByteBuffer.allocate(reviews.size() * OFFSET_SIZE).order(ORDER);
+            List<byte[]> encoded = new ArrayList<>(reviews.size());
+            int total = 0;
+            for (String review : reviews) {
+                byte[] bytes = review.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offsets.putLong(position + total);
+                total += LENGTH_SIZE + bytes.length;
+            }
+            ByteBuffer records = ByteBuffer.allocate(total).order(ORDER);
+            for (byte[] bytes : encoded) {
+                records.putInt(bytes.length).put(bytes);
+            }
+            writeFully(logChannel, records.flip(), position);
+            writeFully(indexChannel, offsets.flip(), (long) count * OFFSET_SIZE);
+            return count + reviews.size();
+        }
+    }
+
+    synchronized int count() throws IOException {
+        if (!Files.exists(logPath) && !Files.exists(legacyPath)) {
+            return 0;
+        }
+        try (FileChannel logChannel = openLog(false);
+             FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return checkIndex(logChannel, indexChannel);
+        }
+    }
+
+    // Отзывы с номерами [from, from + limit) в порядке добавления
+    synchronized List<String> read(int from, int limit) throws IOException {
+        if (from < 0 || limit < 0) {
+            throw new IllegalArgumentException("Номер и количество отзывов не могут быть отрицательными.");
+        }
+        List<String> reviews = new ArrayList<>();
+        if (!Files.exists(logPath) && !Files.exists(legacyPath)) {
+            return reviews;
+        }
+        try (FileChannel logChannel = openLog(false);
+             FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int count = checkIndex(logChannel, indexChannel);
+            int to = (int) Math.min(count, (long) from + limit);
+            if (from >= to) {
+                return reviews;
+            }
+            long start = readOffset(indexChannel, from);
+            long end = to < count ? readOffset(indexChannel, to) : logChannel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start)).order(ORDER);
+            readFully(logChannel, buffer, start);
+            buffer.flip();
+            for (int i = from; i < to; i++) {
+                int length = buffer.getInt();
+                reviews.add(new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            }
+            return reviews;
+        }
+    }
+
+    // Переносит файлы журнала в каталог архива; уже заархивированные файлы не перезаписываются.
+    // Возвращает количество перенесённых файлов. Новые отзывы после этого начнут новый журнал.
+    synchronized int archive(Path directory) throws IOException {
+        int moved = 0;
+        for (Path path : List.of(logPath, indexPath, legacyPath)) {
+            Path target = directory.resolve(path.getFileName());
+            if (Files.exists(path) && !Files.exists(target)) {
+                Files.createDirectories(directory);
+                Files.move(path, target);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    // Журнал открывается с импортом прежнего текстового файла, если журнала ещё нет
+    private FileChannel openLog(boolean create) throws IOException {
+        if (!Files.exists(logPath) && Files.exists(legacyPath)) {
+            importLegacy();
+        }
+        return create
+                ? FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Одна строка прежнего файла — один отзыв. Старый файл не удаляется.
+    private void importLegacy() throws IOException {
+        List<String> lines = Files.readAllLines(legacyPath);
+        Files.deleteIfExists(indexPath);
+        try (FileChannel logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int total = 0;
+            for (String line : lines) {
+                total += LENGTH_SIZE + line.getBytes(StandardCharsets.UTF_8).length;
+            }
+            ByteBuffer records = ByteBuffer.allocate(total).order(ORDER);
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                records.putInt(bytes.length).put(bytes);
+            }
+            writeFully(logChannel, records.flip(), 0);
+        }
+        log.info("Отзывы из {} перенесены в журнал {} ({} отзывов)", legacyPath, logPath, lines.size());
+    }
+
+    // Проверяет, что индекс соответствует журналу: последний отзыв из индекса заканчивается ровно
+    // в конце журнала. Иначе индекс перестраивается. Возвращает количество отзывов.
+    private int checkIndex(FileChannel logChannel, FileChannel indexChannel) throws IOException {
+        long logSize = logChannel.size();
+        long indexSize = indexChannel.size();
+        if (indexSize % OFFSET_SIZE == 0) {
+            int count = (int) (indexSize / OFFSET_SIZE);
+            if (count == 0 && logSize == 0) {
+                return 0;
+            }
+            if (count > 0) {
+                long last = readOffset(indexChannel, count - 1);
+                if (last >= 0 && last + LENGTH_SIZE <= logSize && last + LENGTH_SIZE + readLength(logChannel, last) == logSize) {
+                    return count;
+                }
+            }
+        }
+        return rebuildIndex(logChannel, indexChannel);
+    }
+
+    // Проход по журналу по длинам записей; оборванная последняя запись отрезается
+    private int rebuildIndex(FileChannel logChannel, FileChannel indexChannel) throws IOException {
+        long logSize = logChannel.size();
+        List<Long> offsets = new ArrayList<>();
+        long position = 0;
+        while (position + LENGTH_SIZE <= logSize) {
+            int length = readLength(logChannel, position);
+            if (length < 0 || position + LENGTH_SIZE + length > logSize) {
+                break;
+            }
+            offsets.add(position);
+            position += LENGTH_SIZE + length;
+        }
+        if (position < logSize) {
+            log.warn("Журнал отзывов {} обрезан с {} до {} байт: последняя запись не завершена", logPath, logSize, position);
+            logChannel.truncate(position);
+        }
+        ByteBuffer index = ByteBuffer.allocate(offsets.size() * OFFSET_SIZE).order(ORDER);
+        offsets.forEach(index::putLong);
+        indexChannel.truncate(0);
+        writeFully(indexChannel, index.flip(), 0);
+        log.info("Индекс отзывов {} перестроен: {} отзывов", indexPath, offsets.size());
+        return offsets.size();
+    }
+
+    private static long readOffset(FileChannel indexChannel, int i) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(OFFSET_SIZE).order(ORDER);
+        readFully(indexChannel, buffer, (long) i * OFFSET_SIZE);
+        return buffer.getLong(0);
+    }
+
+    private static int readLength(FileChannel logChannel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_SIZE).order(ORDER);
+        readFully(logChannel, buffer, position);
+        return buffer.getInt(0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Неожиданный конец файла " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package movie_platform.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Журнал транзакций продаж и возвратов (sales.txlog).
+// Одна запись — одна транзакция: изменение билетов премьеры и финансовая запись вместе, поэтому после
+// сбоя нельзя получить проданные билеты без дохода или доход без проданных билетов.
+//   заголовок: magic | версия | следующий номер транзакции (long)
+//   транзакция: длина (int) | CRC32 (int) | номер (long) | ID премьеры | билеты (int, < 0 — возврат) |
+//               ID записи | тип | сумма (double) | описание | дата (день эпохи, long)
+// Транзакции дописываются пачками с одним fsync на пачку (групповая запись, см. PersistenceService).
+// После контрольной точки (премьеры и финансы сохранены с fsync) журнал очищается.
+@Slf4j
+public class SaleTransactionLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x53544C31; // "STL1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_HEADER_SIZE = 8; // длина и CRC32
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Транзакция журнала; tickets > 0 — продажа, tickets < 0 — возврат
+    public record Entry(long lsn, String premiereId, int tickets, FinanceRecord record) {
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private long nextLsn = 1;
+    private long size; // Конец последней полностью записанной транзакции
+
+    public SaleTransactionLog(boolean testMode) {
+        this.path = path(testMode);
+    }
+
+    public static Path path(boolean testMode) {
+        return Paths.get(testMode ? "test_sales.txlog" : "sales.txlog");
+    }
+
+    // Открывает журнал и читает все полностью записанные транзакции; оборванная или повреждённая
+    // последняя пачка отрезается. minNextLsn — номер, с которого можно продолжать, если журнал
+    // удалён (например, больше последнего номера, уже учтённого в премьерах).
+    public synchronized List<Entry> recover(long minNextLsn) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        List<Entry> entries = new ArrayList<>();
+        long fileSize = channel.size();
+        nextLsn = Math.max(1, minNextLsn);
+        if (fileSize < HEADER_SIZE) {
+            writeHeader();
+            size = HEADER_SIZE;
+            return entries;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Файл " + path + " не является журналом продаж версии " + VERSION);
+        }
+        nextLsn = Math.max(nextLsn, header.getLong(8));
+
+        ByteBuffer data = ByteBuffer.allocate((int) (fileSize - HEADER_SIZE)).order(ORDER);
+        readFully(data, HEADER_SIZE);
+        data.flip();
+        while (data.remaining() >= ENTRY_HEADER_SIZE) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > data.remaining() || checksum != crc(data, data.position(), length)) {
+                data.position(start);
+                break;
+            }
+            ByteBuffer payload = data.slice(data.position(), length).order(ORDER);
+            data.position(data.position() + length);
+            try {
+                Entry entry = decode(payload);
+                entries.add(entry);
+                nextLsn = Math.max(nextLsn, entry.lsn() + 1);
+            } catch (RuntimeException e) {
+                data.position(start);
+                break;
+            }
+        }
+        size = HEADER_SIZE + data.position();
+        if (size < fileSize) {
+            log.warn("Журнал продаж {} обрезан с {} до {} байт: последняя пачка не записана полностью", path, fileSize, size);
+            channel.truncate(size);
+            channel.force(false);
+        }
+        return entries;
+    }
+
+    // Номер для новой транзакции; номера растут и после очистки журнала
+    public synchronized long nextLsn() {
+        return nextLsn++;
+    }
+
+    // Дописывает пачку транзакций одной записью и ждёт fsync. При ошибке недописанная часть отрезается,
+    // чтобы транзакции, о провале которых уже сообщено, не применились при восстановлении.
+    public synchronized void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        int total = 0;
+        for (Entry entry : entries) {
+            byte[] payload = encode(entry);
+            payloads.add(payload);
+            total += ENTRY_HEADER_SIZE + payload.length;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(total).order(ORDER);
+        for (byte[] payload : payloads) {
+            CRC32 crc32 = new CRC32();
+            crc32.update(payload);
+            batch.putInt(payload.length).putInt((int) crc32.getValue()).put(payload);
+        }
+        try {
+            writeFully(batch.flip(), size);
+            channel.force(false);
+            size += total;
+        } catch (IOException e) {
+            try {
+                channel.truncate(size);
+            } catch (IOException ignored) {
+                // Оборванная пачка будет отрезана при восстановлении по CRC
+            }
+            throw e;
+        }
+    }
+
+    // Контрольная точка: все транзакции уже есть в сохранённых премьерах и финансах
+    public synchronized void reset() throws IOException {
+        writeHeader();
+        channel.truncate(HEADER_SIZE);
+        channel.force(false);
+        size = HEADER_SIZE;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER).putInt(MAGIC).putInt(VERSION).putLong(nextLsn);
+        writeFully(header.flip(), 0);
+        channel.force(false);
+    }
+
+    private static byte[] encode(Entry entry) {
+        FinanceRecord record = entry.record();
+        byte[] premiereId = utf8(entry.premiereId());
+        byte[] recordId = utf8(record.getId());
+        byte[] type = utf8(record.getType().name());
+        byte[] description = utf8(record.getDescription());
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 2 * 4 + premiereId.length + recordId.length + type.length
+                + description.length + 8 + 8).order(ORDER);
+        buffer.putLong(entry.lsn());
+        putString(buffer, premiereId);
+        buffer.putInt(entry.tickets());
+        putString(buffer, recordId);
+        putString(buffer, type);
+        buffer.putDouble(record.getAmount());
+        putString(buffer, description);
+        buffer.putLong(record.getDate().toEpochDay());
+        return buffer.array();
+    }
+
+    private static Entry decode(ByteBuffer buffer) {
+        long lsn = buffer.getLong();
+        String premiereId = getString(buffer);
+        int tickets = buffer.getInt();
+        String recordId = getString(buffer);
+        FinanceType type = FinanceType.valueOf(getString(buffer));
+        double amount = buffer.getDouble();
+        String description = getString(buffer);
+        LocalDate date = LocalDate.ofEpochDay(buffer.getLong());
+        return new Entry(lsn, premiereId, tickets, new FinanceRecord(recordId, type, amount, description, date));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.slice(offset, length));
+        return (int) crc32.getValue();
+    }
+
+    // Строки хранятся с длиной в 2 байта, как в файле премьер
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Строка длиннее 65535 байт не может быть записана в журнал продаж");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Неожиданный конец файла " + path);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package movie_platform.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceAggregation;
+import movie_platform.manager.FinanceManager;
+import movie_platform.manager.PremiereManager;
+import movie_platform.model.FinanceRecord;
+import movie_platform.model.Premiere;
+import movie_platform.model.TicketOrder;
+import movie_platform.model.TicketOrderResult;
+import movie_platform.repository.PremiereRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// HTTP-касса: продажа и возврат билетов, отзывы и финансовый отчёт для многих клиентов одновременно.
+//   GET  /premieres/{id}                    — премьера и остаток билетов
+//   POST /premieres/{id}/sell?count=N       — продажа билетов
+//   POST /premieres/{id}/refund?count=N     — возврат билетов
+//   GET  /premieres/{id}/reviews?page=&size= — страница отзывов
+//   POST /premieres/{id}/reviews            — отзыв в теле запроса (UTF-8)
+//   POST /orders?aggregation=PER_PREMIERE   — пакетная продажа: в теле строки "<ID премьеры> <количество>"
+//   GET  /reports/finance                   — доходы, расходы, итог
+//   POST /reports/finance                   — построить PDF-отчёт в фоне
+// Соединения обслуживает селектор HttpServer, поэтому тысячи открытых соединений не требуют тысяч потоков;
+// поток нужен только на время обработки запроса. Если JVM поддерживает виртуальные потоки (Java 21+),
+// каждый запрос выполняется в своём виртуальном потоке, иначе — в ограниченном пуле. Когда пул и очередь
+// заняты, запрос выполняется в потоке-диспетчере, и приём новых запросов естественно притормаживает.
+@Slf4j
+public class BoxOfficeServer implements AutoCloseable {
+
+    private static final int BACKLOG = 4096; // Очередь входящих соединений ОС
+    private static final int MAX_REVIEW_BYTES = 16 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_BATCH_BYTES = 8 * 1024 * 1024; // Примерно 300 тысяч заказов
+
+    private final PremiereManager premiereManager;
+    private final FinanceManager financeManager;
+    private final PersistenceService persistenceService;
+    private final ReportService reportService;
+    private final PremiereRepository premiereRepository;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong handledRequests = new AtomicLong();
+
+    public BoxOfficeServer(PremiereManager premiereManager, FinanceManager financeManager,
+                           PersistenceService persistenceService, ReportService reportService,
+                           String host, int port, int workers) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Количество рабочих потоков должно быть больше 0.");
+        }
+        this.premiereManager = premiereManager;
+        this.financeManager = financeManager;
+        this.persistenceService = persistenceService;
+        this.reportService = reportService;
+        this.premiereRepository = premiereManager.getRepository(); // Общий с менеджером: журналы отзывов не дублируются
+        this.executor = createExecutor(workers);
+        this.server = HttpServer.create(new InetSocketAddress(host, port), BACKLOG);
+        this.server.setExecutor(executor);
+        this.server.createContext("/premieres/", this::handlePremiere);
+        this.server.createContext("/orders", this::handleOrders);
+        this.server.createContext("/reports/finance", this::handleFinanceReport);
+    }
+
+    public void start() {
+        server.start();
+        log.info("Сервер кассы запущен на порту {}", getPort());
+        System.out.println("Сервер кассы запущен: http://localhost:" + getPort() + "/premieres/{id}");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getHandledRequests() {
+        return handledRequests.get();
+    }
+
+    // Виртуальный поток на запрос там, где он есть; проект собирается под Java 17, поэтому через отражение
+    static ExecutorService createExecutor(int workers) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Запросы кассы обрабатываются в виртуальных потоках");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(workers * 16), runnable -> {
+                Thread thread = new Thread(runnable, "box-office-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            log.info("Виртуальные потоки недоступны, запросы кассы обрабатываются пулом из {} потоков", workers);
+            return pool;
+        }
+    }
+
+    private void handlePremiere(HttpExchange exchange) {
+        try {
+            handledRequests.incrementAndGet();
+            // /premieres/{id}[/action]
+            String[] parts = exchange.getRequestURI().getPath().substring("/premieres/".length()).split("/");
+            if (parts.length == 0 || parts[0].isEmpty() || parts.length > 2) {
+                send(exchange, 404, error("Неизвестный адрес."));
+                return;
+            }
+            String id = parts[0];
+            String action = parts.length == 2 ? parts[1] : "";
+            Premiere premiere = premiereManager.getPremiereMap().get(id);
+            if (premiere == null) {
+                send(exchange, 404, error("Премьера с ID " + id + " не найдена."));
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            switch (action) {
+                case "" -> {
+                    if (requireMethod(exchange, "GET")) {
+                        send(exchange, 200, premiereJson(premiere));
+                    }
+                }
+                case "sell" -> {
+                    if (requireMethod(exchange, "POST")) {
+                        sell(exchange, premiere, intParameter(query, "count", 1));
+                    }
+                }
+                case "refund" -> {
+                    if (requireMethod(exchange, "POST")) {
+                        refund(exchange, premiere, intParameter(query, "count", 1));
+                    }
+                }
+                case "reviews" -> {
+                    if ("POST".equals(method)) {
+                        addReview(exchange, premiere);
+                    } else if (requireMethod(exchange, "GET")) {
+                        listReviews(exchange, premiere, intParameter(query, "page", 1),
+                                intParameter(query, "size", DEFAULT_PAGE_SIZE));
+                    }
+                }
+                default -> send(exchange, 404, error("Неизвестное действие: " + action));
+            }
+        } catch (NumberFormatException e) {
+            sendQuietly(exchange, 400, error("Некорректное число: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            sendQuietly(exchange, 400, error(e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка при обработке запроса {}: {}", exchange.getRequestURI(), e.getMessage());
+            sendQuietly(exchange, 500, error("Внутренняя ошибка сервера."));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sell(HttpExchange exchange, Premiere premiere, int count) throws IOException {
+        if (count <= 0) {
+            send(exchange, 400, error("Количество билетов должно быть больше 0."));
+            return;
+        }
+        // Билеты и доход записываются одной транзакцией; ответ уходит после fsync журнала продаж
+        FinanceRecord record = persistenceService.sellTickets(premiere, count);
+        if (record == null) {
+            send(exchange, 409, error(premiere.isSalesClosed() ? "Продажа билетов на премьеру закрыта."
+                    : "Недостаточно билетов для продажи."));
+            return;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("premiereId", premiere.getId());
+        body.put("sold", count);
+        body.put("amount", record.getAmount());
+        body.put("ticketsLeft", premiere.getTicketCount());
+        send(exchange, 200, json(body));
+    }
+
+    private void refund(HttpExchange exchange, Premiere premiere, int count) throws IOException {
+        FinanceRecord record;
+        try {
+            record = persistenceService.refundTickets(premiere, count);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 409, error(e.getMessage()));
+            return;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("premiereId", premiere.getId());
+        body.put("refunded", count);
+        body.put("amount", record.getAmount());
+        body.put("ticketsLeft", premiere.getTicketCount());
+        send(exchange, 200, json(body));
+    }
+
+    private void addReview(HttpExchange exchange, Premiere premiere) throws IOException {
+        byte[] bytes = exchange.getRequestBody().readNBytes(MAX_REVIEW_BYTES + 1);
+        if (bytes.length > MAX_REVIEW_BYTES) {
+            send(exchange, 413, error("Отзыв длиннее " + MAX_REVIEW_BYTES + " байт."));
+            return;
+        }
+        String review = new String(bytes, StandardCharsets.UTF_8);
+        // Список отзывов премьеры меняется под её блокировкой, в журнал дописывается только этот отзыв
+        Boolean added = premiereManager.updatePremiere(premiere.getId(),
+                locked -> premiereRepository.addReview(locked, review, premiereManager.isTestMode()));
+        if (added == null) {
+            send(exchange, 404, error("Премьера с ID " + premiere.getId() + " не найдена."));
+        } else if (!added) {
+            send(exchange, 400, error("Отзыв не может быть пустым."));
+        } else {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("premiereId", premiere.getId());
+            body.put("reviews", premiereRepository.countReviews(premiere.getId(), premiereManager.isTestMode()));
+            send(exchange, 201, json(body));
+        }
+    }
+
+    private void listReviews(HttpExchange exchange, Premiere premiere, int page, int size) throws IOException {
+        boolean testMode = premiereManager.isTestMode();
+        List<String> reviews = premiereRepository.loadReviewsPage(premiere.getId(), page, size, testMode);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("premiereId", premiere.getId());
+        body.put("page", page);
+        body.put("total", premiereRepository.countReviews(premiere.getId(), testMode));
+        body.put("reviews", reviews);
+        send(exchange, 200, json(body));
+    }
+
+    private void handleOrders(HttpExchange exchange) {
+        try {
+            handledRequests.incrementAndGet();
+            if (!requireMethod(exchange, "POST")) {
+                return;
+            }
+            String aggregation = parseQuery(exchange.getRequestURI().getRawQuery())
+                    .getOrDefault("aggregation", FinanceAggregation.PER_PREMIERE.name());
+            byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BATCH_BYTES + 1);
+            if (bytes.length > MAX_BATCH_BYTES) {
+                send(exchange, 413, error("Пакет заказов больше " + MAX_BATCH_BYTES + " байт."));
+                return;
+            }
+            List<TicketOrder> orders = parseOrders(new String(bytes, StandardCharsets.UTF_8));
+            List<TicketOrderResult> results = persistenceService.sellTicketsBatch(orders,
+                    FinanceAggregation.valueOf(aggregation.trim().toUpperCase()));
+
+            int sold = 0;
+            int tickets = 0;
+            double amount = 0;
+            Set<FinanceRecord> records = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Map<String, Object>> items = new ArrayList<>(results.size());
+            for (TicketOrderResult result : results) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("premiereId", result.order().premiereId());
+                item.put("count", result.order().count());
+                item.put("status", result.status().name());
+                if (result.isSold()) {
+                    sold++;
+                    tickets += result.order().count();
+                    item.put("recordId", result.financeRecord().getId());
+                    if (records.add(result.financeRecord())) {
+                        amount += result.financeRecord().getAmount();
+                    }
+                }
+                items.add(item);
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("orders", results.size());
+            body.put("sold", sold);
+            body.put("tickets", tickets);
+            body.put("amount", amount);
+            body.put("results", items);
+            send(exchange, 200, json(body));
+        } catch (IllegalArgumentException e) {
+            sendQuietly(exchange, 400, error(e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка при обработке запроса {}: {}", exchange.getRequestURI(), e.getMessage());
+            sendQuietly(exchange, 500, error("Внутренняя ошибка сервера."));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Строка заказа: "<ID премьеры> <количество>" (разделитель — пробелы или запятая), пустые строки пропускаются
+    private static List<TicketOrder> parseOrders(String text) {
+        List<TicketOrder> orders = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : text.split("\\R")) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] parts = trimmed.split("[\\s,]+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Строка " + lineNumber + ": ожидается \"<ID премьеры> <количество>\".");
+            }
+            orders.add(new TicketOrder(parts[0], Integer.parseInt(parts[1])));
+        }
+        return orders;
+    }
+
+    private void handleFinanceReport(HttpExchange exchange) {
+        try {
+            handledRequests.incrementAndGet();
+            if ("POST".equals(exchange.getRequestMethod())) {
+                if (!financeManager.hasRecords()) {
+                    send(exchange, 409, error("Нет записей для отчёта."));
+                    return;
+                }
+                reportService.requestReport(false);
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("status", "queued");
+                body.put("file", financeManager.getReportPath().toString());
+                send(exchange, 202, json(body));
+            } else if (requireMethod(exchange, "GET")) {
+                double income = financeManager.calculateTotalIncome();
+                double expenses = financeManager.calculateTotalExpenses();
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("income", income);
+                body.put("expenses", expenses);
+                body.put("total", income - expenses);
+                send(exchange, 200, json(body));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка при обработке запроса {}: {}", exchange.getRequestURI(), e.getMessage());
+            sendQuietly(exchange, 500, error("Внутренняя ошибка сервера."));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String premiereJson(Premiere premiere) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", premiere.getId());
+        body.put("title", premiere.getMovieTitle());
+        body.put("location", premiere.getLocation());
+        body.put("date", premiere.getDate().toString());
+        body.put("ticketPrice", premiere.getTicketPrice());
+        body.put("ticketsSold", premiere.getTicketSold());
+        body.put("ticketsLeft", premiere.getTicketCount());
+        return json(body);
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, 405, error("Метод " + exchange.getRequestMethod() + " не поддерживается."));
+        return false;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String error(String message) {
+        return json(Map.of("error", message == null ? "" : message));
+    }
+
+    // Небольшой JSON без внешних библиотек: строки, числа, логические значения, списки и вложенные объекты
+    static String json(Map<String, ?> values) {
+        StringBuilder builder = new StringBuilder("{");
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            appendString(builder, entry.getKey());
+            builder.append(':');
+            appendValue(builder, entry.getValue());
+        }
+        return builder.append('}').toString();
+    }
+
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                appendString(builder, String.valueOf(entry.getKey()));
+                builder.append(':');
+                appendValue(builder, entry.getValue());
+            }
+            builder.append('}');
+        } else if (value instanceof List<?> list) {
+            builder.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                appendValue(builder, list.get(i));
+            }
+            builder.append(']');
+        } else {
+            appendString(builder, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Ответ об ошибке, если заголовки ещё не отправлены; иначе остаётся только закрыть обмен
+    private static void sendQuietly(HttpExchange exchange, int status, String body) {
+        try {
+            if (exchange.getResponseCode() == -1) {
+                send(exchange, status, body);
+            }
+        } catch (IOException e) {
+            log.debug("Не удалось отправить ответ об ошибке: {}", e.getMessage());
+        }
+    }
+
+    // Останавливает приём запросов, даёт текущим до секунды на завершение
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Сервер кассы остановлен, обработано запросов: {}", handledRequests.get());
+    }
+}
@@ -12,10 +12,13 @@ import movie_platform.model.Contract;
 import movie_platform.model.FinanceRecord;
 import movie_platform.model.Movie;
 import movie_platform.model.Premiere;
-import movie_platform.repository.FinanceRepository;
 import movie_platform.repository.PremiereRepository;
 import movie_platform.utils.DateUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -28,16 +31,43 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 public class Main {
+    private static final int REVIEWS_PAGE_SIZE = 10; // Отзывов на странице при просмотре
+    private static final int SEARCH_RESULTS = 10;    // Фильмов в результатах поиска
+
     public static void main(String[] args) {
         MovieManager movieManager = new MovieManager();
         ContractManager contractManager = new ContractManager();
         PremiereManager premiereManager = new PremiereManager();
         FinanceManager financeManager = new FinanceManager();
-        PremiereRepository premiereRepository = new PremiereRepository();
-        FinanceRepository financeRepository = new FinanceRepository();
+        PremiereRepository premiereRepository = premiereManager.getRepository(); // Общий с менеджером и сервером кассы
+        // Транзакционная запись продаж: интервал фоновой записи задаётся системным свойством
+        PersistenceService persistenceService = new PersistenceService(financeManager, premiereManager,
+                Long.getLong("persistence.flushIntervalMillis", 200));
+        // Отчёты строятся в отдельном потоке, продажи и возвраты их не ждут
+        ReportService reportService = new ReportService(financeManager, Integer.getInteger("reports.queueCapacity", 16));
+        // События премьер (закрытие продаж, отчёт, архив); смещения задаются системными свойствами
+        PremiereScheduler premiereScheduler = new PremiereScheduler(premiereManager, Clock.systemUTC(),
+                Duration.ofMinutes(Long.getLong("scheduler.salesCutoffMinutes", 0)),
+                Duration.ofHours(Long.getLong("scheduler.archiveDelayHours", 168)));
+        premiereScheduler.start();
+        // HTTP-касса для удалённых клиентов запускается, если задан порт (-Dserver.port=8080)
+        BoxOfficeServer boxOfficeServer = null;
+        Integer serverPort = Integer.getInteger("server.port");
+        if (serverPort != null) {
+            try {
+                boxOfficeServer = new BoxOfficeServer(premiereManager, financeManager, persistenceService, reportService,
+                        System.getProperty("server.host", "localhost"), serverPort, Integer.getInteger("server.workers", 64));
+                boxOfficeServer.start();
+            } catch (IOException e) {
+                log.error("Не удалось запустить сервер кассы на порту {}: {}", serverPort, e.getMessage());
+                System.out.println("Не удалось запустить сервер кассы: " + e.getMessage());
+            }
+        }
 
         Scanner scanner = new Scanner(System.in);
 
@@ -60,7 +90,8 @@ public class Main {
             System.out.println("15. Показать финансовый отчет");
             System.out.println("16. Добавить отзыв");
             System.out.println("17. Показать отзывы");
-            System.out.println("18. Выйти");
+            System.out.println("18. Поиск фильмов");
+            System.out.println("19. Выйти");
 
             System.out.print("Выберите действие: ");
             int choice;
@@ -189,26 +220,22 @@ public class Main {
                         System.out.print("Введите дату премьеры (в формате dd.MM.yyyy или dd.MM.yyyy HH:mm z(Например: 20.03.2025 15:00)): ");
                         String dateInput = scanner.nextLine().trim();
 
-                        DateTimeFormatter fullFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm z");
-                        DateTimeFormatter noZoneFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-                        DateTimeFormatter dateOnlyFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-
                         try {
                             // 1. Полный формат с временной зоной
-                            premiereDate = ZonedDateTime.parse(dateInput, fullFormatter);
+                            premiereDate = DateUtils.parseDateTimeZone(dateInput);
                         } catch (DateTimeParseException e1) {
                             try {
                                 // 2. Формат без зоны
-                                LocalDateTime localDateTime = LocalDateTime.parse(dateInput, noZoneFormatter);
-                                ZoneId zone = DateUtils.getZoneIdByLocation(premierePlace);
+                                LocalDateTime localDateTime = LocalDateTime.parse(dateInput, DateUtils.DATE_TIME);
+                                ZoneId zone = zoneForLocation(premierePlace);
                                 premiereDate = ZonedDateTime.of(localDateTime, zone);
                                 System.out.println("Временная зона автоматически установлена: " + zone);
                             } catch (DateTimeParseException e2) {
                                 try {
                                     // 3. Только дата
-                                    LocalDate localDate = LocalDate.parse(dateInput, dateOnlyFormatter);
+                                    LocalDate localDate = LocalDate.parse(dateInput, DateUtils.DATE);
                                     LocalTime defaultTime = LocalTime.of(12, 0);
-                                    ZoneId zone = DateUtils.getZoneIdByLocation(premierePlace);
+                                    ZoneId zone = zoneForLocation(premierePlace);
                                     premiereDate = ZonedDateTime.of(localDate, defaultTime, zone);
                                     System.out.println("Установлено время по умолчанию 12:00 и временная зона: " + zone);
                                 } catch (DateTimeParseException e3) {
@@ -232,9 +259,8 @@ public class Main {
                     }
 
                     Premiere newPremiere = new Premiere(premiereId, premiereTitle, premiereDate, premierePlace, ticketCount, budget);
-                    premiereManager.addPremiere(newPremiere);
-                    // Вызываем сохранение премьер в файл через репозиторий:
-                    premiereRepository.savePremieresToFile(premiereManager.getPremiereMap(), false);
+                    premiereManager.addPremiere(newPremiere); // Сохраняет только новую премьеру
+                    premiereScheduler.schedule(newPremiere);
                     break;
 
                 case 8: // Добавление гостя на премьеру
@@ -253,14 +279,9 @@ public class Main {
                     } while (!isGuestAge.equals("да") && !isGuestAge.equals("нет"));
 
                     if (isGuestAge.equals("да")) {
-                        // Находим премьеру по ID
-                        Premiere premiereForGuest = premiereManager.findPremiereById(premiereIdForGuest);
-
-                        if (premiereForGuest != null) {
-                            // Добавляем гостя в найденную премьеру
-                            premiereForGuest.addGuest(guestName, true);
-                            // Вызываем сохранение гостей в файл через репозиторий:
-                            premiereRepository.saveGuestsToFile(premiereForGuest, false);
+                        // Добавляем гостя под блокировкой премьеры и сохраняем копию списка гостей
+                        if (premiereManager.addGuest(premiereIdForGuest, guestName, true)) {
+                            premiereManager.saveGuestsToFile(premiereIdForGuest);
                         } else {
                             System.out.println("Премьера с таким ID не найдена.");
                         }
@@ -273,6 +294,7 @@ public class Main {
                     System.out.print("Введите ID премьеры для удаления: ");
                     String premiereIdToRemove = scanner.nextLine();
                     premiereManager.removePremiereById(premiereIdToRemove);
+                    premiereScheduler.cancel(premiereIdToRemove);
                     break;
 
                 case 10:
@@ -300,7 +322,7 @@ public class Main {
                             }
                             System.out.println(); // Пустая строка для разделения премьер
                         }
-                        premiereRepository.savePremieresToFile(premiereMap, false);
+                        premiereManager.savePremieresToFile();
                     }
                     break;
 
@@ -348,7 +370,7 @@ public class Main {
                         }
                     }
                     // Для даты: если она не введена, можно использовать текущую дату
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+                    DateTimeFormatter formatter = DateUtils.DATE;
 
                     LocalDate date = null;
                     while (date == null) { // Цикл для перезапроса даты
@@ -369,8 +391,6 @@ public class Main {
                             new FinanceRecord(UUID.randomUUID().toString().substring(0, 5), type, amount, description, date)
                     );
                     System.out.println("Финансовая запись успешно добавлена.");
-                    // Сохранение финансовых записей в файл
-                    financeRepository.saveRecords(financeManager.getFinanceRecords(), false);
                     break;
 
                 case 12:
@@ -399,38 +419,21 @@ public class Main {
                     Premiere premiere = premiereManager.findPremiereById(premiereIdForTickets);
 
                     if (premiere != null) {
-                        double ticketPrice = premiere.getTicketPrice();
-                        double totalIncome = ticketPrice * ticketsToSell;
-
-                        // Пробуем продать билеты через метод sellTickets в Premiere
-                        if (premiere.sellTickets(ticketsToSell)) {
-                            System.out.println("Продано билетов: " + ticketsToSell +
-                                    " по цене " + ticketPrice + " на сумму: " + totalIncome);
-
-                            // Запись о финансовой операции в формате CSV
-                            FinanceRecord financeRecord = new FinanceRecord(
-                                    UUID.randomUUID().toString().substring(0, 5),
-                                    FinanceType.INCOME,
-                                    totalIncome,
-                                    "Продажа билетов на премьеру: " + premiere.getMovieTitle(),
-                                    LocalDate.now()
-                            );
-
-                            // Запись в финансовый менеджер
-                            financeManager.addFinanceRecord(financeRecord);
-
-                            //  Сохраняем премьеру с обновлёнными билетами в файл premieres.txt
-                            premiereRepository.savePremieresToFile(premiereManager.getPremiereMap(), false);
-
-                            // Экспортируем финансы в CSV после продажи билетов
-                            financeManager.generateFinanceReport(false);
-
-                            //Сохранияем в файл finance_report.csv
-                            financeRepository.saveRecords(financeManager.getFinanceRecords(), false);
-
-                        } else {
-                            System.out.println("Недостаточно билетов для продажи.");
-
+                        try {
+                            // Билеты и доход записываются одной транзакцией в журнал продаж (с fsync);
+                            // premieres.dat и финансовый журнал потом обновит фоновый поток
+                            FinanceRecord financeRecord = persistenceService.sellTickets(premiere, ticketsToSell);
+                            if (financeRecord != null) {
+                                System.out.println("Продано билетов: " + ticketsToSell +
+                                        " по цене " + premiere.getTicketPrice() + " на сумму: " + financeRecord.getAmount());
+                                // Отчёт при продаже не строится: его можно получить через пункт меню 15
+                            } else if (premiere.isSalesClosed()) {
+                                System.out.println("Ошибка: Продажа билетов на премьеру закрыта.");
+                            } else {
+                                System.out.println("Недостаточно билетов для продажи. Доступно: " + premiere.getTicketCount());
+                            }
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            System.out.println("Ошибка: " + e.getMessage());
                         }
                     } else {
                         System.out.println("Премьера с таким ID не найдена.");
@@ -453,35 +456,19 @@ public class Main {
                     Premiere premiereForReturn = premiereManager.findPremiereById(premiereIdForReturn);
 
                     if (premiereForReturn != null) {
-                        double ticketPrice = premiereForReturn.getTicketPrice();
-                        double totalRefund = ticketPrice * ticketsToReturn;
-
                         try {
-                            // Возвращаем билеты для найденной премьеры
-                            premiereForReturn.returnTickets(ticketsToReturn, premiereForReturn.getTicketSold());
+                            // Возврат билетов и расход — одна транзакция журнала продаж
+                            FinanceRecord refundRecord = persistenceService.refundTickets(premiereForReturn, ticketsToReturn);
                             System.out.println("Возвращено билетов: " + ticketsToReturn +
-                                    " по цене " + ticketPrice + " на сумму: " + totalRefund);
-
-                            // Запись о возврате в финансовый менеджер
-                            financeManager.addFinanceRecord(new FinanceRecord(
-                                    UUID.randomUUID().toString().substring(0, 5),
-                                    FinanceType.EXPENSE,
-                                    totalRefund,
-                                    "Возврат билетов на премьеру: " + premiereForReturn.getMovieTitle(),
-                                    LocalDate.now()
-                            ));
-
-                            // Сохраняем обновлённую премьеру в файл premieres.txt
-                            premiereRepository.savePremieresToFile(premiereManager.getPremiereMap(), false);
-
-                            // Экспортируем финансы в CSV после возврата билетов
-                            financeManager.generateFinanceReport(true);
-
-                            //Сохранияем в файл finance_report.csv
-                            financeRepository.saveRecords(financeManager.getFinanceRecords(), false);
+                                    " по цене " + premiereForReturn.getTicketPrice() + " на сумму: " + refundRecord.getAmount());
 
-
-                        } catch (IllegalArgumentException e) {
+                            // Обновляем PDF-отчёт в фоне: возврат его не ждёт, повторные запросы объединяются
+                            reportService.requestReport(false).whenComplete((path, error) -> {
+                                if (error != null) {
+                                    log.warn("Отчёт после возврата не построен: {}", error.getMessage());
+                                }
+                            });
+                        } catch (IllegalArgumentException | IllegalStateException e) {
                             // Если возникла ошибка (например, возвращаем больше билетов, чем было продано), выводим сообщение
                             System.out.println("Ошибка: " + e.getMessage());
                         }
@@ -492,7 +479,13 @@ public class Main {
 
                 case 15:// Генерация отчета
                     if (financeManager.hasRecords()) {
-                        financeManager.generateFinanceReport(true);
+                        // Пользователь сам запросил отчёт, поэтому ждём его; продажи в это время не блокируются
+                        try {
+                            Path reportPath = reportService.requestReport(true).join();
+                            System.out.println("PDF-отчёт успешно сгенерирован: " + reportPath);
+                        } catch (CompletionException | CancellationException e) {
+                            System.out.println("Ошибка при генерации отчёта: " + e.getMessage());
+                        }
                     } else {
                         System.out.println("Отчет не может быть сгенерирован, так как нет записей для анализа.");
                     }
@@ -508,19 +501,11 @@ public class Main {
                     if (premiereForReview != null) {
                         System.out.print("Введите ваш отзыв: ");
                         String review = scanner.nextLine();
-                        // Добавляем отзыв в список и сохраняем в файл
-                        premiereForReview.getReviews().add(review);
-
-                        List<String> reviews = premiereForReview.getReviews();
-                        // Сохраняем отзывы в файл
-
-                        premiereRepository.saveReviewsToFile(premiereForReview, false);
-
-                        System.out.println("Отзыв добавлен для премьеры " + premiereForReview.getMovieTitle());
-                        if (reviews.isEmpty()) {
-                            System.out.println("  Отзывов пока нет.");
-                        } else {
-                            for (String rev : reviews) {
+                        // В журнал отзывов дописывается только новый отзыв
+                        if (premiereRepository.addReview(premiereForReview, review, false)) {
+                            System.out.println("Отзыв добавлен для премьеры " + premiereForReview.getMovieTitle());
+                            System.out.println("Последние отзывы:");
+                            for (String rev : premiereRepository.loadLatestReviews(premiereForReview.getId(), REVIEWS_PAGE_SIZE, false)) {
                                 System.out.println("  - " + rev);
                             }
                         }
@@ -537,18 +522,25 @@ public class Main {
 
                     if (premiereToShowReviews != null) {
 
-                        // Загружаем отзывы из файла
-                        premiereRepository.loadReviewsFromFile(premiereToShowReviews, false);
-                        List<String> reviews = premiereToShowReviews.getReviews();
-
+                        // Отзывы читаются из журнала постранично, а не целиком
                         String movieTitle = premiereToShowReviews.getMovieTitle();
+                        int reviewCount = premiereRepository.countReviews(premiereToShowReviews.getId(), false);
 
-                        if (reviews.isEmpty()) {
+                        if (reviewCount == 0) {
                             System.out.println("К премьере " + movieTitle + " пока нет отзывов.");
                         } else {
-                            System.out.println("Отзывы о премьере " + movieTitle + ":");
-                            for (String review : reviews) {
-                                System.out.println("- " + review);
+                            int pages = (reviewCount + REVIEWS_PAGE_SIZE - 1) / REVIEWS_PAGE_SIZE;
+                            System.out.println("Отзывы о премьере " + movieTitle + " (" + reviewCount + "):");
+                            for (int page = 1; page <= pages; page++) {
+                                for (String review : premiereRepository.loadReviewsPage(premiereToShowReviews.getId(), page, REVIEWS_PAGE_SIZE, false)) {
+                                    System.out.println("- " + review);
+                                }
+                                if (page < pages) {
+                                    System.out.print("Страница " + page + " из " + pages + ". Enter — дальше, q — выход: ");
+                                    if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                                        break;
+                                    }
+                                }
                             }
                         }
                     } else {
@@ -556,8 +548,32 @@ public class Main {
                     }
                     break;
 
-                case 18:
+                case 18: // Поиск по названию, актёрам и продюсерам
+                    System.out.print("Введите запрос (слова из названия, имена актёров или продюсеров): ");
+                    String query = scanner.nextLine();
+                    List<Movie> found = movieManager.searchMovies(query, SEARCH_RESULTS);
+                    if (found.isEmpty()) {
+                        System.out.println("Фильмы не найдены.");
+                        List<String> suggestions = movieManager.suggestWords(query, 5);
+                        if (!suggestions.isEmpty()) {
+                            System.out.println("Возможно, вы искали: " + String.join(", ", suggestions));
+                        }
+                    } else {
+                        System.out.println("Найдено (самые подходящие первыми):");
+                        for (Movie foundMovie : found) {
+                            System.out.println("- " + foundMovie.getId() + ": " + foundMovie.getTitle());
+                        }
+                    }
+                    break;
+
+                case 19:
                     System.out.println("Выход из приложения...");
+                    if (boxOfficeServer != null) {
+                        boxOfficeServer.close(); // Больше не принимаем запросы касс
+                    }
+                    premiereScheduler.close();
+                    reportService.close();      // Дожидаемся отчётов, которые уже в очереди
+                    persistenceService.close(); // Записываем всё, что ещё не сохранено
                     scanner.close();
                     return;
 
@@ -566,5 +582,14 @@ public class Main {
             }
         }
     }
-}
 
+    // Зона по месту проведения; если города нет в таблице, берётся системная зона
+    private static ZoneId zoneForLocation(String location) {
+        ZoneId zone = DateUtils.findZoneIdByLocation(location);
+        if (zone == null) {
+            System.out.println("Город не распознан, используется системная временная зона.");
+            zone = ZoneId.systemDefault();
+        }
+        return zone;
+    }
+}
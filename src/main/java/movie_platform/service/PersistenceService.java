@@ -0,0 +1,364 @@
+package movie_platform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.FinanceAggregation;
+import movie_platform.enums.FinanceType;
+import movie_platform.enums.TicketOrderStatus;
+import movie_platform.manager.FinanceManager;
+import movie_platform.manager.PremiereManager;
+import movie_platform.model.FinanceRecord;
+import movie_platform.model.Premiere;
+import movie_platform.model.TicketOrder;
+import movie_platform.model.TicketOrderResult;
+import movie_platform.repository.SaleTransactionLog;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Транзакционная запись продаж и возвратов билетов.
+// Продажи и возвраты (sellTickets, refundTickets, sellTicketsBatch) — транзакции: билеты премьеры
+// и финансовая запись попадают в журнал продаж одной записью, и вызов всегда возвращается только
+// после fsync пачки, в которую вошла транзакция. Пока один fsync выполняется, следующие транзакции
+// копятся и записываются следующим — одним fsync на всех.
+// Изменённые премьеры (premieres.dat) и журнал финансов фоновый поток дописывает после пачки
+// и не реже раза в flushIntervalMillis; когда журнал продаж разрастается, контрольная точка
+// сохраняет финансы и премьеры с fsync и очищает его. При запуске транзакции из журнала,
+// которых ещё нет в премьерах и финансах, применяются повторно.
+@Slf4j
+public class PersistenceService implements AutoCloseable {
+
+    private final FinanceManager financeManager;
+    private final PremiereManager premiereManager;
+    private final long flushIntervalMillis;
+    private static final long CHECKPOINT_BYTES = 4L << 20; // Журнал продаж такого размера сворачивается контрольной точкой
+    private static final String SALE_RECORD_PREFIX = "T"; // ID финансовой записи транзакции: T<номер транзакции>
+    private final SaleTransactionLog saleLog;
+    private List<PendingSale> pendingSales = new ArrayList<>(); // Транзакции, ожидающие групповой записи (под monitor)
+
+    private final AtomicBoolean premieresDirty = new AtomicBoolean(false); // Есть ли несохранённые премьеры
+    private final Object monitor = new Object();
+    private long requestedCommit; // Номер последней запрошенной групповой записи
+    private long completedCommit; // Номер последней выполненной групповой записи
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    // Продажа или возврат, билеты которых уже списаны: tickets > 0 — продажа, < 0 — возврат
+    private record SaleRequest(Premiere premiere, int tickets, FinanceType type, double amount, String description) {
+    }
+
+    // Транзакция, билеты которой уже списаны, а запись в журнал ещё не сделана.
+    // У транзакций одного вызова (пакета) общий committed.
+    private record PendingSale(SaleTransactionLog.Entry entry, Premiere premiere, CompletableFuture<Void> committed) {
+    }
+
+    public PersistenceService(FinanceManager financeManager, PremiereManager premiereManager, long flushIntervalMillis) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Интервал записи должен быть больше 0.");
+        }
+        this.financeManager = financeManager;
+        this.premiereManager = premiereManager;
+        this.flushIntervalMillis = flushIntervalMillis;
+        financeManager.setJournalWriteBehind(true);
+        this.saleLog = new SaleTransactionLog(financeManager.isTestMode());
+        recoverSales();
+
+        this.writer = new Thread(this::runWriter, "persistence-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Запись продаж запущена: интервал {} мс", flushIntervalMillis);
+    }
+
+    // Транзакционная продажа: возвращает финансовую запись о доходе или null, если билетов недостаточно.
+    // При возврате из метода продажа записана на диск.
+    public FinanceRecord sellTickets(Premiere premiere, int count) {
+        if (count <= 0) {
+            log.warn("Ошибка: Количество билетов для продажи должно быть больше 0.");
+            return null;
+        }
+        double amount = premiere.getTicketPrice() * count;
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Сумма должна быть больше 0.");
+        }
+        if (premiere.reserveTickets(count) != TicketOrderStatus.SOLD) {
+            return null; // Причину сообщает вызывающий (меню, сервер касс)
+        }
+        return commitTransactions(List.of(new SaleRequest(premiere, count, FinanceType.INCOME, amount,
+                "Продажа билетов на премьеру: " + premiere.getMovieTitle()))).get(0);
+    }
+
+    // Транзакционный возврат; IllegalArgumentException, если вернуть столько билетов нельзя
+    public FinanceRecord refundTickets(Premiere premiere, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Ошибка при возврате билетов: количество билетов должно быть положительным.");
+        }
+        double amount = premiere.getTicketPrice() * count;
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Сумма должна быть больше 0.");
+        }
+        premiere.reserveTickets(-count);
+        return commitTransactions(List.of(new SaleRequest(premiere, -count, FinanceType.EXPENSE, amount,
+                "Возврат билетов на премьеру: " + premiere.getMovieTitle()))).get(0);
+    }
+
+    // Пакетная продажа (оптовые квоты партнёров, выгрузка заказов интернет-магазина).
+    // Каждый заказ проверяется по остатку билетов; успешные записываются в журнал продаж одной пачкой
+    // с одним fsync на весь пакет. Финансовые записи — по одной на заказ или одна на премьеру (aggregation).
+    // Результаты возвращаются в порядке заказов; если пакет записать не удалось, списание отменяется,
+    // а успешные заказы получают статус FAILED.
+    public List<TicketOrderResult> sellTicketsBatch(List<TicketOrder> orders, FinanceAggregation aggregation) {
+        List<TicketOrderResult> results = premiereManager.reserveTickets(orders);
+        List<SaleRequest> requests = new ArrayList<>();
+        List<List<Integer>> members = new ArrayList<>(); // Номера заказов, вошедших в каждую транзакцию
+        Map<String, Integer> byPremiere = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            TicketOrderResult result = results.get(i);
+            if (!result.isSold()) {
+                continue;
+            }
+            Premiere premiere = result.premiere();
+            int count = result.order().count();
+            double amount = premiere.getTicketPrice() * count;
+            Integer index = aggregation == FinanceAggregation.PER_PREMIERE ? byPremiere.get(premiere.getId()) : null;
+            if (index == null) {
+                if (aggregation == FinanceAggregation.PER_PREMIERE) {
+                    byPremiere.put(premiere.getId(), requests.size());
+                }
+                requests.add(new SaleRequest(premiere, count, FinanceType.INCOME, amount,
+                        "Продажа билетов на премьеру: " + premiere.getMovieTitle()));
+                members.add(new ArrayList<>(List.of(i)));
+            } else {
+                SaleRequest previous = requests.get(index);
+                requests.set(index, new SaleRequest(premiere, previous.tickets() + count, FinanceType.INCOME,
+                        previous.amount() + amount,
+                        "Пакетная продажа билетов на премьеру: " + premiere.getMovieTitle()));
+                members.get(index).add(i);
+            }
+        }
+        if (requests.isEmpty()) {
+            return results;
+        }
+        try {
+            List<FinanceRecord> records = commitTransactions(requests);
+            for (int t = 0; t < records.size(); t++) {
+                for (int i : members.get(t)) {
+                    results.set(i, results.get(i).withFinanceRecord(records.get(t)));
+                }
+            }
+        } catch (IllegalStateException e) {
+            log.error("Пакет из {} заказов не записан: {}", orders.size(), e.getMessage());
+            for (List<Integer> indexes : members) {
+                for (int i : indexes) {
+                    TicketOrderResult result = results.get(i);
+                    results.set(i, new TicketOrderResult(result.order(), TicketOrderStatus.FAILED, result.premiere(), null));
+                }
+            }
+        }
+        log.info("Пакетная продажа: заказов {}, транзакций {}", orders.size(), requests.size());
+        return results;
+    }
+
+    // Ставит транзакции в очередь групповой записи одной пачкой и ждёт fsync. Билеты уже списаны;
+    // если записать не удалось, списание отменяет поток записи и бросается IllegalStateException.
+    private List<FinanceRecord> commitTransactions(List<SaleRequest> requests) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        List<FinanceRecord> records = new ArrayList<>(requests.size());
+        synchronized (monitor) {
+            if (!running) {
+                for (SaleRequest request : requests) {
+                    request.premiere().abortTickets(request.tickets());
+                }
+                throw new IllegalStateException("Запись продаж остановлена.");
+            }
+            LocalDate today = LocalDate.now();
+            for (SaleRequest request : requests) {
+                long lsn = saleLog.nextLsn();
+                FinanceRecord record = new FinanceRecord(SALE_RECORD_PREFIX + lsn, request.type(), request.amount(),
+                        request.description(), today);
+                records.add(record);
+                pendingSales.add(new PendingSale(new SaleTransactionLog.Entry(lsn, request.premiere().getId(),
+                        request.tickets(), record), request.premiere(), committed));
+            }
+            requestedCommit++;
+            monitor.notifyAll();
+        }
+        try {
+            committed.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Транзакция не записана: " + e.getCause().getMessage(), e.getCause());
+        }
+        return records;
+    }
+
+    private void runWriter() {
+        while (true) {
+            long target;
+            synchronized (monitor) {
+                if (running && requestedCommit == completedCommit) {
+                    try {
+                        monitor.wait(flushIntervalMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        running = false;
+                    }
+                }
+                target = requestedCommit;
+            }
+
+            writeBatch(target > completedCommit); // fsync журнала финансов — только для запрошенной записи
+
+            synchronized (monitor) {
+                completedCommit = Math.max(completedCommit, target);
+                monitor.notifyAll();
+                if (!running && requestedCommit == completedCommit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeBatch(boolean fsync) {
+        try {
+            commitSales();
+            int records = financeManager.flushJournal(fsync);
+            boolean premieres = premieresDirty.getAndSet(false);
+            if (premieres) {
+                premiereManager.savePremieresToFile();
+            }
+            if (records > 0 || premieres) {
+                log.debug("Групповая запись: финансовых записей {}, премьеры сохранены: {}", records, premieres);
+            }
+            if (saleLog.size() >= CHECKPOINT_BYTES) {
+                checkpoint();
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка при групповой записи: {}", e.getMessage());
+        }
+    }
+
+    // Записывает накопленные транзакции одним fsync и только после этого применяет их:
+    // билеты становятся частью сохраняемого состояния премьеры, финансовая запись добавляется в менеджер
+    private void commitSales() {
+        List<PendingSale> batch;
+        synchronized (monitor) {
+            if (pendingSales.isEmpty()) {
+                return;
+            }
+            batch = pendingSales;
+            pendingSales = new ArrayList<>();
+        }
+        List<SaleTransactionLog.Entry> entries = new ArrayList<>(batch.size());
+        for (PendingSale sale : batch) {
+            entries.add(sale.entry());
+        }
+        try {
+            saleLog.append(entries);
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка записи журнала продаж, отменено транзакций {}: {}", batch.size(), e.getMessage());
+            for (PendingSale sale : batch) {
+                sale.premiere().abortTickets(sale.entry().tickets());
+                sale.committed().completeExceptionally(e);
+            }
+            return;
+        }
+        List<FinanceRecord> records = new ArrayList<>(batch.size());
+        for (PendingSale sale : batch) {
+            sale.premiere().commitTickets(sale.entry().lsn(), sale.entry().tickets());
+            records.add(sale.entry().record());
+        }
+        financeManager.addFinanceRecords(records);
+        for (PendingSale sale : batch) {
+            sale.committed().complete(null); // Вызывающие видят уже применённые транзакции всей пачки
+        }
+        premieresDirty.set(true);
+        log.debug("Групповая запись журнала продаж: транзакций {}", batch.size());
+    }
+
+    // Контрольная точка: финансы и премьеры записываются с fsync, после чего журнал продаж очищается.
+    // Вызывается только из потока записи (или до его запуска), поэтому все транзакции в журнале уже применены.
+    private void checkpoint() {
+        premieresDirty.set(false);
+        if (!financeManager.checkpointJournal() || !premiereManager.checkpointPremieres()) {
+            log.warn("Контрольная точка не выполнена, журнал продаж сохранён: {} байт", saleLog.size());
+            premieresDirty.set(true);
+            return;
+        }
+        try {
+            saleLog.reset();
+        } catch (IOException e) {
+            log.error("Ошибка очистки журнала продаж: {}", e.getMessage());
+        }
+    }
+
+    // Восстановление после сбоя: транзакции из журнала, которых нет в загруженных данных, применяются повторно.
+    // Премьера хранит номер последней учтённой транзакции, финансовая запись узнаётся по ID.
+    private void recoverSales() {
+        long appliedLsn = 0;
+        for (Premiere premiere : premiereManager.getPremiereMap().values()) {
+            appliedLsn = Math.max(appliedLsn, premiere.getAppliedSaleLsn());
+        }
+        List<SaleTransactionLog.Entry> entries;
+        try {
+            entries = saleLog.recover(appliedLsn + 1);
+        } catch (IOException e) {
+            log.error("Не удалось открыть журнал продаж: {}", e.getMessage());
+            throw new IllegalStateException("Не удалось открыть журнал продаж: " + e.getMessage(), e);
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<String> recordIds = new HashSet<>();
+        for (FinanceRecord record : financeManager.getAllFinanceRecords()) {
+            recordIds.add(record.getId());
+        }
+        int tickets = 0;
+        List<FinanceRecord> records = new ArrayList<>();
+        for (SaleTransactionLog.Entry entry : entries) {
+            Premiere premiere = premiereManager.getPremiereMap().get(entry.premiereId());
+            if (premiere == null) {
+                log.warn("Премьера {} из транзакции {} не найдена, восстанавливается только финансовая запись",
+                        entry.premiereId(), entry.lsn());
+            } else if (premiere.applyLoggedTickets(entry.lsn(), entry.tickets())) {
+                tickets++;
+            }
+            if (recordIds.add(entry.record().getId())) {
+                records.add(entry.record());
+            }
+        }
+        financeManager.addFinanceRecords(records);
+        log.info("Журнал продаж: транзакций {}, повторно применено изменений билетов {}, финансовых записей {}",
+                entries.size(), tickets, records.size());
+        checkpoint();
+    }
+
+    // Останавливает фоновый поток, предварительно записав всё накопленное
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            running = false;
+            requestedCommit++;
+            monitor.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint(); // При штатной остановке журнал продаж не нужен
+        try {
+            saleLog.close();
+        } catch (IOException e) {
+            log.warn("Ошибка закрытия журнала продаж: {}", e.getMessage());
+        }
+        financeManager.setJournalWriteBehind(false);
+        log.info("Запись продаж остановлена.");
+    }
+}
@@ -0,0 +1,204 @@
+package movie_platform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.PremiereEventType;
+import movie_platform.manager.PremiereManager;
+import movie_platform.model.Premiere;
+import movie_platform.repository.PremiereRepository;
+import movie_platform.utils.TimingWheel;
+
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Планировщик событий премьер: закрытие продаж, отчёт о премьере и архивирование гостей и отзывов.
+// События хранятся в иерархическом колесе таймеров (TimingWheel) с тиком в одну секунду, поэтому
+// добавление и отмена — O(1) при любом количестве премьер. Колесом владеет один поток планировщика;
+// другие потоки только ставят команды в очередь (schedule/cancel), а поток спит до ближайшего события.
+// Расписание не сохраняется: при запуске оно строится заново по премьерам из PremiereManager.
+// Все события повторяемы — закрытые продажи закрываются снова, готовый отчёт не перезаписывается,
+// а уже заархивированные файлы не трогаются, — поэтому события прошедших премьер просто срабатывают сразу.
+@Slf4j
+public class PremiereScheduler implements AutoCloseable {
+
+    private static final long MAX_SLEEP_MILLIS = 60_000; // Раз в минуту время сверяется даже без событий
+
+    private final PremiereManager premiereManager;
+    private final PremiereRepository repository;
+    private final boolean testMode;
+    private final Clock clock;
+    private final Duration salesCutoff;  // За сколько до начала премьеры закрываются продажи
+    private final Duration archiveDelay; // Через сколько после начала архивируются гости и отзывы
+
+    // Событие помнит время начала премьеры: если дату изменили, старое событие не выполняется
+    private record Event(String premiereId, PremiereEventType type, Instant premiereStart) {
+    }
+
+    // Только поток планировщика
+    private final TimingWheel<Event> wheel;
+    private final Map<String, List<TimingWheel.Timer<Event>>> timers = new HashMap<>();
+
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile int scheduledEvents;
+    private final AtomicLong firedEvents = new AtomicLong();
+
+    public PremiereScheduler(PremiereManager premiereManager, Clock clock, Duration salesCutoff, Duration archiveDelay) {
+        if (salesCutoff.isNegative() || archiveDelay.isNegative()) {
+            throw new IllegalArgumentException("Смещения событий не могут быть отрицательными.");
+        }
+        this.premiereManager = premiereManager;
+        this.repository = premiereManager.getRepository();
+        this.testMode = premiereManager.isTestMode();
+        this.clock = clock;
+        this.salesCutoff = salesCutoff;
+        this.archiveDelay = archiveDelay;
+        this.wheel = new TimingWheel<>(clock.instant().getEpochSecond());
+        this.thread = new Thread(this::run, "premiere-scheduler");
+        this.thread.setDaemon(true);
+    }
+
+    // Строит расписание по всем премьерам и запускает поток планировщика
+    public void start() {
+        commands.add(this::rebuild);
+        thread.start();
+    }
+
+    // Планирует (или перепланирует после изменения даты) события премьеры
+    public void schedule(Premiere premiere) {
+        String id = premiere.getId();
+        Instant start = premiere.getDate().toInstant();
+        commands.add(() -> scheduleEvents(id, start));
+    }
+
+    public void cancel(String premiereId) {
+        commands.add(() -> cancelEvents(premiereId));
+    }
+
+    // Сверить время немедленно (например, после перевода часов)
+    public void wakeUp() {
+        commands.add(() -> {
+        });
+    }
+
+    public int getScheduledEvents() {
+        return scheduledEvents;
+    }
+
+    public long getFiredEvents() {
+        return firedEvents.get();
+    }
+
+    private void run() {
+        log.info("Планировщик премьер запущен: закрытие продаж за {}, архивирование через {}", salesCutoff, archiveDelay);
+        while (running) {
+            try {
+                wheel.advanceTo(clock.instant().getEpochSecond(), this::fire);
+                scheduledEvents = wheel.size();
+                long next = wheel.nextEventTick();
+                long wait = next == Long.MAX_VALUE ? MAX_SLEEP_MILLIS
+                        : Math.min(MAX_SLEEP_MILLIS, Math.max(1, next * 1000 - clock.millis()));
+                Runnable command = commands.poll(wait, TimeUnit.MILLISECONDS);
+                while (command != null) { // Команды выполняются пачкой, между ними колесо не двигается
+                    command.run();
+                    command = commands.poll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка в планировщике премьер: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void rebuild() {
+        int premieres = 0;
+        for (Premiere premiere : premiereManager.getPremiereMap().values()) {
+            scheduleEvents(premiere.getId(), premiere.getDate().toInstant());
+            premieres++;
+        }
+        log.info("Расписание построено: премьер {}, событий {}", premieres, wheel.size());
+    }
+
+    private void scheduleEvents(String id, Instant start) {
+        cancelEvents(id);
+        List<TimingWheel.Timer<Event>> scheduled = new ArrayList<>(PremiereEventType.values().length);
+        // Порядок добавления сохраняется для событий одной секунды: закрытие, отчёт, архив
+        for (PremiereEventType type : PremiereEventType.values()) {
+            scheduled.add(wheel.schedule(eventTime(type, start).getEpochSecond(), new Event(id, type, start)));
+        }
+        timers.put(id, scheduled);
+    }
+
+    private Instant eventTime(PremiereEventType type, Instant start) {
+        return switch (type) {
+            case CLOSE_SALES -> start.minus(salesCutoff);
+            case GENERATE_REPORT -> start;
+            case ARCHIVE -> start.plus(archiveDelay);
+        };
+    }
+
+    private void cancelEvents(String id) {
+        List<TimingWheel.Timer<Event>> scheduled = timers.remove(id);
+        if (scheduled != null) {
+            scheduled.forEach(wheel::cancel);
+        }
+    }
+
+    private void fire(Event event) {
+        String id = event.premiereId();
+        List<TimingWheel.Timer<Event>> scheduled = timers.get(id);
+        if (scheduled != null && scheduled.stream().noneMatch(TimingWheel.Timer::isScheduled)) {
+            timers.remove(id);
+        }
+        Premiere premiere = premiereManager.getPremiereMap().get(id);
+        if (premiere == null || !premiere.getDate().toInstant().equals(event.premiereStart())) {
+            log.debug("Событие {} для премьеры {} устарело и пропущено", event.type(), id);
+            return;
+        }
+        try {
+            switch (event.type()) {
+                case CLOSE_SALES -> {
+                    premiere.closeSales();
+                    log.info("Продажа билетов на премьеру {} закрыта", id);
+                }
+                case GENERATE_REPORT -> {
+                    if (!Files.exists(PremiereRepository.reportPath(id, testMode))) {
+                        String report = premiereManager.updatePremiere(id, Premiere::generateReport);
+                        if (report != null) {
+                            repository.savePremiereReport(id, report, testMode);
+                        }
+                    }
+                }
+                // Список гостей сохраняется при каждом добавлении гостя, поэтому архивируются файлы как есть
+                case ARCHIVE -> repository.archivePremiereFiles(id, testMode);
+            }
+            firedEvents.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при выполнении события {} для премьеры {}: {}", event.type(), id, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        wakeUp();
+        try {
+            thread.join(MAX_SLEEP_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Планировщик премьер остановлен.");
+    }
+}
@@ -0,0 +1,139 @@
+package movie_platform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import movie_platform.manager.FinanceManager;
+import movie_platform.model.FinanceReport;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Построение финансовых отчётов вне потока продаж.
+// Запросы попадают в ограниченную очередь и выполняются отдельным потоком. Пока запрос на файл
+// ещё ждёт в очереди, повторные запросы на тот же файл к нему присоединяются: строится один отчёт
+// по самому свежему снимку, и все вызывающие получают один и тот же CompletableFuture.
+@Slf4j
+public class ReportService implements AutoCloseable {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final FinanceManager financeManager;
+    private final ThreadPoolExecutor executor;
+    private final Map<Path, ReportRequest> pending = new HashMap<>(); // Ожидающие запросы по файлу отчёта
+    private long requested;  // Всего запросов
+    private long coalesced;  // Запросов, присоединённых к ожидающему
+    private long rendered;   // Построенных отчётов
+
+    // Ожидающий запрос: флаг вывода в консоль объединяется по всем присоединившимся
+    private static final class ReportRequest {
+        private final Path target;
+        private final CompletableFuture<Path> future = new CompletableFuture<>();
+        private boolean printToConsole;
+
+        private ReportRequest(Path target, boolean printToConsole) {
+            this.target = target;
+            this.printToConsole = printToConsole;
+        }
+    }
+
+    public ReportService(FinanceManager financeManager, int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Размер очереди отчётов должен быть больше 0.");
+        }
+        this.financeManager = financeManager;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "finance-report-renderer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // Отчёт не должен отнимать процессор у продаж
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Отчёт в стандартный файл (finance_report.pdf или test_finance_report.pdf)
+    public CompletableFuture<Path> requestReport(boolean printToConsole) {
+        return requestReport(financeManager.getReportPath(), printToConsole);
+    }
+
+    // Ставит отчёт в очередь и сразу возвращает управление. Если очередь заполнена,
+    // future завершается с RejectedExecutionException; вызывающий поток не блокируется никогда.
+    public synchronized CompletableFuture<Path> requestReport(Path target, boolean printToConsole) {
+        requested++;
+        ReportRequest waiting = pending.get(target);
+        if (waiting != null) {
+            coalesced++;
+            waiting.printToConsole |= printToConsole;
+            return waiting.future;
+        }
+        ReportRequest request = new ReportRequest(target, printToConsole);
+        try {
+            executor.execute(() -> render(request));
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь отчётов заполнена, запрос на {} отклонён", target);
+            return CompletableFuture.failedFuture(e);
+        }
+        pending.put(target, request);
+        return request.future;
+    }
+
+    private void render(ReportRequest request) {
+        boolean printToConsole;
+        synchronized (this) {
+            // С этого момента новые запросы на этот файл ставятся в очередь заново: они увидят более свежий снимок
+            pending.remove(request.target, request);
+            printToConsole = request.printToConsole;
+        }
+        try {
+            FinanceReport report = financeManager.createReport(); // Снимок берётся в момент построения
+            if (report.getRecords().isEmpty()) {
+                System.out.println("Отчет не может быть сгенерирован, так как нет записей для анализа.");
+                request.future.completeExceptionally(new IllegalStateException("Нет записей для отчёта."));
+                return;
+            }
+            financeManager.renderReport(report, printToConsole, request.target);
+            synchronized (this) {
+                rendered++;
+            }
+            request.future.complete(request.target);
+        } catch (Exception e) {
+            log.error("Ошибка при построении отчёта {}: {}", request.target, e.getMessage());
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    public synchronized long getRequestedCount() {
+        return requested;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    public synchronized long getRenderedCount() {
+        return rendered;
+    }
+
+    // Дожидается уже поставленных отчётов и останавливает поток
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Отчёты не построены за {} с, построение прерывается", SHUTDOWN_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            pending.values().forEach(request -> request.future.cancel(false));
+            pending.clear();
+        }
+    }
+}
@@ -1,20 +1,247 @@
 package movie_platform.utils;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Month;
+import java.time.Year;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Общие форматы дат и определение временной зоны по месту проведения.
+// DateTimeFormatter неизменяем и потокобезопасен, поэтому на каждый шаблон — один экземпляр на всё приложение.
+// Зоны городов берутся из таблицы (встроенной или из файла -Ddates.cityTable=<путь>), а результат
+// для каждой введённой строки кэшируется: повторный вызов не нормализует строку и не вызывает ZoneId.of.
+// Для формата премьер "dd.MM.yyyy HH:mm z" есть быстрый путь: дата дописывается в StringBuilder по цифрам,
+// а название зоны берётся из кэша; результат совпадает с DATE_TIME_ZONE.format.
+@Slf4j
+public final class DateUtils {
+
+    public static final String DATE_PATTERN = "dd.MM.yyyy";
+    public static final String DATE_TIME_PATTERN = "dd.MM.yyyy HH:mm";
+    public static final String DATE_TIME_ZONE_PATTERN = "dd.MM.yyyy HH:mm z";
+
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern(DATE_PATTERN);
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+    // Названия зон английские, как в premieres.txt, независимо от языка системы
+    public static final DateTimeFormatter DATE_TIME_ZONE = DateTimeFormatter.ofPattern(DATE_TIME_ZONE_PATTERN, Locale.ENGLISH);
+    private static final DateTimeFormatter ZONE_NAME = DateTimeFormatter.ofPattern("z", Locale.ENGLISH);
+
+    private static final String CITY_TABLE_PROPERTY = "dates.cityTable";
+    private static final int ZONE_TEXT_POSITION = 17; // "dd.MM.yyyy HH:mm " — зона начинается с 18-го символа
+    // Ключи кэшей — строки, введённые пользователем или прочитанные из файлов; размер ограничен
+    private static final int MAX_CACHED_LOCATIONS = 10_000;
+    private static final int MAX_CACHED_ZONE_TEXTS = 1_000;
+
+    // Встроенная таблица городов; файл из dates.cityTable дополняет и переопределяет её
+    private static final String[][] DEFAULT_CITIES = {
+            {"лондон", "Europe/London"}, {"london", "Europe/London"},
+            {"нью-йорк", "America/New_York"}, {"new york", "America/New_York"},
+            {"токио", "Asia/Tokyo"}, {"tokyo", "Asia/Tokyo"},
+            {"берлин", "Europe/Berlin"}, {"berlin", "Europe/Berlin"},
+            {"москва", "Europe/Moscow"}, {"moscow", "Europe/Moscow"},
+            {"киев", "Europe/Kyiv"}, {"kiev", "Europe/Kyiv"}, {"kyiv", "Europe/Kyiv"},
+    };
+
+    // Название зоны для "z": одно для стандартного времени, другое для летнего
+    private record ZoneNames(String standard, String daylight) {
+        ZoneNames merge(ZoneNames other) {
+            return new ZoneNames(standard != null ? standard : other.standard,
+                    daylight != null ? daylight : other.daylight);
+        }
+    }
+
+    private static final Map<String, ZoneId> zoneIds = new ConcurrentHashMap<>();
+    private static final Map<ZoneId, ZoneNames> zoneNames = new ConcurrentHashMap<>();
+    private static final Map<String, ZoneId> zonesByText = new ConcurrentHashMap<>();
+    // Нормализованное название города -> зона; таблица заменяется целиком при загрузке
+    private static volatile Map<String, ZoneId> cityZones = defaultCityZones();
+    // Строка места как есть -> результат поиска (пустой — город не найден)
+    private static final Map<String, Optional<ZoneId>> locationZones = new ConcurrentHashMap<>();
+
+    static {
+        String table = System.getProperty(CITY_TABLE_PROPERTY);
+        if (table != null) {
+            try {
+                loadCityTable(Paths.get(table));
+            } catch (IOException e) {
+                log.warn("Не удалось загрузить таблицу городов {}: {}", table, e.getMessage());
+            }
+        }
+    }
 
-public class DateUtils {
+    private DateUtils() {
+    }
+
+    // Зона по месту проведения или системная зона, если город не найден
     public static ZoneId getZoneIdByLocation(String location) {
-        return switch (location.trim().toLowerCase()) {
-            case "лондон", "london" -> ZoneId.of("Europe/London");
-            case "нью-йорк", "new york" -> ZoneId.of("America/New_York");
-            case "токио", "tokyo" -> ZoneId.of("Asia/Tokyo");
-            case "берлин", "berlin" -> ZoneId.of("Europe/Berlin");
-            case "москва", "moscow" -> ZoneId.of("Europe/Moscow");
-            case "киев", "kiev", "kyiv" -> ZoneId.of("Europe/Kyiv");
-            default -> {
-                System.out.println("Город не распознан, используется системная временная зона.");
-                yield ZoneId.systemDefault();
+        ZoneId zone = findZoneIdByLocation(location);
+        return zone != null ? zone : ZoneId.systemDefault();
+    }
+
+    // Зона по месту проведения или null, если города нет в таблице
+    public static ZoneId findZoneIdByLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        Optional<ZoneId> zone = locationZones.get(location);
+        if (zone == null) {
+            zone = Optional.ofNullable(cityZones.get(normalizeCity(location)));
+            if (locationZones.size() < MAX_CACHED_LOCATIONS) {
+                locationZones.putIfAbsent(location, zone);
+            }
+        }
+        return zone.orElse(null);
+    }
+
+    // Загружает таблицу городов: строка "город;зона" (например, "Париж;Europe/Paris"), # — комментарий.
+    // Строки с неизвестной зоной пропускаются. Возвращает количество загруженных городов.
+    public static int loadCityTable(Path path) throws IOException {
+        Map<String, ZoneId> table = new HashMap<>(cityZones);
+        int loaded = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.lastIndexOf(';');
+                if (separator <= 0) {
+                    log.warn("Строка {} таблицы городов {} пропущена: нет разделителя ';'", lineNumber, path);
+                    continue;
+                }
+                try {
+                    table.put(normalizeCity(line.substring(0, separator)), zoneOf(line.substring(separator + 1).strip()));
+                    loaded++;
+                } catch (DateTimeException e) {
+                    log.warn("Строка {} таблицы городов {} пропущена: {}", lineNumber, path, e.getMessage());
+                }
+            }
+        }
+        cityZones = table;
+        locationZones.clear();
+        log.info("Таблица городов {} загружена: городов {}, всего в таблице {}", path, loaded, table.size());
+        return loaded;
+    }
+
+    // ZoneId.of с кэшем: одинаковые зоны тысяч площадок и записей премьер — один объект
+    public static ZoneId zoneOf(String zoneId) {
+        ZoneId zone = zoneIds.get(zoneId);
+        if (zone == null) {
+            zone = ZoneId.of(zoneId);
+            if (zoneIds.size() < MAX_CACHED_ZONE_TEXTS) {
+                zoneIds.putIfAbsent(zoneId, zone);
+            }
+        }
+        return zone;
+    }
+
+    // "dd.MM.yyyy HH:mm z" без DateTimeFormatter: цифры пишутся прямо в builder, название зоны — из кэша
+    public static StringBuilder appendDateTimeZone(StringBuilder builder, ZonedDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 1000 || year > 9999) { // Год не из четырёх цифр форматируется как обычно
+            return builder.append(DATE_TIME_ZONE.format(dateTime));
+        }
+        appendTwoDigits(builder, dateTime.getDayOfMonth()).append('.');
+        appendTwoDigits(builder, dateTime.getMonthValue()).append('.');
+        builder.append(year).append(' ');
+        appendTwoDigits(builder, dateTime.getHour()).append(':');
+        appendTwoDigits(builder, dateTime.getMinute()).append(' ');
+        return builder.append(zoneName(dateTime));
+    }
+
+    public static String formatDateTimeZone(ZonedDateTime dateTime) {
+        return appendDateTimeZone(new StringBuilder(32), dateTime).toString();
+    }
+
+    // Разбор "dd.MM.yyyy HH:mm z" с тем же результатом, что ZonedDateTime.parse(text, DATE_TIME_ZONE).
+    // Строки точного формата с корректной датой и уже встречавшейся зоной разбираются без DateTimeFormatter;
+    // всё остальное (новая зона, 31.02, лишние цифры) разбирает форматтер и бросает DateTimeParseException.
+    public static ZonedDateTime parseDateTimeZone(String text) {
+        boolean fixedLayout = text.length() > ZONE_TEXT_POSITION && text.charAt(2) == '.' && text.charAt(5) == '.'
+                && text.charAt(10) == ' ' && text.charAt(13) == ':' && text.charAt(16) == ' ';
+        if (fixedLayout) {
+            int day = digits(text, 0, 2);
+            int month = digits(text, 3, 2);
+            int year = digits(text, 6, 4);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            if (day >= 1 && month >= 1 && month <= 12 && year >= 0 && hour >= 0 && hour < 24
+                    && minute >= 0 && minute < 60 && day <= Month.of(month).length(Year.isLeap(year))) {
+                ZoneId zone = zonesByText.get(text.substring(ZONE_TEXT_POSITION));
+                if (zone != null) {
+                    return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone);
+                }
+            }
+        }
+        ZonedDateTime dateTime = ZonedDateTime.parse(text, DATE_TIME_ZONE);
+        if (fixedLayout && zonesByText.size() < MAX_CACHED_ZONE_TEXTS) {
+            zonesByText.putIfAbsent(text.substring(ZONE_TEXT_POSITION), dateTime.getZone());
+        }
+        return dateTime;
+    }
+
+    private static String normalizeCity(String location) {
+        return location.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, ZoneId> defaultCityZones() {
+        Map<String, ZoneId> table = new HashMap<>();
+        for (String[] city : DEFAULT_CITIES) {
+            table.put(city[0], zoneOf(city[1]));
+        }
+        return table;
+    }
+
+    // Как у DateTimeFormatter для "z": смещение пишется как есть, у региона — название
+    // стандартного или летнего времени на этот момент
+    private static String zoneName(ZonedDateTime dateTime) {
+        ZoneId zone = dateTime.getZone();
+        if (zone instanceof ZoneOffset) {
+            return zone.getId();
+        }
+        ZoneRules rules = zone.getRules();
+        boolean daylight = !rules.isFixedOffset() && !rules.getStandardOffset(dateTime.toInstant()).equals(dateTime.getOffset());
+        ZoneNames names = zoneNames.get(zone);
+        String name = names == null ? null : daylight ? names.daylight() : names.standard();
+        if (name == null) {
+            name = ZONE_NAME.format(dateTime);
+            zoneNames.merge(zone, daylight ? new ZoneNames(null, name) : new ZoneNames(name, null), ZoneNames::merge);
+        }
+        return name;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // Число из count цифр начиная с from или -1, если встретилась не цифра
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
             }
-        };
+            value = value * 10 + digit;
+        }
+        return value;
     }
 }
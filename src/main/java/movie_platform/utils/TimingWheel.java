@@ -0,0 +1,161 @@
+package movie_platform.utils;
+
+import java.util.function.Consumer;
+
+// Иерархическое колесо таймеров (как в ядре Linux и Kafka).
+// Время измеряется в тиках. Каждый уровень — 64 ячейки; ячейка уровня L покрывает 64^L тиков.
+// Таймер кладётся на уровень старшей группы из 6 бит, в которой его срок отличается от текущего тика,
+// поэтому добавление и отмена — O(1) без сортировки. Когда текущий тик доходит до ячейки верхнего уровня,
+// её таймеры переносятся (каскад) на нижние уровни; на уровне 0 срабатывают таймеры текущего тика.
+// 11 уровней покрывают весь диапазон long, поэтому отдельного списка «слишком далёких» таймеров нет.
+// Класс не потокобезопасен: колесом владеет один поток (см. PremiereScheduler).
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    // Таймер колеса; узел двусвязного списка ячейки, поэтому удаляется из ячейки за O(1)
+    public static final class Timer<T> {
+        private final long deadline;
+        private final T task;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadline, T task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public T getTask() {
+            return task;
+        }
+
+        public boolean isScheduled() {
+            return prev != null;
+        }
+    }
+
+    private final Timer<T>[][] slots; // Заголовки (пустые узлы) кольцевых списков ячеек
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        this.slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        for (Timer<T>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                Timer<T> head = new Timer<>(0, null);
+                head.prev = head;
+                head.next = head;
+                level[i] = head;
+            }
+        }
+    }
+
+    // Добавляет таймер; срок не позже текущего тика означает «на следующем тике»
+    public Timer<T> schedule(long deadlineTick, T task) {
+        Timer<T> timer = new Timer<>(Math.max(deadlineTick, currentTick + 1), task);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Продвигает колесо до тика target включительно, передавая задачи сработавших таймеров в порядке срока
+    public void advanceTo(long target, Consumer<T> expired) {
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target; // Пустое колесо: проходить тики по одному незачем
+                return;
+            }
+            long tick = ++currentTick;
+            int top = Math.min(LEVELS - 1, Long.numberOfTrailingZeros(tick) / SLOT_BITS);
+            for (int level = top; level > 0; level--) {
+                cascade(level, (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            }
+            Timer<T> head = slots[0][(int) tick & SLOT_MASK];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.task);
+            }
+        }
+    }
+
+    // Ближайший тик, на котором колесо может что-то сделать: срок таймера уровня 0 или граница каскада.
+    // Позволяет потоку-владельцу спать до этого тика, а не просыпаться каждый тик.
+    public long nextEventTick() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        // Таймеры ячейки уровня L совпадают с текущим тиком во всех битах выше группы L, а номер ячейки
+        // больше текущего, поэтому ищем первую непустую ячейку после текущей, начиная с нижнего уровня
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            int current = (int) (currentTick >>> shift) & SLOT_MASK;
+            for (int slot = current + 1; slot < SLOTS; slot++) {
+                Timer<T> head = slots[level][slot];
+                if (head.next != head) {
+                    if (level == 0) {
+                        return head.next.deadline;
+                    }
+                    // Каскад ячейки — на первом тике её группы
+                    long upper = level + 1 < LEVELS ? (currentTick >>> (shift + SLOT_BITS)) << (shift + SLOT_BITS) : 0;
+                    return upper | ((long) slot << shift);
+                }
+            }
+        }
+        return currentTick + 1;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(Timer<T> timer) {
+        long diff = timer.deadline ^ currentTick;
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot = (int) (timer.deadline >>> (level * SLOT_BITS)) & SLOT_MASK;
+        Timer<T> head = slots[level][slot];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<T> head = slots[level][slot];
+        while (head.next != head) {
+            Timer<T> timer = head.next;
+            unlink(timer);
+            insert(timer);
+        }
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
@@ -1,8 +1,14 @@
 package movie_platform.manager;
 
 import movie_platform.enums.FinanceType;
+import movie_platform.model.FinanceColumnStore;
 import movie_platform.model.FinanceRecord;
+import movie_platform.model.FinanceReport;
 import movie_platform.model.Premiere;
+import movie_platform.repository.FinanceRepository;
+import movie_platform.service.ReportService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,15 +19,26 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -39,6 +56,8 @@ public class FinanceManagerTest {
     void tearDown() {
         if (financeManager.isTestMode()) {
             deleteTestFile("test_finance_records.csv");
+            deleteTestFile("test_finance_records.bin");
+            deleteTestFile("test_finance_records.journal");
             deleteTestFile("test_finance_report.pdf");
         }
     }
@@ -176,7 +195,7 @@ public class FinanceManagerTest {
         FinanceRecord record = new FinanceRecord("1", FinanceType.INCOME, 1000.0, "Продажа билетов", LocalDate.now());
         financeManager.addFinanceRecord(record);
 
-        financeManager.saveFinanceRecordsToFile(); // сохраняем в test_finance_records.csv
+        financeManager.saveFinanceRecordsToFile(); // сохраняем в test_finance_records.bin
 
         financeManager.clearRecordsInMemory(); //  очищает память
 
@@ -190,6 +209,219 @@ public class FinanceManagerTest {
         assertEquals("1", financeManager.getAllFinanceRecords().get(0).getId());
     }
 
+    @Test
+    void testLoadFinanceRecordsSkipsMalformedRows() throws IOException {
+        // Arrange: CRLF, строки отчёта, некорректные строки и последняя строка без перевода строки
+        String csv = "ID, Тип, Сумма, Премьера, Описание, Дата\r\n"
+                + "1, INCOME, 1234.56, Продажа билетов на Дюну, 10.02.2025\r\n"
+                + "\r\n"
+                + "Итог: 1234.56\r\n"
+                + "2, EXPENSE, abc, Аренда зала, 11.02.2025\n"
+                + "3, EXPENSE, 10.00, Аренда зала, 2025-02-11\n"
+                + "4, UNKNOWN, 10.00, Аренда зала, 11.02.2025\n"
+                + "5, CAST\n"
+                + "6, ADVERTISING, 1e3, Реклама, 31.02.2024\n"
+                + "7, EXPENSE, -0.5, Возврат билетов, 01.03.2025\n"
+                + "8, EXPENSE, 0.5, Возврат билетов, 01.03.2025";
+        Files.write(Paths.get("test_finance_records.csv"), csv.getBytes(StandardCharsets.UTF_8));
+        Files.deleteIfExists(Paths.get("test_finance_records.bin")); // Данные прежней версии: двоичного снимка ещё нет
+
+        // Act
+        financeManager.loadFinanceRecordsFromFile();
+
+        // Assert
+        List<FinanceRecord> records = financeManager.getAllFinanceRecords();
+        assertEquals(3, records.size(), "Некорректные строки должны быть пропущены.");
+        assertEquals("1", records.get(0).getId());
+        assertEquals(1234.56, records.get(0).getAmount());
+        assertEquals("Продажа билетов на Дюну", records.get(0).getDescription());
+        assertEquals(LocalDate.of(2025, 2, 10), records.get(0).getDate());
+        assertEquals(1000.0, records.get(1).getAmount());
+        assertEquals(LocalDate.of(2024, 2, 29), records.get(1).getDate(), "День за пределами месяца сдвигается, как в DateTimeFormatter.");
+        assertEquals(0.5, records.get(2).getAmount());
+        assertEquals("8", records.get(2).getId(), "Запись с отрицательной суммой должна быть пропущена.");
+        assertEquals(FinanceType.EXPENSE, records.get(2).getType());
+    }
+
+    @Test
+    void testLoadLargeFinanceFileInParallelChunks() throws IOException {
+        // Arrange: файл больше 1 МБ разбирается несколькими кусками
+        StringBuilder csv = new StringBuilder("ID, Тип, Сумма, Премьера, Описание, Дата\n");
+        int lines = 30_000;
+        for (int i = 1; i <= lines; i++) {
+            if (i % 5000 == 0) {
+                csv.append(i).append(", INCOME, не число, Продажа билетов, 10.02.2025\n");
+            } else {
+                csv.append(i).append(", INCOME, ").append(i).append(".50, Продажа билетов на премьеру, 10.02.2025\n");
+            }
+        }
+        Files.write(Paths.get("test_finance_records.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+        Files.deleteIfExists(Paths.get("test_finance_records.bin")); // Данные прежней версии: двоичного снимка ещё нет
+
+        // Act
+        financeManager.loadFinanceRecordsFromFile();
+
+        // Assert: некорректные строки пропущены, порядок записей как в файле
+        List<FinanceRecord> records = financeManager.getAllFinanceRecords();
+        assertEquals(lines - lines / 5000, records.size());
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(Integer.parseInt(records.get(i - 1).getId()) < Integer.parseInt(records.get(i).getId()));
+        }
+        assertEquals(29_999.5, records.get(records.size() - 1).getAmount());
+    }
+
+    @Test
+    void testBinarySnapshotRoundTripAndCsvExport() throws IOException {
+        // Arrange: описания повторяются и хранятся словарём
+        for (int i = 1; i <= 1000; i++) {
+            String description = i % 2 == 0 ? "Продажа билетов на премьеру Дюна" : "Аренда зала";
+            FinanceType type = i % 2 == 0 ? FinanceType.INCOME : FinanceType.EXPENSE;
+            financeManager.addFinanceRecord(new FinanceRecord("ID-" + i, type, i + 0.25, description, LocalDate.of(2025, 1, 1).plusDays(i)));
+        }
+        financeManager.saveFinanceRecordsToFile();
+        assertTrue(financeManager.exportFinanceRecordsToCsv());
+
+        // Act
+        List<FinanceRecord> fromBinary = new FinanceManager(true).getAllFinanceRecords();
+        List<FinanceRecord> fromCsv = new FinanceRepository().loadCsv(Paths.get("test_finance_records.csv"));
+
+        // Assert
+        assertEquals(1000, fromBinary.size());
+        assertEquals(fromCsv.toString(), fromBinary.toString(), "Снимок и выгрузка в CSV должны содержать одни и те же записи.");
+        assertEquals("ID-1000", fromBinary.get(999).getId());
+        assertEquals(1000.25, fromBinary.get(999).getAmount());
+        assertEquals(LocalDate.of(2025, 1, 1).plusDays(1000), fromBinary.get(999).getDate());
+        assertTrue(Files.size(Paths.get("test_finance_records.bin")) < Files.size(Paths.get("test_finance_records.csv")) / 2,
+                "Двоичный снимок должен быть заметно меньше CSV.");
+
+        // Повреждённое смещение словаря: загрузка сообщает об ошибке чтения, а не падает
+        Path bin = Paths.get("test_finance_records.bin");
+        byte[] bytes = Files.readAllBytes(bin);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int dictionarySize = buffer.getInt(12);
+        long dictionaryBytes = buffer.getLong(24);
+        int dictionaryOffsets = (int) (bytes.length - dictionaryBytes - 4L * (dictionarySize + 1));
+        buffer.putInt(dictionaryOffsets + 4, Integer.MAX_VALUE);
+        Files.write(bin, bytes);
+        assertTrue(new FinanceRepository().loadRecords(true).isEmpty());
+    }
+
+    @Test
+    void testLoadColumnStoreFromSnapshot() {
+        // Arrange
+        financeManager.addFinanceRecord(new FinanceRecord("A", FinanceType.INCOME, 150.5, "Продажа билетов на Дюна", LocalDate.of(2025, 3, 1)));
+        financeManager.addFinanceRecord(new FinanceRecord("B", FinanceType.CAST, 70.25, "Гонорар", LocalDate.of(2025, 3, 2)));
+        financeManager.addFinanceRecord(new FinanceRecord("C", FinanceType.INCOME, 49.5, "Продажа билетов на Дюна", LocalDate.of(2025, 3, 3)));
+        financeManager.saveFinanceRecordsToFile();
+
+        // Act: колонки читаются из test_finance_records.bin без создания FinanceRecord
+        FinanceColumnStore store = new FinanceRepository().loadColumnStore(true);
+
+        // Assert
+        assertEquals(3, store.size());
+        assertEquals(20_000, store.sumCents(List.of(FinanceType.INCOME)));
+        assertEquals(financeManager.calculateTotalExpenses(), store.getTotal(FinanceType.CAST));
+        assertEquals(financeManager.getAllFinanceRecords().toString(), store.toList().toString());
+        assertEquals(store.toList().toString(), financeManager.createColumnStore().toList().toString());
+
+        // Изменения после снимка (только в журнале) тоже попадают в колонки
+        financeManager.addFinanceRecord(new FinanceRecord("D", FinanceType.INCOME, 10, "Продажа билетов на Дюна", LocalDate.of(2025, 3, 4)));
+        financeManager.removeFinanceRecord("B");
+        FinanceColumnStore withJournal = new FinanceRepository().loadColumnStore(true);
+        assertEquals(3, withJournal.size());
+        assertEquals(-1, withJournal.indexOf("B"));
+        assertEquals(financeManager.getAllFinanceRecords().toString(), withJournal.toList().toString());
+        assertEquals(withJournal.toList().toString(), financeManager.loadColumnStore().toList().toString());
+    }
+
+    @Test
+    void testRangeAndMonthlyTotalsMatchFullScan() {
+        // Arrange: записи за несколько лет в случайном порядке дат, часть удаляется
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            FinanceType type = FinanceType.values()[random.nextInt(FinanceType.values().length)];
+            LocalDate date = start.plusDays(random.nextInt(3 * 365));
+            financeManager.addFinanceRecord(new FinanceRecord("T" + i, type, 1 + random.nextInt(100_000) / 100.0, "Запись", date));
+        }
+        for (int i = 0; i < 2000; i += 5) {
+            financeManager.removeFinanceRecord("T" + i);
+        }
+        // Запись далеко за пределами текущего диапазона перестраивает дерево
+        financeManager.addFinanceRecord(new FinanceRecord("FAR", FinanceType.INCOME, 5.0, "Запись", LocalDate.of(1990, 6, 1)));
+
+        List<FinanceRecord> records = financeManager.getAllFinanceRecords();
+        for (int q = 0; q < 50; q++) {
+            LocalDate from = LocalDate.of(1989, 1, 1).plusDays(random.nextInt(12_500));
+            LocalDate to = from.plusDays(random.nextInt(800));
+            double expectedIncome = records.stream()
+                    .filter(r -> !r.getDate().isBefore(from) && !r.getDate().isAfter(to))
+                    .filter(r -> r.getType() == FinanceType.INCOME || r.getType() == FinanceType.SPONSORSHIP || r.getType() == FinanceType.CREDIT)
+                    .mapToLong(r -> Math.round(r.getAmount() * 100)).sum() / 100.0;
+            double expectedCast = records.stream()
+                    .filter(r -> !r.getDate().isBefore(from) && !r.getDate().isAfter(to) && r.getType() == FinanceType.CAST)
+                    .mapToLong(r -> Math.round(r.getAmount() * 100)).sum() / 100.0;
+
+            assertEquals(expectedIncome, financeManager.calculateIncome(from, to), 1e-9, "Доход за " + from + " - " + to);
+            assertEquals(expectedCast, financeManager.calculateTotal(FinanceType.CAST, from, to), 1e-9);
+        }
+        assertEquals(financeManager.calculateTotalIncome(),
+                financeManager.calculateIncome(LocalDate.MIN, LocalDate.MAX), 1e-6);
+
+        // Помесячные итоги
+        SortedMap<YearMonth, Double> monthly = financeManager.getMonthlyExpenses(YearMonth.of(2023, 1), YearMonth.of(2023, 12));
+        assertEquals(12, monthly.size());
+        double march = records.stream()
+                .filter(r -> YearMonth.from(r.getDate()).equals(YearMonth.of(2023, 3)))
+                .filter(r -> r.getType() == FinanceType.EXPENSE || r.getType() == FinanceType.ADVERTISING
+                        || r.getType() == FinanceType.CAST || r.getType() == FinanceType.OTHER)
+                .mapToLong(r -> Math.round(r.getAmount() * 100)).sum() / 100.0;
+        assertEquals(march, monthly.get(YearMonth.of(2023, 3)), 1e-9);
+        assertEquals(5.0, financeManager.createReport().getMonthlyIncome().get(YearMonth.of(1990, 6)));
+
+        // Опечатки в годе: деревья строятся только по дням с записями, диапазон дат не важен
+        double incomeBefore = financeManager.calculateTotalIncome();
+        financeManager.addFinanceRecord(new FinanceRecord("Y1", FinanceType.INCOME, 7.0, "Опечатка", LocalDate.of(1, 1, 1)));
+        financeManager.addFinanceRecord(new FinanceRecord("Y9999", FinanceType.INCOME, 3.0, "Опечатка", LocalDate.of(9999, 12, 31)));
+        assertEquals(7.0, financeManager.calculateIncome(LocalDate.of(1, 1, 1), LocalDate.of(1, 1, 1)));
+        assertEquals(3.0, financeManager.calculateIncome(LocalDate.of(9000, 1, 1), LocalDate.MAX));
+        assertEquals(incomeBefore + 10.0, financeManager.calculateIncome(LocalDate.MIN, LocalDate.MAX), 1e-6);
+    }
+
+    @Test
+    void testJournalReplayAfterRestart() throws IOException {
+        // Arrange: после сворачивания снимок пуст, изменения пишутся только в журнал
+        financeManager.addFinanceRecord(new FinanceRecord("1", FinanceType.INCOME, 1000.0, "Продажа билетов", LocalDate.of(2025, 2, 10)));
+        financeManager.addFinanceRecord(new FinanceRecord("2", FinanceType.EXPENSE, 200.0, "Возврат билетов", LocalDate.of(2025, 2, 11)));
+        financeManager.removeFinanceRecord("1");
+
+        assertTrue(new FinanceRepository().loadRecords(true).isEmpty(), "Снимок не должен перезаписываться при каждом изменении.");
+        assertEquals(3, Files.readAllLines(Paths.get("test_finance_records.journal"), StandardCharsets.UTF_8).size());
+
+        // Act: новый менеджер восстанавливает состояние из снимка и журнала
+        FinanceManager restarted = new FinanceManager(true);
+
+        // Assert
+        assertEquals(1, restarted.getAllFinanceRecords().size());
+        assertEquals("2", restarted.getAllFinanceRecords().get(0).getId());
+        assertFalse(Files.exists(Paths.get("test_finance_records.journal")), "Журнал должен быть свёрнут в снимок.");
+    }
+
+    @Test
+    void testJournalWriteBehindGroupFlush() throws IOException {
+        // В режиме отложенной записи строки журнала копятся в памяти и пишутся одной пачкой
+        financeManager.setJournalWriteBehind(true);
+        financeManager.addFinanceRecord(new FinanceRecord("1", FinanceType.INCOME, 100.0, "Продажа билетов", LocalDate.now()));
+        financeManager.addFinanceRecord(new FinanceRecord("2", FinanceType.INCOME, 200.0, "Продажа билетов", LocalDate.now()));
+        assertFalse(Files.exists(Paths.get("test_finance_records.journal")), "До flush журнал не должен записываться.");
+
+        assertEquals(2, financeManager.flushJournal(true));
+        financeManager.setJournalWriteBehind(false);
+
+        assertEquals(2, Files.readAllLines(Paths.get("test_finance_records.journal"), StandardCharsets.UTF_8).size());
+        assertEquals(2, new FinanceManager(true).getAllFinanceRecords().size());
+    }
+
     @Test
     void testGetTicketSales() {
         // Arrange
@@ -203,6 +435,24 @@ public class FinanceManagerTest {
         assertEquals(1500.0, ticketSales, 0.01, "Сумма продаж билетов должна быть правильной.");
     }
 
+    @Test
+    void testRunningTotalsAfterAddAndRemove() {
+        // Итоги обновляются инкрементально и не накапливают ошибку округления
+        for (int i = 0; i < 1000; i++) {
+            financeManager.addFinanceRecord(new FinanceRecord("s" + i, FinanceType.INCOME, 0.1, "Продажа билетов", LocalDate.now()));
+        }
+        financeManager.addFinanceRecord(new FinanceRecord("r1", FinanceType.EXPENSE, 20.0, "Возврат билетов", LocalDate.now()));
+        financeManager.addFinanceRecord(new FinanceRecord("c1", FinanceType.CAST, 50.0, "Гонорар", LocalDate.now()));
+        for (int i = 0; i < 500; i++) {
+            financeManager.removeFinanceRecord("s" + i);
+        }
+
+        assertEquals(50.0, financeManager.calculateTotalIncome());
+        assertEquals(50.0, financeManager.getTicketSales());
+        assertEquals(70.0, financeManager.calculateTotalExpenses());
+        assertEquals(20.0, financeManager.getTicketRefunds());
+    }
+
     @Test
     void testGetTicketRefunds() {
         // Arrange
@@ -235,13 +485,72 @@ public class FinanceManagerTest {
         FinanceRecord income = new FinanceRecord("1", FinanceType.INCOME, 1000.0, "Salary", LocalDate.now());
         financeManager.addFinanceRecord(income);
 
-        String expectedFilePath = "test_finance_records.csv";
+        Path snapshotPath = Paths.get("test_finance_records.bin");
+        byte[] snapshotBefore = Files.readAllBytes(snapshotPath);
 
         financeManager.generateFinanceReport(false);
 
-        File file = new File(expectedFilePath);
-        assertTrue(file.exists(), "Файл отчета должен существовать.");
-        assertTrue(file.length() > 0, "Файл отчета не должен быть пустым.");
+        // Отчёт строится по данным в памяти и не перезаписывает снимок
+        assertArrayEquals(snapshotBefore, Files.readAllBytes(snapshotPath), "Отчет не должен перезаписывать файл записей.");
+        FinanceReport report = financeManager.createReport();
+        assertEquals(1, report.getRecords().size());
+        assertEquals(1000.0, report.getTotalIncome(), 0.01);
+    }
+
+    @Test
+    void testGenerateMultiPagePdfReport() throws IOException {
+        // Arrange: 100 строк не помещаются на одну страницу A4
+        for (int i = 1; i <= 100; i++) {
+            financeManager.addFinanceRecord(new FinanceRecord("P" + i, FinanceType.INCOME, 10.0 * i,
+                    "Продажа билетов на Ёлки \uD83C\uDF84", LocalDate.of(2025, 1, 1)));
+        }
+
+        // Act
+        financeManager.generateFinanceReport(false);
+
+        // Assert: шрифт из ресурсов, кириллица читается, на каждой странице есть заголовки и номер
+        try (PDDocument document = PDDocument.load(new File("test_finance_report.pdf"))) {
+            assertEquals(3, document.getNumberOfPages());
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Детализированный финансовый отчёт"));
+            assertTrue(text.contains("Продажа билетов на Ёлки"));
+            assertTrue(text.contains("P100"));
+            assertTrue(text.contains("Страница 3"));
+            assertTrue(text.contains("Общий доход: 50500"), text);
+        }
+    }
+
+    @Test
+    void testReportServiceCoalescesRequests() throws Exception {
+        financeManager.addFinanceRecord(new FinanceRecord("R1", FinanceType.INCOME, 100.0, "Продажа билетов", LocalDate.of(2025, 1, 1)));
+        Path target = Paths.get("test_finance_report.pdf");
+        Path otherTarget = Paths.get("test_finance_report_other.pdf");
+        CompletableFuture<Path> first;
+        CompletableFuture<Path> a;
+
+        try (ReportService reportService = new ReportService(financeManager, 4)) {
+            // Пока держим монитор FinanceManager, поток отчётов не может взять снимок
+            synchronized (financeManager) {
+                first = reportService.requestReport(otherTarget, false);
+                a = reportService.requestReport(target, false);
+                CompletableFuture<Path> b = reportService.requestReport(target, true);
+                assertSame(a, b, "Повторный запрос должен присоединиться к ожидающему.");
+                financeManager.addFinanceRecord(new FinanceRecord("R2", FinanceType.INCOME, 50.0, "Продажа билетов", LocalDate.of(2025, 1, 2)));
+            }
+
+            assertEquals(otherTarget, first.get(30, TimeUnit.SECONDS));
+            assertEquals(target, a.get(30, TimeUnit.SECONDS));
+            assertEquals(3, reportService.getRequestedCount());
+            assertEquals(1, reportService.getCoalescedCount());
+            assertEquals(2, reportService.getRenderedCount());
+        } finally {
+            Files.deleteIfExists(otherTarget);
+        }
+
+        // Отчёт построен по последнему снимку, включая запись R2
+        try (PDDocument document = PDDocument.load(target.toFile())) {
+            assertTrue(new PDFTextStripper().getText(document).contains("R2"));
+        }
     }
 
     @Test
@@ -6,8 +6,13 @@ import movie_platform.model.Movie;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -116,6 +121,182 @@ class MovieManagerTest {
         assertTrue(movies.isEmpty(), "Фильм не должен обновляться, если его нет");
     }
 
+    @Test
+    void shouldFindMovieByIdAndKeepInsertionOrder() {
+        // Тест: поиск по индексу ID и сохранение порядка добавления после обновления и удаления
+        movieManager.addMovie(new Movie("1", "Alien", MovieStatus.COMPLETED, MovieGenre.SCI_FI));
+        movieManager.addMovie(new Movie("2", "Heat", MovieStatus.PLANNED, MovieGenre.CRIME));
+        movieManager.addMovie(new Movie("3", "Up", MovieStatus.IN_PROGRESS, MovieGenre.ANIMATION));
+
+        movieManager.updateMovie(new Movie("1", "Aliens", MovieStatus.COMPLETED, MovieGenre.SCI_FI));
+        movieManager.removeMovie("2");
+
+        assertEquals("Aliens", movieManager.findMovieById("1").getTitle());
+        assertNull(movieManager.findMovieById("2"), "Удалённый фильм не должен находиться");
+        List<Movie> movies = movieManager.getMovies();
+        assertEquals(2, movies.size());
+        assertEquals("1", movies.get(0).getId());
+        assertEquals("3", movies.get(1).getId());
+    }
+
+    @Test
+    void shouldFindMoviesByGenreAndStatusIndexes() {
+        // Тест: вторичные индексы обновляются при добавлении, смене статуса, обновлении и удалении
+        Movie drama = new Movie("1", "Joker", MovieStatus.PLANNED, MovieGenre.DRAMA);
+        movieManager.addMovie(drama);
+        movieManager.addMovie(new Movie("2", "Heat", MovieStatus.IN_PROGRESS, MovieGenre.CRIME));
+        movieManager.addMovie(new Movie("3", "Whiplash", MovieStatus.IN_PROGRESS, MovieGenre.DRAMA));
+
+        drama.updateStatus(MovieStatus.IN_PROGRESS);
+        assertEquals(2, movieManager.findMovies(MovieGenre.DRAMA, MovieStatus.IN_PROGRESS).size());
+        assertTrue(movieManager.findMoviesByStatus(MovieStatus.PLANNED).isEmpty());
+
+        movieManager.updateMovie(new Movie("3", "Whiplash", MovieStatus.COMPLETED, MovieGenre.DRAMA));
+        movieManager.removeMovie("2");
+
+        List<Movie> result = movieManager.findMovies(MovieGenre.DRAMA, MovieStatus.IN_PROGRESS);
+        assertEquals(1, result.size());
+        assertEquals("Joker", result.get(0).getTitle());
+        assertEquals(2, movieManager.findMovies(List.of(MovieGenre.DRAMA, MovieGenre.CRIME),
+                List.of(MovieStatus.IN_PROGRESS, MovieStatus.COMPLETED)).size());
+        assertTrue(movieManager.findMoviesByGenre(MovieGenre.CRIME).isEmpty());
+    }
+
+    @Test
+    void shouldNotAddMovieWithDuplicateId() {
+        // Тест: фильм с уже существующим ID не добавляется повторно
+        movieManager.addMovie(new Movie("1", "Alien", MovieStatus.COMPLETED, MovieGenre.SCI_FI));
+        movieManager.addMovie(new Movie("1", "Other", MovieStatus.PLANNED, MovieGenre.DRAMA));
+
+        assertEquals(1, movieManager.getMovies().size());
+        assertEquals("Alien", movieManager.findMovieById("1").getTitle());
+    }
+
+    @Test
+    void shouldSearchMoviesByTitleActorsAndProducers() {
+        // Тест: полнотекстовый поиск без учёта регистра и диакритики, совпадение в названии выше
+        Movie amelie = new Movie("1", "Le Fabuleux Destin d'Amélie Poulain", MovieGenre.COMEDY, null, null,
+                MovieStatus.COMPLETED, 1, new ArrayList<>(List.of("Claudie Ossard")), new ArrayList<>(List.of("Audrey Tautou")));
+        Movie trees = new Movie("2", "Ёлки", MovieGenre.COMEDY, null, null,
+                MovieStatus.COMPLETED, 1, new ArrayList<>(List.of("Тимур Бекмамбетов")), new ArrayList<>(List.of("Иван Ургант")));
+        Movie audrey = new Movie("3", "Audrey", MovieGenre.DRAMA, null, null,
+                MovieStatus.PLANNED, 1, new ArrayList<>(), new ArrayList<>());
+        movieManager.addMovie(amelie);
+        movieManager.addMovie(trees);
+        movieManager.addMovie(audrey);
+
+        assertEquals(List.of(amelie), movieManager.searchMovies("AMELIE poulain", 10));
+        assertEquals(List.of(trees), movieManager.searchMovies("елки", 10));
+        assertEquals(List.of(trees), movieManager.searchMovies("бекмамбетов", 10));
+        // Название весит больше, чем имя актёра
+        assertEquals(List.of(audrey, amelie), movieManager.searchMovies("audrey", 10));
+        // Последнее слово ищется по началу, если после него нет пробела
+        assertEquals(List.of(amelie), movieManager.searchMovies("tautou pou", 10));
+        assertTrue(movieManager.searchMovies("tautou pou ", 10).isEmpty());
+        // Все слова запроса обязательны
+        assertTrue(movieManager.searchMovies("audrey ургант", 10).isEmpty());
+        // Й — отдельная буква, а не и с диакритикой
+        movieManager.addMovie(new Movie("4", "Мой фильм", MovieStatus.PLANNED, MovieGenre.DRAMA));
+        assertTrue(movieManager.searchMovies("мои ", 10).isEmpty());
+        assertEquals(1, movieManager.searchMovies("мой ", 10).size());
+        assertEquals(1, movieManager.searchMovies("audrey", 1).size());
+        // При равной оценке выше фильм, добавленный раньше, даже если он найден по другому слову
+        Movie stark = new Movie("5", "Stark", MovieStatus.PLANNED, MovieGenre.DRAMA);
+        Movie star = new Movie("6", "Star", MovieStatus.PLANNED, MovieGenre.DRAMA);
+        movieManager.addMovie(stark);
+        movieManager.addMovie(star);
+        assertEquals(List.of(stark), movieManager.searchMovies("sta", 1));
+    }
+
+    @Test
+    void shouldKeepSearchIndexInSyncWithMovieChanges() {
+        // Тест: индекс следует за addActor/addProducer/setTitle, обновлением и удалением фильма
+        Movie movie = new Movie("1", "Heat", MovieStatus.PLANNED, MovieGenre.CRIME);
+        movieManager.addMovie(movie);
+        movie.addActor("Al Pacino");
+        movie.addProducer("Michael Mann");
+        assertEquals(List.of(movie), movieManager.searchMovies("pacino", 10));
+        assertEquals(List.of(movie), movieManager.searchMovies("mann heat", 10));
+
+        movie.setTitle("Collateral");
+        assertTrue(movieManager.searchMovies("heat", 10).isEmpty());
+        assertEquals(List.of(movie), movieManager.searchMovies("collateral", 10));
+        movie.removeActor("Al Pacino");
+        assertTrue(movieManager.searchMovies("pacino", 10).isEmpty());
+
+        Movie replacement = new Movie("1", "Thief", MovieStatus.PLANNED, MovieGenre.CRIME);
+        movieManager.updateMovie(replacement);
+        assertTrue(movieManager.searchMovies("collateral", 10).isEmpty());
+        assertEquals(List.of(replacement), movieManager.searchMovies("thief", 10));
+        movie.addActor("Tom Cruise"); // Прежний объект фильма больше не в менеджере
+        assertTrue(movieManager.searchMovies("cruise", 10).isEmpty());
+
+        movieManager.removeMovie("1");
+        assertTrue(movieManager.searchMovies("thief", 10).isEmpty());
+        movieManager.setMovies(List.of(new Movie("2", "Thief", MovieStatus.PLANNED, MovieGenre.CRIME)));
+        assertEquals("2", movieManager.searchMovies("thief", 10).get(0).getId());
+    }
+
+    @Test
+    void shouldFindSameMoviesAsFullScan() {
+        // Тест: на случайном каталоге индекс находит те же фильмы, что и перебор всех фильмов
+        String[] words = {"война", "мир", "звёздные", "войны", "матрица", "мама", "мост", "star", "wars", "stargate"};
+        Random random = new Random(1);
+        List<Movie> catalog = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            List<String> actors = new ArrayList<>(List.of(words[random.nextInt(words.length)] + " " + i));
+            Movie movie = new Movie("M" + i, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    MovieGenre.DRAMA, null, null, MovieStatus.PLANNED, 1, new ArrayList<>(), actors);
+            catalog.add(movie);
+            movieManager.addMovie(movie);
+        }
+        for (int i = 0; i < 1_000; i += 3) {
+            movieManager.removeMovie("M" + i);
+        }
+        for (String query : List.of("война", "мир ма", "войн", "ст", "мост 1", "star wars", "зв")) {
+            List<String> tokens = List.of(query.toLowerCase().replace('ё', 'е').split(" "));
+            Set<Movie> expected = new HashSet<>();
+            for (Movie movie : movieManager.getMovies()) {
+                List<String> movieWords = new ArrayList<>();
+                for (String text : List.of(movie.getTitle(), movie.getActors().get(0))) {
+                    movieWords.addAll(List.of(text.toLowerCase().replace('ё', 'е').split(" ")));
+                }
+                boolean matches = true;
+                for (int t = 0; t < tokens.size(); t++) {
+                    String token = tokens.get(t);
+                    boolean last = t == tokens.size() - 1;
+                    matches &= movieWords.stream().anyMatch(word -> last ? word.startsWith(token) : word.equals(token));
+                }
+                if (matches) {
+                    expected.add(movie);
+                }
+            }
+            List<Movie> found = movieManager.searchMovies(query, Integer.MAX_VALUE);
+            assertEquals(expected, new HashSet<>(found), "Запрос: " + query);
+            assertEquals(expected.size(), found.size(), "Фильм в результатах дважды: " + query);
+            List<Movie> top = movieManager.searchMovies(query, 10);
+            assertEquals(Math.min(10, expected.size()), top.size());
+            assertTrue(expected.containsAll(top));
+        }
+    }
+
+    @Test
+    void shouldSuggestMostFrequentWords() {
+        // Тест: подсказки для последнего слова — слова с этим началом, самые частые первыми
+        movieManager.addMovie(new Movie("1", "Star Wars", MovieStatus.PLANNED, MovieGenre.SCI_FI));
+        movieManager.addMovie(new Movie("2", "Star Trek", MovieStatus.PLANNED, MovieGenre.SCI_FI));
+        movieManager.addMovie(new Movie("3", "Stargate", MovieStatus.PLANNED, MovieGenre.SCI_FI));
+
+        assertEquals(List.of("Star", "Stargate"), movieManager.suggestWords("st", 5));
+        assertEquals(List.of("Star"), movieManager.suggestWords("the st", 1));
+        assertEquals(List.of("Trek"), movieManager.suggestWords("TR", 5));
+        assertTrue(movieManager.suggestWords("star ", 5).isEmpty());
+
+        movieManager.removeMovie("1");
+        movieManager.removeMovie("2");
+        assertEquals(List.of("Stargate"), movieManager.suggestWords("st", 5)); // Кэш подсказок обновлён
+    }
+
     @Test
     void shouldLoadMoviesFromFile() {
         // Тест: загрузка фильмов из файла
@@ -154,6 +335,30 @@ class MovieManagerTest {
         assertEquals(MovieGenre.ACTION, movies.get(0).getGenre()); // Проверка жанра
     }
 
+    @Test
+    void shouldLoadLargeFileInChunksKeepingFileOrder() {
+        // Файл больше 1 МБ делится на несколько кусков, которые разбираются параллельно
+        String padding = "x".repeat(100);
+        StringBuilder content = new StringBuilder();
+        int lines = 20_000;
+        for (int i = 1; i <= lines; i++) {
+            if (i % 1000 == 0) {
+                content.append("BROKEN LINE ").append(i).append("\r\n"); // Некорректная строка пропускается
+            } else {
+                content.append(i).append(", Movie ").append(padding).append(", PLANNED, DRAMA\r\n");
+            }
+        }
+        writeToFile(content.toString());
+
+        movieManager.loadMovie();
+        List<Movie> movies = movieManager.getMovies();
+
+        assertEquals(lines - lines / 1000, movies.size());
+        assertEquals("1", movies.get(0).getId());
+        assertEquals("1001", movies.get(999).getId(), "Фильмы должны идти в порядке файла.");
+        assertEquals(String.valueOf(lines - 1), movies.get(movies.size() - 1).getId());
+    }
+
     @Test
     void shouldHandleEmptyFileGracefully() {
         // Тест: загрузка из пустого файла
@@ -185,7 +390,7 @@ class MovieManagerTest {
     private void writeToFile(String content) {
         // Записываем текст в тестовый файл
         try {
-            Files.write(Paths.get(FILE_NAME), content.getBytes());
+            Files.write(Paths.get(FILE_NAME), content.getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             fail("Ошибка при записи в файл: " + e.getMessage());
         }
@@ -194,7 +399,7 @@ class MovieManagerTest {
     private List<String> readFileLines() {
         // Читаем строки из тестового файла
         try {
-            return Files.readAllLines(Paths.get(FILE_NAME));
+            return Files.readAllLines(Paths.get(FILE_NAME), StandardCharsets.UTF_8);
         } catch (IOException e) {
             fail("Ошибка при чтении файла: " + e.getMessage());
             return List.of();
@@ -1,19 +1,56 @@
 package movie_platform.manager;
 
+import movie_platform.enums.FinanceAggregation;
+import movie_platform.enums.FinanceType;
+import movie_platform.enums.TicketOrderStatus;
+import movie_platform.model.FinanceRecord;
 import movie_platform.model.Premiere;
+import movie_platform.model.TicketOrder;
+import movie_platform.model.TicketOrderResult;
+import movie_platform.repository.PremiereRepository;
+import movie_platform.repository.SaleTransactionLog;
+import movie_platform.service.BoxOfficeServer;
+import movie_platform.service.PersistenceService;
+import movie_platform.service.PremiereScheduler;
+import movie_platform.service.ReportService;
+import movie_platform.utils.TimingWheel;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -22,10 +59,292 @@ public class PremiereManagerTest {
     private PremiereManager premiereManager;
     private Premiere premiere;
 
+    @Test
+    void testTransactionalSalesAreAtomicUnderConcurrency() throws Exception {
+        premiereManager.addPremiere(premiere); // 150 билетов по 10
+        FinanceManager financeManager = new FinanceManager(true);
+        financeManager.clearData(false);
+        PersistenceService persistenceService = new PersistenceService(financeManager, premiereManager, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            AtomicInteger sold = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 25; j++) {
+                        if (persistenceService.sellTickets(premiere, 1) != null) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(150, sold.get());
+            assertEquals(150, premiere.getTicketSold());
+            assertEquals(150, financeManager.getAllFinanceRecords().size());
+            assertEquals(1500.0, financeManager.calculateTotalIncome(), 0.001);
+            assertThrows(IllegalArgumentException.class, () -> persistenceService.refundTickets(premiere, 200));
+            assertEquals(150, premiere.getTicketSold()); // Неудачный возврат ничего не изменил
+        } finally {
+            executor.shutdownNow();
+            persistenceService.close();
+        }
+
+        // После перезапуска билеты и доход совпадают
+        PremiereManager restarted = new PremiereManager(true);
+        FinanceManager restartedFinance = new FinanceManager(true);
+        try {
+            assertEquals(150, restarted.getPremiereMap().get("1").getTicketSold());
+            assertEquals(150, restartedFinance.getAllFinanceRecords().size());
+        } finally {
+            deleteFinanceTestFiles();
+        }
+    }
+
+    @Test
+    void testTimingWheelFiresTimersInDeadlineOrder() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1_000);
+        Random random = new Random(42);
+        List<TimingWheel.Timer<Long>> timers = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Сроки от ближайших тиков до десятков лет вперёд, чтобы задействовать каскад с верхних уровней
+            long deadline = 1_000 + (i % 2 == 0 ? random.nextInt(5_000) : (long) (random.nextDouble() * 1_000_000_000L));
+            timers.add(wheel.schedule(deadline, deadline));
+        }
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < timers.size(); i++) {
+            if (i % 10 == 0) {
+                assertTrue(wheel.cancel(timers.get(i)));
+                assertFalse(wheel.cancel(timers.get(i)));
+            } else {
+                expected.add(timers.get(i).getDeadline());
+            }
+        }
+        expected.sort(Comparator.naturalOrder());
+        assertEquals(expected.size(), wheel.size());
+
+        List<Long> fired = new ArrayList<>();
+        while (wheel.size() > 0) {
+            long next = wheel.nextEventTick();
+            assertTrue(next > wheel.getCurrentTick());
+            // Колесо не проспит ни одного срока
+            assertTrue(next <= expected.get(fired.size()));
+            wheel.advanceTo(next, deadline -> {
+                assertEquals(wheel.getCurrentTick(), deadline);
+                fired.add(deadline);
+            });
+        }
+        assertEquals(expected, fired);
+        assertEquals(Long.MAX_VALUE, wheel.nextEventTick());
+
+        // Срок в прошлом срабатывает на следующем тике
+        List<Long> late = new ArrayList<>();
+        wheel.schedule(0, 0L);
+        wheel.advanceTo(wheel.getCurrentTick() + 1, late::add);
+        assertEquals(List.of(0L), late);
+    }
+
+    @Test
+    void testSchedulerClosesSalesWritesReportAndArchivesFiles() throws Exception {
+        Instant start = premiere.getDate().toInstant();
+        MutableClock clock = new MutableClock(start.minus(Duration.ofHours(2)));
+        premiereManager.addPremiere(premiere);
+        premiereManager.addGuest("1", "Анна", true);
+        premiereManager.saveGuestsToFile("1");
+        Premiere cancelled = new Premiere("2", "Avatar", premiere.getDate(), "Зал 2", 100, 500);
+        premiereManager.addPremiere(cancelled);
+        Path report = PremiereRepository.reportPath("1", true);
+        Path archive = PremiereRepository.archivePath(true);
+
+        try (PremiereScheduler scheduler = new PremiereScheduler(premiereManager, clock, Duration.ofHours(1),
+                Duration.ofDays(1))) {
+            scheduler.start();
+            waitFor(() -> scheduler.getScheduledEvents() == 6);
+            scheduler.cancel("2");
+            assertFalse(premiere.isSalesClosed());
+
+            clock.set(start.minus(Duration.ofMinutes(30)));
+            scheduler.wakeUp();
+            waitFor(premiere::isSalesClosed);
+            assertFalse(cancelled.isSalesClosed());
+            assertFalse(premiere.sellTickets(1));
+            assertEquals(TicketOrderStatus.SALES_CLOSED,
+                    premiereManager.reserveTickets(List.of(new TicketOrder("1", 1))).get(0).status());
+
+            clock.set(start.plusSeconds(1));
+            scheduler.wakeUp();
+            waitFor(() -> Files.exists(report));
+            assertTrue(Files.readString(report, StandardCharsets.UTF_8).contains("Отчет о премьере: Titanic"));
+            assertTrue(Files.exists(PremiereRepository.guestPath("1", true)));
+
+            clock.set(start.plus(Duration.ofDays(2)));
+            scheduler.wakeUp();
+            waitFor(() -> Files.exists(archive.resolve(PremiereRepository.guestPath("1", true).getFileName())));
+            assertFalse(Files.exists(PremiereRepository.guestPath("1", true)));
+            waitFor(() -> scheduler.getScheduledEvents() == 0);
+            assertEquals(3, scheduler.getFiredEvents());
+        } finally {
+            Files.deleteIfExists(report);
+            Files.deleteIfExists(PremiereRepository.guestPath("1", true));
+            if (Files.exists(archive)) {
+                try (var files = Files.list(archive)) {
+                    for (Path file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(archive);
+            }
+        }
+    }
+
+    // Часы, которые тест переводит вручную
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Условие не выполнено за 10 секунд");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testBatchSalesValidateOrdersAndAggregateFinanceRecords() {
+        premiereManager.addPremiere(premiere); // 150 билетов по 10
+        premiereManager.addPremiere(new Premiere("2", "Avatar", premiere.getDate(), "Зал 2", 100_000, 1000));
+        FinanceManager financeManager = new FinanceManager(true);
+        financeManager.clearData(false);
+        PersistenceService persistenceService = new PersistenceService(financeManager, premiereManager, 50);
+        java.io.PrintStream originalOut = System.out;
+        java.io.ByteArrayOutputStream outContent = new java.io.ByteArrayOutputStream();
+        try {
+            System.setOut(new java.io.PrintStream(outContent));
+            List<TicketOrderResult> results = persistenceService.sellTicketsBatch(List.of(
+                    new TicketOrder("1", 100),
+                    new TicketOrder("2", 10),
+                    new TicketOrder("1", 40),
+                    new TicketOrder("1", 20),   // Осталось только 10
+                    new TicketOrder("999", 1),
+                    new TicketOrder("2", 0),
+                    new TicketOrder("2", 5)), FinanceAggregation.PER_PREMIERE);
+            System.setOut(originalOut);
+            assertFalse(outContent.toString().contains("Недостаточно билетов")); // Отклонённые заказы не выводят сообщений
+
+            assertEquals(List.of(TicketOrderStatus.SOLD, TicketOrderStatus.SOLD, TicketOrderStatus.SOLD,
+                    TicketOrderStatus.NOT_ENOUGH_TICKETS, TicketOrderStatus.PREMIERE_NOT_FOUND,
+                    TicketOrderStatus.INVALID_COUNT, TicketOrderStatus.SOLD),
+                    results.stream().map(TicketOrderResult::status).toList());
+            // Одна запись на премьеру, общая для всех её заказов
+            assertSame(results.get(0).financeRecord(), results.get(2).financeRecord());
+            assertEquals(1400.0, results.get(0).financeRecord().getAmount(), 0.001);
+            assertEquals(150.0, results.get(6).financeRecord().getAmount(), 0.001);
+            assertNull(results.get(3).financeRecord());
+            assertEquals(2, financeManager.getAllFinanceRecords().size());
+            assertEquals(140, premiere.getTicketSold());
+
+            // Запись на каждый заказ; большой пакет записывается одной пачкой журнала
+            List<TicketOrder> orders = new ArrayList<>();
+            for (int i = 0; i < 50_000; i++) {
+                orders.add(new TicketOrder("2", 1));
+            }
+            List<TicketOrderResult> large = persistenceService.sellTicketsBatch(orders, FinanceAggregation.PER_ORDER);
+            assertTrue(large.stream().allMatch(TicketOrderResult::isSold));
+            assertEquals(50_002, financeManager.getAllFinanceRecords().size());
+            assertEquals(50_015, premiereManager.getPremiereMap().get("2").getTicketSold());
+        } finally {
+            System.setOut(originalOut);
+            persistenceService.close();
+        }
+
+        PremiereManager restarted = new PremiereManager(true);
+        try {
+            assertEquals(140, restarted.getPremiereMap().get("1").getTicketSold());
+            assertEquals(50_015, restarted.getPremiereMap().get("2").getTicketSold());
+            assertEquals(50_002, new FinanceManager(true).getAllFinanceRecords().size());
+        } finally {
+            deleteFinanceTestFiles();
+        }
+    }
+
+    @Test
+    void testSaleLogRecoveryAppliesEachTransactionOnce() throws IOException {
+        premiereManager.addPremiere(premiere);
+        FinanceManager financeManager = new FinanceManager(true);
+        financeManager.clearData(false);
+        // Транзакция 1 уже есть в сохранённых данных, транзакция 2 — только в журнале (сбой до сохранения)
+        FinanceRecord first = new FinanceRecord("T1", FinanceType.INCOME, 50, "Продажа билетов на премьеру: Titanic",
+                LocalDate.now());
+        FinanceRecord second = new FinanceRecord("T2", FinanceType.EXPENSE, 20, "Возврат билетов на премьеру: Titanic",
+                LocalDate.now());
+        assertTrue(premiere.applyLoggedTickets(1, 5));
+        premiereManager.savePremieresToFile();
+        financeManager.addFinanceRecord(first);
+        financeManager.saveFinanceRecordsToFile();
+        try (SaleTransactionLog saleLog = new SaleTransactionLog(true)) {
+            saleLog.recover(1);
+            saleLog.append(List.of(new SaleTransactionLog.Entry(1, "1", 5, first),
+                    new SaleTransactionLog.Entry(2, "1", -2, second)));
+        }
+        // Оборванная запись в конце журнала отбрасывается
+        Files.write(SaleTransactionLog.path(true), new byte[]{42, 0, 0, 0, 1}, java.nio.file.StandardOpenOption.APPEND);
+
+        PremiereManager restarted = new PremiereManager(true);
+        FinanceManager restartedFinance = new FinanceManager(true);
+        PersistenceService persistenceService = new PersistenceService(restartedFinance, restarted, 50);
+        try {
+            Premiere recovered = restarted.getPremiereMap().get("1");
+            assertEquals(3, recovered.getTicketSold());
+            assertEquals(2, restartedFinance.getAllFinanceRecords().size());
+            assertEquals(50.0, restartedFinance.calculateTotalIncome(), 0.001);
+            assertEquals(20.0, restartedFinance.calculateTotalExpenses(), 0.001);
+            assertEquals("T3", persistenceService.sellTickets(recovered, 1).getId()); // Нумерация продолжается
+        } finally {
+            persistenceService.close();
+        }
+
+        // Журнал очищен контрольной точкой: повторный запуск ничего не применяет второй раз
+        PremiereManager again = new PremiereManager(true);
+        FinanceManager againFinance = new FinanceManager(true);
+        new PersistenceService(againFinance, again, 50).close();
+        try {
+            assertEquals(4, again.getPremiereMap().get("1").getTicketSold());
+            assertEquals(3, againFinance.getAllFinanceRecords().size());
+        } finally {
+            deleteFinanceTestFiles();
+        }
+    }
+
     @BeforeEach
     void setUp() {
         premiereManager = new PremiereManager(true);
-        premiereManager.getPremiereMap().clear();
+        premiereManager.clearPremieres();
         // Используем правильный формат для даты с учетом часового пояса
         ZonedDateTime date = ZonedDateTime.of(2025, 2, 2, 10, 0, 0, 0, java.time.ZoneId.of("UTC+03:00"));
         premiere = new Premiere("1", "Titanic", date, "IMAX", 150, 2000000);
@@ -35,6 +354,14 @@ public class PremiereManagerTest {
     void tearDown() {
         String testFileName = "test_premieres.txt";
         deleteTestFile(testFileName);  //  Удаляем тестовый файл после тестов
+        deleteTestFile("test_premieres.dat");
+        deleteTestFile("test_sales.txlog");
+    }
+
+    private void deleteFinanceTestFiles() {
+        deleteTestFile("test_finance_records.csv");
+        deleteTestFile("test_finance_records.bin");
+        deleteTestFile("test_finance_records.journal");
     }
 
     //  Добавляем метод удаления файла
@@ -57,6 +384,8 @@ public class PremiereManagerTest {
         // Assert: Проверка, что премьера была добавлена
         assertEquals(1, premiereManager.getPremiereMap().size(), "Количество премьер должно быть 1.");
         assertTrue(premiereManager.getPremiereMap().containsKey("1"), "Премьера с ID 1 должна быть добавлена.");
+        assertThrows(UnsupportedOperationException.class, () -> premiereManager.getPremiereMap().remove("1"),
+                "Карта премьер отдаётся только для чтения.");
     }
 
     @Test
@@ -168,4 +497,183 @@ public class PremiereManagerTest {
 
         System.setOut(System.out); // Восстанавливаем стандартный вывод
     }
+
+    @Test
+    void testSaveWritesOnlyDirtyPremieres() throws IOException {
+        // Arrange: 100 премьер, каждая сохраняется при добавлении
+        ZonedDateTime date = ZonedDateTime.of(2025, 2, 2, 10, 0, 0, 0, java.time.ZoneId.of("UTC+03:00"));
+        for (int i = 1; i <= 100; i++) {
+            premiereManager.addPremiere(new Premiere(String.valueOf(i), "Фильм " + i, date, "IMAX", 150, 1000));
+        }
+        assertEquals(0, premiereManager.savePremieresToFile(), "Без изменений ничего не записывается.");
+        long sizeBefore = Files.size(Paths.get("test_premieres.dat"));
+
+        // Act: продажа билетов на одну премьеру — одна запись на месте
+        assertTrue(premiereManager.findPremiereById("42").sellTickets(5));
+        assertEquals(1, premiereManager.savePremieresToFile());
+        assertEquals(sizeBefore, Files.size(Paths.get("test_premieres.dat")), "Запись должна обновиться на месте.");
+
+        // Длинное название не помещается в свой блок — премьера переносится, старый блок освобождается
+        premiereManager.findPremiereById("7").setMovieTitle("Очень длинное название ".repeat(20));
+        premiereManager.removePremiereById("8");
+        premiereManager.addPremiere(new Premiere("101", "Новая", date, "Cinema City", 50, 500));
+        premiereManager.addPremiere(new Premiere("102", "Без места", date, null, 50, 500));
+
+        // Assert: после перезапуска данные совпадают, проданные билеты не теряются
+        PremiereManager reloaded = new PremiereManager(true);
+        assertEquals(101, reloaded.getPremiereCount());
+        assertEquals(5, reloaded.getPremiereMap().get("42").getTicketSold());
+        assertEquals(145, reloaded.getPremiereMap().get("42").getTicketCount());
+        assertEquals("Очень длинное название ".repeat(20), reloaded.getPremiereMap().get("7").getMovieTitle());
+        assertNull(reloaded.getPremiereMap().get("8"));
+        assertEquals("Cinema City", reloaded.getPremiereMap().get("101").getLocation());
+        assertEquals("", reloaded.getPremiereMap().get("102").getStoredLocation(), "Подпись для пустого места не сохраняется.");
+        assertTrue(reloaded.getPremiereMap().values().stream().noneMatch(Premiere::isDirty));
+    }
+
+    @Test
+    void testSlotFileKeepsNewestCopyAfterInterruptedRelocation() throws IOException {
+        ZonedDateTime date = ZonedDateTime.of(2025, 2, 2, 10, 0, 0, 0, java.time.ZoneId.of("UTC+03:00"));
+        premiereManager.addPremiere(new Premiere("1", "Длинное название ".repeat(8), date, "IMAX", 150, 1000)); // Блоки 0-1
+        premiereManager.addPremiere(new Premiere("2", "Фильм 2", date, "IMAX", 150, 1000));                    // Блок 2
+        premiereManager.addPremiere(new Premiere("3", "Фильм 3", date, "IMAX", 150, 1000));                    // Блок 3
+
+        // Премьера 3 переносится в освободившиеся блоки 0-1, перед своей старой копией
+        premiereManager.removePremiereById("1");
+        premiereManager.findPremiereById("3").setMovieTitle("Новое название ".repeat(8));
+        assertEquals(1, premiereManager.savePremieresToFile());
+
+        // Сбой до освобождения старой копии: её блок снова помечен занятым
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(
+                Paths.get("test_premieres.dat"), java.nio.file.StandardOpenOption.WRITE)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{1}), 16 + 3 * 256);
+        }
+
+        PremiereManager reloaded = new PremiereManager(true);
+        assertEquals(2, reloaded.getPremiereCount());
+        assertEquals("Новое название ".repeat(8), reloaded.getPremiereMap().get("3").getMovieTitle());
+    }
+
+    @Test
+    void testConcurrentBoxOfficesOnSharedPremieres() throws Exception {
+        // Arrange: 4 премьеры по 1000 билетов, 8 касс продают, добавляют гостей и сохраняют одновременно
+        ZonedDateTime date = ZonedDateTime.of(2025, 2, 2, 10, 0, 0, 0, java.time.ZoneId.of("UTC+03:00"));
+        for (int i = 1; i <= 4; i++) {
+            premiereManager.addPremiere(new Premiere(String.valueOf(i), "Фильм " + i, date, "IMAX", 1000, 1000));
+        }
+        int threads = 8;
+        int operations = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int box = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < operations; i++) {
+                    String id = String.valueOf(1 + (i + box) % 4);
+                    if (premiereManager.findPremiereById(id).sellTickets(1)) {
+                        sold.incrementAndGet();
+                    }
+                    premiereManager.addGuest(id, "Гость " + box + "-" + i, true);
+                    if (i % 50 == 0) {
+                        premiereManager.savePremieresToFile();
+                        premiereManager.getGuestListSnapshot(id);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert: ни одна продажа и ни один гость не потерялись, файл совпадает с памятью
+        int totalSold = premiereManager.getPremiereMap().values().stream().mapToInt(Premiere::getTicketSold).sum();
+        int totalGuests = premiereManager.getPremiereMap().values().stream().mapToInt(p -> p.getGuestList().size()).sum();
+        assertEquals(threads * operations, sold.get());
+        assertEquals(sold.get(), totalSold);
+        assertEquals(threads * operations, totalGuests);
+
+        premiereManager.savePremieresToFile();
+        PremiereManager reloaded = new PremiereManager(true);
+        for (Premiere premiere : premiereManager.getPremiereMap().values()) {
+            assertEquals(premiere.getTicketSold(), reloaded.getPremiereMap().get(premiere.getId()).getTicketSold());
+        }
+    }
+
+    @Test
+    void testUpdatePremiereReturnsNullForMissingPremiere() {
+        premiereManager.addPremiere(premiere);
+        assertEquals("Titanic", premiereManager.updatePremiere("1", Premiere::getMovieTitle));
+        assertNull(premiereManager.updatePremiere("999", Premiere::getMovieTitle));
+        assertTrue(premiereManager.addGuest("1", "Иван Иванов", true));
+        assertEquals(List.of("Иван Иванов"), premiereManager.getGuestListSnapshot("1"));
+        assertNull(premiereManager.getGuestListSnapshot("999"));
+    }
+
+    @Test
+    void testBoxOfficeServerHandlesTicketsReviewsAndReport() throws Exception {
+        premiereManager.addPremiere(premiere); // 150 билетов по 10
+        FinanceManager financeManager = new FinanceManager(true);
+        financeManager.clearData(false);
+        PersistenceService persistenceService = new PersistenceService(financeManager, premiereManager, 50);
+        ReportService reportService = new ReportService(financeManager, 4);
+        HttpClient client = HttpClient.newHttpClient();
+        try (BoxOfficeServer server = new BoxOfficeServer(premiereManager, financeManager, persistenceService,
+                reportService, "localhost", 0, 4)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            HttpResponse<String> sold = send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/sell?count=5"))
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+            assertEquals(200, sold.statusCode());
+            assertTrue(sold.body().contains("\"ticketsLeft\":145"), sold.body());
+            assertEquals(409, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/sell?count=1000"))
+                    .POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+            assertEquals(200, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/refund?count=2"))
+                    .POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+            assertEquals(409, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/refund?count=100"))
+                    .POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+            assertEquals(400, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/sell?count=abc"))
+                    .POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+            assertEquals(404, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/999"))).statusCode());
+            assertEquals(405, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/sell"))).statusCode());
+
+            assertEquals(201, send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/reviews"))
+                    .POST(HttpRequest.BodyPublishers.ofString("Отличный \"фильм\"", StandardCharsets.UTF_8))).statusCode());
+            HttpResponse<String> reviews = send(client, HttpRequest.newBuilder(URI.create(base + "/premieres/1/reviews?page=1")));
+            assertTrue(reviews.body().contains("\"total\":1"), reviews.body());
+            assertTrue(reviews.body().contains("Отличный \\\"фильм\\\""), reviews.body());
+
+            HttpResponse<String> report = send(client, HttpRequest.newBuilder(URI.create(base + "/reports/finance")));
+            assertTrue(report.body().contains("\"income\":50.0") && report.body().contains("\"expenses\":20.0"), report.body());
+            assertEquals(3, premiereManager.getPremiereMap().get("1").getTicketSold());
+
+            HttpResponse<String> batch = send(client, HttpRequest.newBuilder(URI.create(base + "/orders?aggregation=per_order"))
+                    .POST(HttpRequest.BodyPublishers.ofString("1 2\n1, 3\n\n999 1\n")));
+            assertEquals(200, batch.statusCode());
+            assertTrue(batch.body().contains("\"orders\":3,\"sold\":2,\"tickets\":5,\"amount\":50.0"), batch.body());
+            assertTrue(batch.body().contains("\"status\":\"PREMIERE_NOT_FOUND\""), batch.body());
+            assertEquals(400, send(client, HttpRequest.newBuilder(URI.create(base + "/orders"))
+                    .POST(HttpRequest.BodyPublishers.ofString("1 два"))).statusCode());
+            assertEquals(8, premiereManager.getPremiereMap().get("1").getTicketSold());
+        } finally {
+            reportService.close();
+            persistenceService.close();
+            deleteTestFile("test_finance_records.csv");
+            deleteTestFile("test_finance_records.bin");
+            deleteTestFile("test_finance_records.journal");
+            deleteTestFile("test_finance_report.pdf");
+            deleteTestFile("1_testReviews.log");
+            deleteTestFile("1_testReviews.idx");
+        }
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
 }
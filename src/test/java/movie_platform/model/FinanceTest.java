@@ -13,9 +13,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.EnumSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FinanceTest {
 
@@ -30,6 +33,8 @@ public class FinanceTest {
     @AfterEach
     void tearDown() {
         deleteTestFile("test_finance_records.csv");
+        deleteTestFile("test_finance_records.bin");
+        deleteTestFile("test_finance_records.journal");
         deleteTestFile("test_finance_report.pdf");
     }
 
@@ -119,4 +124,42 @@ public class FinanceTest {
 
         assertEquals("ID не может быть пустым.", exception.getMessage());
     }
+
+    @Test
+    void testColumnStoreAggregatesAndCursor() {
+        // Суммы по колонкам должны совпадать с итогами FinanceManager
+        for (int i = 1; i <= 300; i++) {
+            FinanceType type = FinanceType.values()[i % FinanceType.values().length];
+            String description = i % 3 == 0 ? "Продажа билетов на премьеру " + (i % 7) : "Прочее";
+            financeManager.addFinanceRecord(new FinanceRecord("R" + i, type, i * 1.1, description, LocalDate.of(2025, 1, 1).plusDays(i)));
+        }
+        FinanceColumnStore store = financeManager.createColumnStore();
+
+        assertEquals(300, store.size());
+        assertEquals(financeManager.calculateTotalIncome(),
+                store.sumCents(EnumSet.of(FinanceType.INCOME, FinanceType.SPONSORSHIP, FinanceType.CREDIT)) / 100.0, 1e-9);
+        assertEquals(financeManager.getTicketSales(),
+                store.sumCents(EnumSet.of(FinanceType.INCOME), d -> d.contains("Продажа билетов")) / 100.0, 1e-9);
+        long[] byType = store.sumCentsByType();
+        assertEquals(store.sumCents(EnumSet.of(FinanceType.CAST)), byType[FinanceType.CAST.ordinal()]);
+
+        // Курсор проходит записи в порядке добавления
+        FinanceColumnStore.Cursor cursor = store.cursor();
+        int count = 0;
+        while (cursor.next()) {
+            count++;
+            assertEquals("R" + count, cursor.getId());
+            assertEquals(LocalDate.of(2025, 1, 1).plusDays(count), cursor.getDate());
+        }
+        assertEquals(300, count);
+
+        // Удаление сдвигает колонки и байты ID
+        assertTrue(store.remove("R10"));
+        assertFalse(store.remove("R10"));
+        assertEquals(299, store.size());
+        assertEquals(-1, store.indexOf("R10"));
+        assertEquals("R11", store.get(9).getId());
+        assertEquals(11 * 1.1, store.get(9).getAmount(), 0.005);
+        assertEquals("R300", store.get(298).getId());
+    }
 }
\ No newline at end of file
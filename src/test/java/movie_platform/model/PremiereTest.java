@@ -1,7 +1,9 @@
 package movie_platform.model;
 
 import lombok.extern.slf4j.Slf4j;
+import movie_platform.enums.TicketOrderStatus;
 import movie_platform.repository.PremiereRepository;
+import movie_platform.utils.DateUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,20 +13,32 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -47,6 +61,8 @@ public class PremiereTest {
     void tearDown() {
         // Удаляем тестовые файлы после каждого теста
         deleteTestFile(testId + "_testReviews.txt");
+        deleteTestFile(testId + "_testReviews.log");
+        deleteTestFile(testId + "_testReviews.idx");
         deleteTestFile(testId + "_testGuests.dat");
         deleteTestFile(testId + "test_premieres.txt");
     }
@@ -66,7 +82,7 @@ public class PremiereTest {
     @Test
     void testSaveAndLoadReviews() throws IOException {
         PremiereRepository repository = new PremiereRepository();
-        Path filePath = Path.of(testId + "_testReviews.txt");
+        Path filePath = PremiereRepository.reviewLogPath(testId, true);
         Files.deleteIfExists(filePath);
 
         List<String> reviews = Arrays.asList("Отличный фильм!", "Очень понравилось.");
@@ -82,6 +98,73 @@ public class PremiereTest {
         assertEquals(reviews, premiere.getReviews(), "Загруженные отзывы не совпадают с исходными!");
     }
 
+    @Test
+    void testSaveReviewsAppendsOnlyNewReviews() throws IOException {
+        PremiereRepository repository = new PremiereRepository();
+        premiere.getReviews().addAll(Arrays.asList("Первый", "Второй"));
+        repository.saveReviewsToFile(premiere, true);
+        long size = Files.size(PremiereRepository.reviewLogPath(testId, true));
+
+        // Повторное сохранение без новых отзывов ничего не дописывает
+        repository.saveReviewsToFile(premiere, true);
+        assertEquals(size, Files.size(PremiereRepository.reviewLogPath(testId, true)));
+
+        assertTrue(repository.addReview(premiere, "Третий\nс переносом строки", true));
+        assertFalse(repository.addReview(premiere, "   ", true));
+        assertEquals(3, repository.countReviews(testId, true));
+
+        premiere.setReviews(new ArrayList<>());
+        repository.loadReviewsFromFile(premiere, true);
+        assertEquals(List.of("Первый", "Второй", "Третий\nс переносом строки"), premiere.getReviews());
+    }
+
+    @Test
+    void testReviewPagesAndLatestReviews() {
+        PremiereRepository repository = new PremiereRepository();
+        for (int i = 1; i <= 25; i++) {
+            premiere.getReviews().add("Отзыв " + i);
+        }
+        repository.saveReviewsToFile(premiere, true);
+
+        assertEquals(List.of("Отзыв 11", "Отзыв 12", "Отзыв 13", "Отзыв 14", "Отзыв 15",
+                "Отзыв 16", "Отзыв 17", "Отзыв 18", "Отзыв 19", "Отзыв 20"), repository.loadReviewsPage(testId, 2, 10, true));
+        assertEquals(List.of("Отзыв 21", "Отзыв 22", "Отзыв 23", "Отзыв 24", "Отзыв 25"), repository.loadReviewsPage(testId, 3, 10, true));
+        assertTrue(repository.loadReviewsPage(testId, 4, 10, true).isEmpty());
+        assertEquals(List.of("Отзыв 24", "Отзыв 25"), repository.loadLatestReviews(testId, 2, true));
+        assertEquals(25, repository.loadLatestReviews(testId, 100, true).size());
+        assertThrows(IllegalArgumentException.class, () -> repository.loadReviewsPage(testId, 0, 10, true));
+    }
+
+    @Test
+    void testReviewIndexIsRebuiltAfterInterruptedWrite() throws IOException {
+        PremiereRepository repository = new PremiereRepository();
+        premiere.getReviews().addAll(Arrays.asList("Первый", "Второй", "Третий"));
+        repository.saveReviewsToFile(premiere, true);
+
+        // Индекс потерял последнюю запись, а в журнале остался оборванный хвост
+        Path indexPath = Path.of(testId + "_testReviews.idx");
+        byte[] index = Files.readAllBytes(indexPath);
+        Files.write(indexPath, Arrays.copyOf(index, index.length - 8));
+        Files.write(PremiereRepository.reviewLogPath(testId, true), new byte[]{42, 0}, java.nio.file.StandardOpenOption.APPEND);
+
+        PremiereRepository reopened = new PremiereRepository();
+        assertEquals(3, reopened.countReviews(testId, true));
+        assertEquals(List.of("Третий"), reopened.loadLatestReviews(testId, 1, true));
+    }
+
+    @Test
+    void testLoadReviewsImportsLegacyTextFile() throws IOException {
+        // Отзывы прежней версии: по одному в строке
+        Files.write(Path.of(testId + "_testReviews.txt"), List.of("Старый отзыв 1", "Старый отзыв 2"));
+
+        PremiereRepository repository = new PremiereRepository();
+        repository.loadReviewsFromFile(premiere, true);
+        assertEquals(List.of("Старый отзыв 1", "Старый отзыв 2"), premiere.getReviews());
+
+        repository.addReview(premiere, "Новый отзыв", true);
+        assertEquals(List.of("Старый отзыв 2", "Новый отзыв"), new PremiereRepository().loadLatestReviews(testId, 2, true));
+    }
+
     @Test
     void testSaveAndLoadGuests() {
         // Добавляем тестовых гостей
@@ -312,6 +395,51 @@ public class PremiereTest {
         assertEquals(50, premiere.getTicketSold(), "Количество проданных билетов не должно измениться");
     }
 
+    // Нагрузочный тест: много касс одновременно продают и возвращают билеты одной премьеры
+    @Test
+    void testConcurrentSellTicketsNeverOversells() throws Exception {
+        int initialTickets = 20_000;
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        Premiere hotPremiere = new Premiere("hot", "Avatar", ZonedDateTime.now(), "IMAX", initialTickets, 1000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int sold = 0;
+                int iteration = 0;
+                // Продаём по 1-3 билета, пока они не закончатся; иногда возвращаем один билет
+                while (true) {
+                    int count = 1 + (seed + iteration++) % 3;
+                    if (!hotPremiere.sellTickets(count)) {
+                        return sold;
+                    }
+                    sold += count;
+                    if (iteration % 50 == 0) {
+                        hotPremiere.returnTickets(1, sold);
+                        sold -= 1;
+                    }
+                }
+            }));
+        }
+        start.countDown();
+
+        int totalSold = 0;
+        for (Future<Integer> result : results) {
+            totalSold += result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Ни одного лишнего билета и ни одного потерянного обновления
+        assertEquals(totalSold, hotPremiere.getTicketSold(), "Проданные билеты должны совпадать с суммой успешных продаж");
+        assertTrue(hotPremiere.getTicketSold() <= initialTickets, "Продано больше билетов, чем было");
+        assertEquals(initialTickets - hotPremiere.getTicketSold(), hotPremiere.getTicketCount());
+        assertTrue(hotPremiere.getTicketCount() < 3, "Билеты должны быть распроданы");
+    }
+
     // Параметризированный тест для добавления отзывов
     @ParameterizedTest
     @CsvSource({
@@ -415,4 +543,145 @@ public class PremiereTest {
             assertEquals("Бюджет не может быть отрицательным или нулевым.", exception.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSaveAndLoadLargeGuestList() {
+        PremiereRepository repository = new PremiereRepository();
+        List<String> guests = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            guests.add("Гость " + i + (i % 7 == 0 ? " 🎬" : ""));
+        }
+        guests.add(""); // Пустое имя тоже сохраняется
+        premiere.setGuestList(new ArrayList<>(guests));
+        repository.saveGuestsToFile(premiere, true);
+
+        premiere.setGuestList(new ArrayList<>());
+        repository.loadGuestsFromFile(premiere, true);
+        assertEquals(guests, premiere.getGuestList());
+    }
+
+    @Test
+    void testLoadGuestsMigratesLegacySerializedFile() throws IOException {
+        // Файл в старом формате: список, записанный через ObjectOutputStream
+        Path path = PremiereRepository.guestPath(testId, true);
+        List<String> guests = new ArrayList<>(Arrays.asList("Иван Иванов", "Мария Петрова"));
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(path))) {
+            oos.writeObject(guests);
+        }
+
+        PremiereRepository repository = new PremiereRepository();
+        repository.loadGuestsFromFile(premiere, true);
+        assertEquals(guests, premiere.getGuestList());
+
+        // Файл переписан в новом формате и читается уже без сериализации Java
+        byte[] header = Files.readAllBytes(path);
+        assertFalse(header[0] == (byte) 0xAC && header[1] == (byte) 0xED, "Файл должен быть переведён в новый формат.");
+        premiere.setGuestList(new ArrayList<>());
+        repository.loadGuestsFromFile(premiere, true);
+        assertEquals(guests, premiere.getGuestList());
+    }
+
+    @Test
+    void testLoadGuestsRejectsUnexpectedSerializedClasses() throws IOException {
+        // В старом файле оказался не список строк — объект не должен быть создан
+        Path path = PremiereRepository.guestPath(testId, true);
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(path))) {
+            oos.writeObject(new java.util.HashMap<>(java.util.Map.of("гость", 1)));
+        }
+        premiere.setGuestList(new ArrayList<>(List.of("Прежний гость")));
+
+        new PremiereRepository().loadGuestsFromFile(premiere, true);
+        assertEquals(List.of("Прежний гость"), premiere.getGuestList());
+    }
+
+    @Test
+    void testDirtyTracking() {
+        // Новая премьера ещё не сохранена
+        assertTrue(premiere.isDirty());
+        premiere.markSaved(premiere.getVersion());
+        assertFalse(premiere.isDirty());
+
+        // Любое изменение состояния снова делает премьеру изменённой
+        assertTrue(premiere.sellTickets(3));
+        assertTrue(premiere.isDirty());
+        long saved = premiere.getVersion();
+        premiere.setTicketPrice(250.0);
+        premiere.markSaved(saved); // Сохранена версия до смены цены
+        assertTrue(premiere.isDirty());
+        premiere.markSaved(premiere.getVersion());
+        assertFalse(premiere.isDirty());
+    }
+
+    @Test
+    void testFailedRefundDoesNotReleaseTickets() {
+        Premiere small = new Premiere("refund", "Titanic", ZonedDateTime.now(), "Moscow", 10, 1000);
+        assertEquals(TicketOrderStatus.SOLD, small.reserveTickets(10));
+        small.commitTickets(1, 10);
+
+        // Пока возврат не записан, билеты остаются проданными
+        assertEquals(TicketOrderStatus.SOLD, small.reserveTickets(-4));
+        assertEquals(10, small.getTicketSold());
+        assertFalse(small.sellTickets(1));
+        assertThrows(IllegalArgumentException.class, () -> small.reserveTickets(-7)); // Ещё 4 уже возвращаются
+
+        // Запись возврата не удалась: продажа не превышает число мест
+        small.abortTickets(-4);
+        assertEquals(10, small.getTicketSold());
+        assertEquals(0, small.getTicketCount());
+
+        assertEquals(TicketOrderStatus.SOLD, small.reserveTickets(-4));
+        small.commitTickets(2, -4);
+        assertEquals(6, small.getTicketSold());
+        assertEquals(4, small.getTicketCount());
+        assertEquals(new Premiere.TicketSnapshot(6, 2), small.durableTicketState());
+
+        // Вернуть можно только билеты записанных продаж
+        assertEquals(TicketOrderStatus.SOLD, small.reserveTickets(3));
+        assertThrows(IllegalArgumentException.class, () -> small.reserveTickets(-7));
+        small.abortTickets(3);
+        assertEquals(6, small.getTicketSold());
+    }
+
+    @Test
+    void testDateFastPathMatchesFormatter() {
+        Random random = new Random(7);
+        List<ZoneId> zones = List.of(ZoneId.of("UTC"), ZoneId.of("UTC+03:00"), ZoneOffset.ofHours(-5),
+                ZoneId.of("Europe/Berlin"), ZoneId.of("Europe/Moscow"), ZoneId.of("America/New_York"),
+                ZoneId.of("Asia/Tokyo"), ZoneId.of("Australia/Sydney"));
+        for (int i = 0; i < 5_000; i++) {
+            // Даты с 1900 по 2100 год, в том числе на переходах на летнее время
+            LocalDateTime local = LocalDateTime.of(1900, 1, 1, 0, 0).plusMinutes(random.nextInt(200 * 365 * 24 * 60));
+            ZonedDateTime date = ZonedDateTime.of(local, zones.get(random.nextInt(zones.size())));
+            String expected = date.format(DateUtils.DATE_TIME_ZONE);
+            assertEquals(expected, DateUtils.formatDateTimeZone(date));
+            // Повторный разбор идёт быстрым путём и совпадает с разбором форматтером
+            assertEquals(ZonedDateTime.parse(expected, DateUtils.DATE_TIME_ZONE), DateUtils.parseDateTimeZone(expected));
+            assertEquals(ZonedDateTime.parse(expected, DateUtils.DATE_TIME_ZONE), DateUtils.parseDateTimeZone(expected));
+        }
+        // Некорректные даты разбирает форматтер: 31 февраля приводится к последнему дню месяца, как раньше
+        assertEquals(ZonedDateTime.parse("31.02.2025 10:00 UTC", DateUtils.DATE_TIME_ZONE),
+                DateUtils.parseDateTimeZone("31.02.2025 10:00 UTC"));
+        assertThrows(DateTimeParseException.class, () -> DateUtils.parseDateTimeZone("32.01.2025 10:00 UTC"));
+        assertThrows(DateTimeParseException.class, () -> DateUtils.parseDateTimeZone("01.01.2025 24:30 UTC"));
+        assertThrows(DateTimeParseException.class, () -> DateUtils.parseDateTimeZone("01.01.2025 10:00 Nowhere"));
+    }
+
+    @Test
+    void testZoneByLocationUsesCityTable() throws IOException {
+        assertEquals(ZoneId.of("Europe/Berlin"), DateUtils.getZoneIdByLocation("  Берлин "));
+        assertSame(DateUtils.findZoneIdByLocation("LONDON"), DateUtils.findZoneIdByLocation("london"));
+        assertNull(DateUtils.findZoneIdByLocation("Тестоград"));
+        assertEquals(ZoneId.systemDefault(), DateUtils.getZoneIdByLocation("Тестоград"));
+
+        Path table = Files.createTempFile("cities", ".csv");
+        try {
+            Files.writeString(table, "# город;зона\nТестоград;Asia/Yekaterinburg\nПлохая строка\nНигде;Mars/Olympus\n");
+            assertEquals(1, DateUtils.loadCityTable(table));
+            assertEquals(ZoneId.of("Asia/Yekaterinburg"), DateUtils.findZoneIdByLocation("Тестоград"));
+            assertEquals(ZoneId.of("Asia/Tokyo"), DateUtils.findZoneIdByLocation("Tokyo")); // Встроенные города остаются
+            assertNull(DateUtils.findZoneIdByLocation("Нигде"));
+        } finally {
+            Files.delete(table);
+        }
+    }
+}